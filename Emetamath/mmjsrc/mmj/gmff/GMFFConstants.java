@@ -100,6 +100,18 @@ public class GMFFConstants {
 
     public static final int PROOF_WORKSHEET_BUFFER_SIZE = 8192;
 
+    /**
+     * Default number of worker threads of GMFFExportTheorem: one, exporting
+     * the theorems one after the other.
+     */
+    public static final int EXPORT_THREADS_DEFAULT = 1;
+
+    /**
+     * Number of theorems, per worker thread, whose export may be in progress
+     * at one time during a parallel export.
+     */
+    public static final int EXPORT_PENDING_PER_THREAD = 4;
+
     public static final char APPEND_FILE_NAME_ERR_CHAR_1 = '/';
     public static final char APPEND_FILE_NAME_ERR_CHAR_2 = '\\';
     public static final char APPEND_FILE_NAME_ERR_CHAR_3 = ':';
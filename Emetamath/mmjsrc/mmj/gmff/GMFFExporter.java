@@ -15,8 +15,8 @@
 
 package mmj.gmff;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import mmj.lang.*;
 
@@ -41,7 +41,8 @@ import mmj.lang.*;
  * <p>
  * {@code GMFFExporter} also contains a Map holding a cache of Model Files --
  * {@code modelFileCacheMap} for the given Export Type. The purpose is to avoid
- * re-reading the model files over and over again.
+ * re-reading the model files over and over again. The cache is shared by the
+ * worker threads of a parallel export, and each Model File is read only once.
  * <p>
  * {@code GMFFExporter} also contains a number of utility functions which are
  * common to the different model exporters, such as {@code ModelAExporter},
@@ -122,7 +123,7 @@ public abstract class GMFFExporter {
                 escapeSubstitutions[pair.num][i] = pair.replacement.charAt(i);
         }
 
-        modelFileCacheMap = new HashMap<>(
+        modelFileCacheMap = new ConcurrentHashMap<>(
             GMFFConstants.EXPORTER_MODEL_CACHE_INIT_SIZE);
 
     }
@@ -326,8 +327,13 @@ public abstract class GMFFExporter {
     {
 
         String modelFileContents = modelFileCacheMap.get(modelFileName);
+        if (modelFileContents != null)
+            return modelFileContents;
 
-        if (modelFileContents == null) {
+        synchronized (modelFileCacheMap) {
+            modelFileContents = modelFileCacheMap.get(modelFileName);
+            if (modelFileContents != null)
+                return modelFileContents;
 
             final GMFFInputFile modelFile = new GMFFInputFile(
                 gmffExportParms.modelsFolder, modelFileName,
@@ -346,8 +352,8 @@ public abstract class GMFFExporter {
 
     /**
      * Loads a {@code MinProofWorksheet} object using the cached
-     * {@code proofText} if the cache does not already contain a loaded instance
-     * of the {@code MinProofWorksheet}.
+     * {@code proofText} or {@code ProofWorksheet} if the cache does not already
+     * contain a loaded instance of the {@code MinProofWorksheet}.
      *
      * @param p the ProofWorksheetCache object.
      * @throws GMFFException if an error occurred
@@ -355,13 +361,7 @@ public abstract class GMFFExporter {
     protected void loadMinProofWorksheet(final ProofWorksheetCache p)
         throws GMFFException
     {
-
-        if (p.cachedMinProofWorksheet == null) {
-
-            p.cachedMinProofWorksheet = new MinProofWorksheet(getMessageHandler());
-
-            p.cachedMinProofWorksheet.load(p.proofText);
-        }
+        p.loadMinProofWorksheet(getMessageHandler());
     }
 
     /**
@@ -43,6 +43,9 @@ import mmj.lang.Messages;
  * Another Export Type called "html2" could be defined, perhaps using Model B to
  * structure its export data.
  * <p>
+ * The typesetting definitions are loaded at GMFF initialization time and only
+ * read afterwards, so they may be used by the worker threads of a parallel
+ * export without synchronization.
  */
 public class GMFFExporterTypesetDefs {
     public String typesetDefKeyword;
@@ -17,11 +17,13 @@ package mmj.gmff;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.*;
 
 import mmj.lang.*;
 import mmj.mmio.MMIOConstants;
 import mmj.pa.ProofAsst;
 import mmj.pa.ProofAsstException;
+import mmj.pa.ProofWorksheet;
 
 /**
  * Serves as a central data store for GMFF work in progress and as the primary
@@ -93,6 +95,12 @@ public class GMFFManager {
     // to inputGMFFUserExportChoice
     private GMFFExporter[] selectedExporters;
 
+    private int nbrThreads = GMFFConstants.EXPORT_THREADS_DEFAULT;
+
+    // messages of the theorem exported by a worker thread of a parallel
+    // export, returned by getMessageHandler() on that thread
+    private final ThreadLocal<MessageHandler> exportMessageHandler;
+
     /**
      * Standard constructor.
      * <p>
@@ -126,6 +134,8 @@ public class GMFFManager {
 
         exporterTypesetDefsList = new ArrayList<>(
             GMFFConstants.DEFAULT_EXPORT_PARMS.length);
+
+        exportMessageHandler = new ThreadLocal<>();
     }
 
     /**
@@ -215,6 +225,29 @@ public class GMFFManager {
         forceReinitialization();
     }
 
+    /**
+     * Returns the number of Metamath $t Comment statements cached so far.
+     *
+     * @return number of cached $t Comments.
+     */
+    public int getTypesetDefinitionsCacheSize() {
+        return typesetDefinitionsCache.size();
+    }
+
+    /**
+     * Drops the $t Comment statements cached after the first {@code size}
+     * ones, when a partial reload of the Metamath file restarts before them.
+     *
+     * @param size number of cached $t Comments to keep.
+     */
+    public void truncateTypesetDefinitionsCache(final int size) {
+        typesetDefinitionsCache.subList(size, typesetDefinitionsCache.size())
+            .clear();
+        if (nbrTypesetDefinitionsProcessedSoFar > size)
+            nbrTypesetDefinitionsProcessedSoFar = size;
+        forceReinitialization();
+    }
+
     /**
      * Stores the contents of the {@code GMFFUserExportChoice} from one RunParm
      * for later validation and use.
@@ -268,12 +301,34 @@ public class GMFFManager {
 
     /**
      * Gets the {@code messageHandler} object.
+     * <p>
+     * On a worker thread of a parallel export, returns the MessageHandler
+     * collecting the messages of the theorem being exported, which are passed
+     * on to the {@code messageHandler} in theorem order.
      *
      * @return The MessageHandler object used to store error and informational
      *         messages during mmj2 processing.
      */
     public MessageHandler getMessageHandler() {
-        return messageHandler;
+        final MessageHandler handler = exportMessageHandler.get();
+        return handler == null ? messageHandler : handler;
+    }
+
+    /**
+     * Sets the number of worker threads used by {@code exportTheorem} to
+     * export a range of theorems.
+     *
+     * @param nbrThreads number of worker threads, at least 1.
+     */
+    public void setNbrThreads(final int nbrThreads) {
+        this.nbrThreads = Math.max(1, nbrThreads);
+    }
+
+    /**
+     * @return the number of worker threads used to export theorems.
+     */
+    public int getNbrThreads() {
+        return nbrThreads;
     }
 
     /**
@@ -440,11 +495,15 @@ public class GMFFManager {
             }
 
             int i = 0;
-            for (final Theorem theorem : iterable) {
-                if (i++ >= max)
-                    break;
-                gmffExportOneTheorem(theorem, appendFileName, proofAsst);
-            }
+            if (nbrThreads > 1 && appendFileName == null
+                && !hasSelectedOutputFileName())
+                i = exportTheoremsParallel(iterable, max, proofAsst);
+            else
+                for (final Theorem theorem : iterable) {
+                    if (i++ >= max)
+                        break;
+                    gmffExportOneTheorem(theorem, appendFileName, proofAsst);
+                }
             if (i == 0) {
                 messageHandler.accumMessage(
                     GMFFConstants.ERRMSG_NO_THEOREMS_SELECTED_ERROR,
@@ -462,11 +521,14 @@ public class GMFFManager {
      * This function is called by other functions in {@code GMFFManager} but it
      * would be perfectly valid to call it externally.
      * <p>
-     * This function calls {@code ProofAsst.exportOneTheorem} which creates a
-     * Proof Worksheet from a Metamath (RPN) proof. If the theorem's proof is
-     * incomplete or invalid, or if it contains no assertions, an error message
-     * results (and if input argument {@code theorem} is null an
+     * This function calls {@code ProofAsst.exportOneProofWorksheet} which
+     * creates a Proof Worksheet from a Metamath (RPN) proof. If the theorem's
+     * proof is incomplete or invalid, or if it contains no assertions, an error
+     * message results (and if input argument {@code theorem} is null an
      * {@code IllegalArgumentException} will result ;-)
+     * <p>
+     * The Proof Worksheet is passed to the exporters as is: its text is not
+     * generated and read back.
      *
      * @param theorem {@code Theorem} to be exported.
      * @param appendFileName Specifies an append-mode file name to which
@@ -485,24 +547,128 @@ public class GMFFManager {
         if (!gmffInitialized)
             initialization();
 
-        String proofWorksheetText;
+        final ProofWorksheet proofWorksheet = getExportedProofWorksheet(
+            theorem, proofAsst, messageHandler);
+
+        if (proofWorksheet != null)
+            for (final GMFFException confirm : exportProofWorksheet(
+                proofWorksheet, appendFileName))
+                messageHandler.accumException(confirm);
+    }
+
+    /**
+     * Creates the Proof Worksheet of a {@code Theorem} with
+     * {@code ProofAsst.exportOneProofWorksheet}.
+     *
+     * @param theorem {@code Theorem} to be exported.
+     * @param proofAsst The {@code ProofAsst} object.
+     * @param handler MessageHandler receiving the error messages, including
+     *            those of ProofAsst.
+     * @return the Proof Worksheet, or null if it could not be created.
+     */
+    private ProofWorksheet getExportedProofWorksheet(final Theorem theorem,
+        final ProofAsst proofAsst, final MessageHandler handler)
+    {
+        ProofWorksheet proofWorksheet;
         try {
-            proofWorksheetText = proofAsst.exportOneTheorem(theorem);
+            proofWorksheet = proofAsst.exportOneProofWorksheet(theorem,
+                handler);
         } catch (final IllegalArgumentException e) {
-            messageHandler.accumException(new GMFFException(e,
+            handler.accumException(new GMFFException(e,
                 GMFFConstants.ERRMSG_GMFF_THEOREM_EXPORT_PA_ERROR,
                 theorem.getLabel(), e.getMessage()));
-            return;
+            return null;
         }
 
-        if (proofWorksheetText == null)
-            messageHandler.accumMessage(
+        if (proofWorksheet == null)
+            handler.accumMessage(
                 GMFFConstants.ERRMSG_GMFF_THEOREM_EXPORT_PA_ERROR,
                 theorem.getLabel());
-        else
-            for (final GMFFException confirm : exportProofWorksheet(
-                proofWorksheetText, appendFileName))
-                messageHandler.accumException(confirm);
+        return proofWorksheet;
+    }
+
+    /**
+     * Exports a range of theorems using {@code nbrThreads} worker threads.
+     * <p>
+     * The Proof Worksheets are created by {@code ProofAsst} on the calling
+     * thread, ProofAsst not being thread safe, while the worker threads load
+     * them into {@code MinProofWorksheet}s, typeset them and write the export
+     * files. The exporters share their model file caches and typesetting
+     * definitions, which are only read once loaded.
+     * <p>
+     * The messages of each theorem are collected by its worker and passed on
+     * in theorem order, so they are the same as for a sequential export. At
+     * most {@code EXPORT_PENDING_PER_THREAD} theorems per thread are in
+     * progress at one time, which bounds the memory used by Proof
+     * Worksheets.
+     *
+     * @param iterable the theorems to export, in export order.
+     * @param max maximum number of theorems to export.
+     * @param proofAsst The {@code ProofAsst} object.
+     * @return the number of theorems selected for export.
+     * @throws GMFFException if errors encountered.
+     */
+    private int exportTheoremsParallel(final Iterable<Theorem> iterable,
+        final int max, final ProofAsst proofAsst) throws GMFFException
+    {
+        final int maxPending = nbrThreads
+            * GMFFConstants.EXPORT_PENDING_PER_THREAD;
+        final Deque<Future<DeferredMessages>> pending = new ArrayDeque<>(
+            maxPending);
+        final ExecutorService pool = Executors.newFixedThreadPool(nbrThreads);
+        int i = 0;
+        try {
+            for (final Theorem theorem : iterable) {
+                if (i++ >= max)
+                    break;
+                final DeferredMessages messages = new DeferredMessages();
+                final ProofWorksheet proofWorksheet = getExportedProofWorksheet(
+                    theorem, proofAsst, messages);
+                if (proofWorksheet == null)
+                    pending.add(CompletableFuture.completedFuture(messages));
+                else
+                    pending.add(pool.submit(() -> {
+                        exportMessageHandler.set(messages);
+                        try {
+                            for (final GMFFException confirm
+                                : exportProofWorksheet(proofWorksheet, null))
+                                messages.accumException(confirm);
+                        } finally {
+                            exportMessageHandler.remove();
+                        }
+                        return messages;
+                    }));
+                if (pending.size() >= maxPending)
+                    pending.remove().get().replay(messageHandler);
+            }
+            while (!pending.isEmpty())
+                pending.remove().get().replay(messageHandler);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof GMFFException)
+                throw (GMFFException)e.getCause();
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return i;
+    }
+
+    /**
+     * Returns true if one of the selected exporters writes all its exports to
+     * the same file, named in its Export Parms, in which case the theorems
+     * must be exported one after the other.
+     *
+     * @return true if an output file name is set for a selected exporter.
+     */
+    private boolean hasSelectedOutputFileName() {
+        for (final GMFFExporter selectedExporter : selectedExporters)
+            if (selectedExporter.gmffExportParms.outputFileName != null)
+                return true;
+        return false;
     }
 
     /**
@@ -511,11 +677,11 @@ public class GMFFManager {
      * This function is called by other functions in {@code GMFFManager} but it
      * would be perfectly valid to call it externally.
      * <p>
-     * This function calls {@code ProofAsst.exportOneTheorem} which creates a
-     * Proof Worksheet from a Metamath (RPN) proof. If the theorem's proof is
-     * incomplete or invalid, or if it contains no assertions, an error message
-     * results -- and if input argument {@code theoremLabel} is null or invalid
-     * an exception is thrown...
+     * This function calls {@code ProofAsst.exportOneProofWorksheet} which
+     * creates a Proof Worksheet from a Metamath (RPN) proof. If the theorem's
+     * proof is incomplete or invalid, or if it contains no assertions, an error
+     * message results -- and if input argument {@code theoremLabel} is null or
+     * invalid an exception is thrown...
      *
      * @param theoremLabel label of {@code Theorem} to be exported.
      * @param appendFileName Specifies an append-mode file name to which
@@ -534,9 +700,9 @@ public class GMFFManager {
         if (!gmffInitialized)
             initialization();
 
-        String proofWorksheetText;
+        ProofWorksheet proofWorksheet;
         try {
-            proofWorksheetText = proofAsst.exportOneTheorem(theoremLabel);
+            proofWorksheet = proofAsst.exportOneProofWorksheet(theoremLabel);
         } catch (final IllegalArgumentException e) {
             messageHandler.accumException(new GMFFException(e,
                 GMFFConstants.ERRMSG_GMFF_THEOREM_EXPORT_PA_ERROR, theoremLabel,
@@ -544,13 +710,13 @@ public class GMFFManager {
             return;
         }
 
-        if (proofWorksheetText == null)
+        if (proofWorksheet == null)
             messageHandler.accumMessage(
                 GMFFConstants.ERRMSG_GMFF_THEOREM_EXPORT_PA_ERROR,
                 theoremLabel);
         else
             for (final GMFFException confirm : exportProofWorksheet(
-                proofWorksheetText, appendFileName))
+                proofWorksheet, appendFileName))
                 messageHandler.accumException(confirm);
     }
 
@@ -586,6 +752,38 @@ public class GMFFManager {
     public List<GMFFException> exportProofWorksheet(final String proofText,
         final String appendFileName) throws GMFFException
     {
+        return exportProofWorksheet(new ProofWorksheetCache(proofText),
+            appendFileName);
+    }
+
+    /**
+     * Exports a {@code ProofWorksheet} created by {@code ProofAsst}, as
+     * {@link #exportProofWorksheet(String, String)} exports its text.
+     * <p>
+     * The exporters load their {@code MinProofWorksheet} directly from the
+     * formatted statements of the {@code ProofWorksheet}, so its text is
+     * neither generated nor tokenized again.
+     *
+     * @param proofWorksheet {@code ProofWorksheet} free of structural errors.
+     * @param appendFileName name of a file to which export data should be
+     *            appended (in the proper directory for the Export Type), or
+     *            {@code null} if GMFF is supposed to generate the name.
+     * @return List of confirmation messages about successful export(s) if no
+     *         errors occurred.
+     * @throws GMFFException if error found.
+     */
+    public List<GMFFException> exportProofWorksheet(
+        final ProofWorksheet proofWorksheet, final String appendFileName)
+            throws GMFFException
+    {
+        return exportProofWorksheet(new ProofWorksheetCache(proofWorksheet),
+            appendFileName);
+    }
+
+    private List<GMFFException> exportProofWorksheet(
+        final ProofWorksheetCache p, final String appendFileName)
+            throws GMFFException
+    {
 
         final List<GMFFException> confirmationMessage = new ArrayList<>(0);
 
@@ -596,8 +794,6 @@ public class GMFFManager {
             throw new GMFFException(
                 GMFFConstants.ERRMSG_NO_EXPORT_TYPES_SELECTED_ERROR);
 
-        final ProofWorksheetCache p = new ProofWorksheetCache(proofText);
-
         for (final GMFFExporter selectedExporter : selectedExporters) {
             final GMFFException confirm = selectedExporter
                 .exportProofWorksheet(p, appendFileName);
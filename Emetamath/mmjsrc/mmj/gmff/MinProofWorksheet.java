@@ -15,14 +15,14 @@
 
 package mmj.gmff;
 
-import java.io.*;
 import java.util.ArrayList;
 import java.util.List;
 
 import mmj.lang.MessageHandler;
-import mmj.mmio.Tokenizer;
-import mmj.mmio.Source.StringSource;
+import mmj.mmio.MMIOConstants;
 import mmj.pa.PaConstants;
+import mmj.pa.ProofWorkStmt;
+import mmj.pa.ProofWorksheet;
 
 /**
  * {@code MinProofWorksheet} is a minimalist {@code ProofWorksheet} containing
@@ -92,8 +92,8 @@ public class MinProofWorksheet {
      * Loads the Proof Worksheet text into the MinProofWorksheet. <br>
      * Does the following:
      * <ul>
-     * <li>Uses Java's readLine() to break the proofText into lines and strip
-     * off newline characters.
+     * <li>Breaks the proofText into lines, as Java's readLine() would, and
+     * strips off newline characters.
      * <li>Each line is "tokenized" into strings containing either Metamath
      * whitespace or a single Metamath token Strings, and the collection of
      * Strings for each line is stored in an ArrayList
@@ -110,50 +110,99 @@ public class MinProofWorksheet {
      * @param proofText String data holding Proof Worksheet text.
      */
     public void load(final String proofText) {
-        setStructuralErrors(false);
+        final LineSplitter lines = new LineSplitter();
+        lines.append(proofText);
+        load(lines.finish());
+    }
 
-        final LineNumberReader lineReader = new LineNumberReader(
-            new StringReader(proofText));
+    /**
+     * Loads a {@code ProofWorksheet} into the MinProofWorksheet.
+     * <p>
+     * The lines are taken from the text of each {@code ProofWorkStmt}, which
+     * is already formatted, so the result is the same as loading the output
+     * text of the {@code ProofWorksheet} with {@link #load(String)}, without
+     * building that text.
+     *
+     * @param proofWorksheet the {@code ProofWorksheet}, free of structural
+     *            errors.
+     */
+    public void load(final ProofWorksheet proofWorksheet) {
+        final LineSplitter lines = new LineSplitter();
+        for (final ProofWorkStmt x : proofWorksheet.getProofWorkStmtList())
+            lines.append(x.getStmtText());
+        load(lines.finish());
+    }
 
-        final List<List<String>> lineList = new ArrayList<>();
-        List<String> tokenList;
-        String line;
+    private void load(final List<String> lines) {
+        setStructuralErrors(false);
 
-        MinProofWorkStmt minProofWorkStmt = null;
+        if (lines.isEmpty()) {
+            triggerEmptyProofError();
+            return;
+        }
+        final String line1 = lines.get(0);
+        if (line1.length() == 0 || line1.charAt(0) == ' ')
+            triggerBogusLine1Error();
 
-        try {
-            line = lineReader.readLine();
-            if (line == null)
-                triggerEmptyProofError();
-            if (line.length() == 0 || line.charAt(0) == ' ')
-                triggerBogusLine1Error();
+        final List<List<String>> lineList = new ArrayList<>();
+        int i = 0;
+        while (!structuralErrors && i < lines.size()) {
+            String line = lines.get(i);
             do {
-                do {
-                    tokenList = tokenize(line);
-                    if (structuralErrors)
-                        return;
-                    lineList.add(tokenList);
-                    lineCnt++;
-                } while ((line = lineReader.readLine()) != null
-                    && (line.length() == 0 || line.charAt(0) == ' '));
-
-                minProofWorkStmt = MinProofWorkStmt.constructStmt(this,
-                    lineList);
-
-                if (minProofWorkStmt == null)
-                    setStructuralErrors(true);
+                lineList.add(tokenize(line));
+                lineCnt++;
+            } while (++i < lines.size()
+                && ((line = lines.get(i)).length() == 0
+                    || line.charAt(0) == ' '));
+
+            final MinProofWorkStmt minProofWorkStmt = MinProofWorkStmt
+                .constructStmt(this, lineList);
+
+            if (minProofWorkStmt == null)
+                setStructuralErrors(true);
+            else {
+                minProofWorkStmtList.add(minProofWorkStmt);
+                lineList.clear();
+            }
+        }
+    }
+
+    /**
+     * Breaks text into lines as {@code BufferedReader.readLine()} does: lines
+     * end with a line feed, a carriage return, or both, and the text may be
+     * supplied in pieces which do not end at the end of a line.
+     */
+    private static class LineSplitter {
+        private final List<String> lines = new ArrayList<>();
+        private final StringBuilder line = new StringBuilder();
+        private boolean pending;
+        private boolean afterCR;
+
+        void append(final CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                final char c = text.charAt(i);
+                if (c == '\n' && afterCR) {
+                    afterCR = false;
+                    continue;
+                }
+                afterCR = c == '\r';
+                if (c == '\n' || c == '\r') {
+                    lines.add(line.toString());
+                    line.setLength(0);
+                    pending = false;
+                }
                 else {
-                    minProofWorkStmtList.add(minProofWorkStmt);
-                    lineList.clear();
+                    line.append(c);
+                    pending = true;
                 }
-            } while (!structuralErrors && line != null);
-        } catch (final IOException e) {
-            setStructuralErrors(true);
-            messageHandler.accumException(new GMFFException(e,
-                GMFFConstants.ERRMSG_LOAD_READLINE_IO_ERROR, lineCnt + 1,
-                e.toString()));
+            }
         }
 
+        List<String> finish() {
+            if (pending)
+                lines.add(line.toString());
+            return lines;
+        }
     }
 
     /**
@@ -254,39 +303,36 @@ public class MinProofWorksheet {
 
         final List<String> tokenList = new ArrayList<>();
 
-        StringBuilder sb = new StringBuilder();
-
-        int len;
-
-        try (final Tokenizer tokenizer = new Tokenizer(new StringSource(line, "Single line from proof worksheet")))
-        {
-            len = tokenizer.getWhiteSpace(sb, 0);
-            if (len < 0)
-                tokenList.add("");
-            else
-                while (len >= 0) {
-                    if (len > 0)
-                        tokenList.add(sb.toString());
-                    sb = new StringBuilder();
-                    if ((len = tokenizer.getToken(sb, 0)) >= 0) {
-                        tokenList.add(sb.toString());
-                        sb = new StringBuilder();
-                        len = tokenizer.getWhiteSpace(sb, 0);
-                    }
-                }
-        } catch (final IOException e) {
-            triggerTokenizerIO_Error(e, lineCnt);
+        final int len = line.length();
+        if (len == 0) {
+            tokenList.add("");
+            return tokenList;
+        }
+
+        int i = 0;
+        while (i < len) {
+            int start = i;
+            while (i < len && isCharType(line.charAt(i),
+                MMIOConstants.WHITE_SPACE))
+                i++;
+            if (i > start)
+                tokenList.add(line.substring(start, i));
+            if (i == len)
+                break;
+            start = i++;
+            while (i < len && isCharType(line.charAt(i),
+                MMIOConstants.PRINTABLE))
+                i++;
+            tokenList.add(line.substring(start, i));
         }
         return tokenList;
     }
 
-    private void triggerTokenizerIO_Error(final Exception e,
-        final int lineNbr)
-    {
-        setStructuralErrors(true);
-        messageHandler.accumException(
-            new GMFFException(e, GMFFConstants.ERRMSG_TOKENIZER_IO_ERROR,
-                getTheoremLabel(), lineNbr, e.getMessage()));
+    /*
+     * Classifies characters as the Tokenizer does, by their low byte.
+     */
+    private static boolean isCharType(final char c, final byte type) {
+        return (MMIOConstants.VALID_CHAR_ARRAY[c & 0xff] & type) != 0;
     }
 
     private void triggerEmptyProofError() {
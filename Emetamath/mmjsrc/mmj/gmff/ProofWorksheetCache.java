@@ -29,6 +29,10 @@ import mmj.pa.ProofWorksheet;
  * ProofWorksheet or the new minimalist MinProofWorksheet. So we provide cache
  * areas for both types of Proof Worksheets which can be reused by GMFF if
  * already loaded.
+ * <p>
+ * When a theorem is exported, the cache is created from the
+ * {@code ProofWorksheet} built by {@code ProofAsst} and the text is only
+ * generated if an exporter asks for it.
  */
 public class ProofWorksheetCache {
 
@@ -49,6 +53,31 @@ public class ProofWorksheetCache {
         this.proofText = proofText;
     }
 
+    /**
+     * Constructor for ProofWorksheetCache from a loaded ProofWorksheet.
+     * <p>
+     * The {@code MinProofWorksheet} is then loaded from the formatted
+     * statements of the {@code ProofWorksheet}, and {@code proofText} is left
+     * null until {@link #getProofText()} is called.
+     *
+     * @param proofWorksheet ProofWorksheet free of structural errors.
+     */
+    public ProofWorksheetCache(final ProofWorksheet proofWorksheet) {
+        cachedProofWorksheet = proofWorksheet;
+    }
+
+    /**
+     * Returns the Proof Worksheet text, generating it from the cached
+     * {@code ProofWorksheet} if necessary.
+     *
+     * @return the Proof Worksheet text.
+     */
+    public String getProofText() {
+        if (proofText == null && cachedProofWorksheet != null)
+            proofText = cachedProofWorksheet.getOutputProofText();
+        return proofText;
+    }
+
     /**
      * Loads the cached {@code MinProofWorksheet} using the cached
      * {@code proofText} if not already cached, and returns the
@@ -66,7 +95,10 @@ public class ProofWorksheetCache {
 
             cachedMinProofWorksheet = new MinProofWorksheet(messageHandler);
 
-            cachedMinProofWorksheet.load(proofText);
+            if (proofText == null && cachedProofWorksheet != null)
+                cachedMinProofWorksheet.load(cachedProofWorksheet);
+            else
+                cachedMinProofWorksheet.load(proofText);
         }
 
         return cachedMinProofWorksheet;
@@ -874,6 +874,102 @@ public class BookManager implements TheoremLoaderCommitListener {
             totalNbrMObjs++;
     }
 
+    /**
+     * Records the current loading state of the BookManager.
+     * <p>
+     * The returned mark can later be passed to {@code rollback()} to discard
+     * every Chapter, Section and MObj assignment made after it, so that a
+     * partial reload of the input .mm database can restart from that point.
+     *
+     * @return the BookManager load mark.
+     */
+    public Mark mark() {
+        return new Mark();
+    }
+
+    /**
+     * Restores the loading state of the BookManager recorded by
+     * {@code mark()}.
+     * <p>
+     * MObjs assigned after the mark are expected to be discarded by the
+     * caller (see {@code LogicalSystem.rollback()}).
+     *
+     * @param mark the BookManager load mark.
+     */
+    public void rollback(final Mark mark) {
+        chapterList.subList(mark.nbrChapters, chapterList.size()).clear();
+        sectionList.subList(mark.nbrSections, sectionList.size()).clear();
+        inputSectionCounter = mark.inputSectionCounter;
+        totalNbrMObjs = mark.totalNbrMObjs;
+
+        currChapter = mark.currChapter;
+        currSymSection = mark.currSymSection;
+        currVarHypSection = mark.currVarHypSection;
+        currSyntaxSection = mark.currSyntaxSection;
+        currLogicSection = mark.currLogicSection;
+
+        nextChapterTitle = mark.nextChapterTitle;
+        nextSectionTitle = mark.nextSectionTitle;
+
+        if (currChapter != null) {
+            currChapter.truncateSectionList(mark.nbrChapterSections);
+            currChapter.setMinMObjSeq(mark.chapterMinMObjSeq);
+            currChapter.setMaxMObjSeq(mark.chapterMaxMObjSeq);
+            final Section[] s = mark.getCurrSections();
+            for (int i = 0; i < s.length; i++)
+                s[i].rollback(mark.sectionState[i][0], mark.sectionState[i][1],
+                    mark.sectionState[i][2]);
+        }
+        invalidateChapterSectionDependencies();
+    }
+
+    /**
+     * Loading state of the BookManager, see {@code BookManager.mark()}.
+     */
+    public class Mark {
+        private final int nbrChapters = chapterList.size();
+        private final int nbrSections = sectionList.size();
+        private final int inputSectionCounter = BookManager.this.inputSectionCounter;
+        private final int totalNbrMObjs = BookManager.this.totalNbrMObjs;
+
+        private final Chapter currChapter = BookManager.this.currChapter;
+        private final Section currSymSection = BookManager.this.currSymSection;
+        private final Section currVarHypSection = BookManager.this.currVarHypSection;
+        private final Section currSyntaxSection = BookManager.this.currSyntaxSection;
+        private final Section currLogicSection = BookManager.this.currLogicSection;
+
+        private final String nextChapterTitle = BookManager.this.nextChapterTitle;
+        private final String nextSectionTitle = BookManager.this.nextSectionTitle;
+
+        private final int nbrChapterSections;
+        private final int chapterMinMObjSeq;
+        private final int chapterMaxMObjSeq;
+        private final int[][] sectionState;
+
+        private Mark() {
+            if (currChapter == null) {
+                nbrChapterSections = 0;
+                chapterMinMObjSeq = 0;
+                chapterMaxMObjSeq = 0;
+                sectionState = null;
+                return;
+            }
+            nbrChapterSections = currChapter.getSectionList().size();
+            chapterMinMObjSeq = currChapter.getMinMObjSeq();
+            chapterMaxMObjSeq = currChapter.getMaxMObjSeq();
+            final Section[] s = getCurrSections();
+            sectionState = new int[s.length][];
+            for (int i = 0; i < s.length; i++)
+                sectionState[i] = new int[]{s[i].getLastMObjNbr(),
+                        s[i].getMinMObjSeq(), s[i].getMaxMObjSeq()};
+        }
+
+        private Section[] getCurrSections() {
+            return new Section[]{currSymSection, currVarHypSection,
+                    currSyntaxSection, currLogicSection};
+        }
+    }
+
 	public void clear() {
         chapterList.clear();
         sectionList.clear();
@@ -124,6 +124,23 @@ public class Chapter implements SourceElement, Comparable<Chapter> {
     public void setMaxMObjSeq(final int maxMObjSeq) {
         this.maxMObjSeq = maxMObjSeq;
     }
+
+    /**
+     * Drops the Sections stored after the first {@code nbrSections} ones.
+     * <p>
+     * Used by BookManager when a partial reload restarts from a load mark.
+     * 
+     * @param nbrSections number of Sections to be kept in the Chapter.
+     */
+    void truncateSectionList(final int nbrSections) {
+        sectionList.subList(nbrSections, sectionList.size()).clear();
+        if (sectionList.isEmpty()) {
+            firstSection = null;
+            lastSection = null;
+        }
+        else
+            lastSection = sectionList.get(sectionList.size() - 1);
+    }
     
     /**
      * Returns the position of this Chapter.
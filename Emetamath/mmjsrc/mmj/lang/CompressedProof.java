@@ -0,0 +1,104 @@
+package mmj.lang;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import mmj.lang.ParseTree.RPNStep;
+import mmj.mmio.BlockList;
+
+/**
+ * A validated compressed proof, kept by a Theorem loaded with lazy proof
+ * decompression, see {@link LogicalSystem#setLazyProofDecompression}.
+ * <p>
+ * The statements referenced in the parenthesized portion of the proof are
+ * resolved when the proof is loaded (the statement table and the "active"
+ * flags may have changed by the time the proof is needed). Only the letters
+ * are kept, one byte each, and they are decoded by
+ * {@link ProofCompression#loadSteps}.
+ */
+public class CompressedProof {
+    private final Stmt[] otherStmt;
+    private final byte[] letters;
+    private final ProofCache proofCache;
+
+    CompressedProof(final Stmt[] otherStmt, final byte[] letters,
+        final ProofCache proofCache)
+    {
+        this.otherStmt = otherStmt;
+        this.letters = letters;
+        this.proofCache = proofCache;
+    }
+
+    /**
+     * Returns the cache through which this proof is decompressed.
+     *
+     * @return the ProofCache.
+     */
+    public ProofCache getProofCache() {
+        return proofCache;
+    }
+
+    /**
+     * Returns the statements listed in the parenthesized portion of this
+     * proof.
+     *
+     * @return the referenced statements, other than the mandatory hypotheses.
+     */
+    public Stmt[] getOtherStmt() {
+        return otherStmt;
+    }
+
+    /**
+     * Decompresses this proof. This may be called from several threads.
+     *
+     * @param theoremLabel Theorem's label.
+     * @param mandHyp The theorem's MandFrame.hypArray.
+     * @return RPNStep array containing decompressed (but still "packed")
+     *         Metamath RPN proof.
+     */
+    public RPNStep[] decompress(final String theoremLabel,
+        final Hyp[] mandHyp)
+    {
+        final List<RPNStep> step = new ArrayList<>(letters.length);
+        try {
+            ProofCompression.loadSteps(theoremLabel, mandHyp,
+                Arrays.asList(otherStmt), new BlockList(
+                    new String(letters, StandardCharsets.US_ASCII)), step);
+        } catch (final LangException e) {
+            // the letters were validated when the theorem was loaded
+            throw new IllegalStateException(e);
+        }
+        return step.toArray(new RPNStep[step.size()]);
+    }
+
+    /**
+     * Returns true if this proof has unknown '?' steps, without decompressing
+     * it.
+     *
+     * @return true if this proof has unknown steps.
+     */
+    public boolean hasUnknownSteps() {
+        for (final byte letter : letters)
+            if (letter == LangConstants.COMPRESS_UNKNOWN_CHAR)
+                return true;
+        return false;
+    }
+
+    /**
+     * Adds this proof, as loaded, to a digest: the labels of the statements
+     * of the parenthesized portion, then the letters.
+     *
+     * @param digest the MessageDigest to update.
+     */
+    void digest(final MessageDigest digest) {
+        for (final Stmt stmt : otherStmt) {
+            digest.update(stmt.getLabel().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte)' ');
+        }
+        digest.update((byte)'(');
+        digest.update(letters);
+    }
+}
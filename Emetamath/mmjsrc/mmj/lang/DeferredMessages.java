@@ -0,0 +1,103 @@
+package mmj.lang;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import mmj.mmio.SourcePosition;
+import mmj.pa.ErrorCode;
+import mmj.pa.MMJException;
+
+/**
+ * A MessageHandler which only records the messages it receives, so that
+ * they can be passed on later to the real MessageHandler, in order.
+ * <p>
+ * Used by parallel tasks, such as the parallel parse of all formulas, whose
+ * messages are passed on in a deterministic order once the tasks are done.
+ */
+public class DeferredMessages implements MessageHandler {
+
+    private final List<Consumer<MessageHandler>> messages = new ArrayList<>(
+        1);
+
+    /**
+     * Returns true if no message was recorded.
+     *
+     * @return true if there are no messages.
+     */
+    public boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    /**
+     * Passes the recorded messages on to a MessageHandler, in the order they
+     * were received.
+     *
+     * @param messageHandler the MessageHandler receiving the messages.
+     */
+    public void replay(final MessageHandler messageHandler) {
+        for (final Consumer<MessageHandler> message : messages)
+            message.accept(messageHandler);
+    }
+
+    @Override
+    public boolean accumException(final MMJException e) {
+        return messages.add(h -> h.accumException(e));
+    }
+
+    @Override
+    public boolean accumMessage(final ErrorCode code,
+        final Object... args)
+    {
+        return messages.add(h -> h.accumMessage(code, args));
+    }
+
+    @Override
+    public boolean accumMessage(final SourcePosition position,
+        final ErrorCode code, final Object... args)
+    {
+        return messages.add(h -> h.accumMessage(position, code, args));
+    }
+
+    @Override
+    public boolean accumErrorMessage(final String errorMessage,
+        final Object... args)
+    {
+        return messages.add(h -> h.accumErrorMessage(errorMessage, args));
+    }
+
+    @Override
+    public boolean accumInfoMessage(final String infoMessage,
+        final Object... args)
+    {
+        return messages.add(h -> h.accumInfoMessage(infoMessage, args));
+    }
+
+    @Override
+    public boolean accumInfoMessage(final SourcePosition position,
+        final String infoMessage, final Object... args)
+    {
+        return messages
+            .add(h -> h.accumInfoMessage(position, infoMessage, args));
+    }
+
+    @Override
+    public boolean maxErrorMessagesReached() {
+        return false;
+    }
+
+    @Override
+    public boolean hasErrors() {
+        return false;
+    }
+
+    @Override
+    public String getOutputMessageText() {
+        return null;
+    }
+
+    @Override
+    public String getOutputMessageTextAbbrev() {
+        return null;
+    }
+}
@@ -313,6 +313,33 @@ public class LangConstants {
 
     public static final int COMPRESS_STEP_INIT_LEN = 20000;
 
+    /**
+     * Default for LogicalSystem lazy proof decompression: compressed proofs
+     * are decompressed as they are loaded.
+     * <p>
+     * When enabled, each Theorem keeps its compressed proof (the letters as
+     * bytes plus the referenced statements) and decompresses it on the first
+     * call to {@code getProof()}.
+     */
+    public static final boolean LAZY_PROOF_DECOMPRESSION_DEFAULT = false;
+
+    /**
+     * Default number of decompressed proofs held by the ProofCache when proofs
+     * are decompressed lazily.
+     * <p>
+     * Zero means no cache: a Theorem keeps its proof once decompressed.
+     * Otherwise, only the most recently used proofs are kept, and other
+     * proofs are decompressed again when needed.
+     */
+    public static final int PROOF_CACHE_SIZE_DEFAULT = 0;
+
+    /**
+     * Minimum number of DjVars in a ScopeFrame for
+     * {@code ScopeFrame.isVarPairInDjArray} to look them up in a hash index
+     * rather than scanning the array.
+     */
+    public static final int DJ_VARS_INDEX_MIN_SIZE = 8;
+
     // ====================================================
 
     /**
@@ -600,6 +627,9 @@ public class LangConstants {
             + " Manual restart of mmj2 required."
             + " Explanation message identifying failure follows:\n%s");
 
+    public static final ErrorCode ERRMSG_PROOF_CACHE_SIZE_NEGATIVE = of(
+        "E-LA-0045 ProofCacheSize must not be negative: %d");
+
     // =======================================================
 
     /**
@@ -55,6 +55,7 @@ import java.util.*;
 import mmj.gmff.GMFFManager;
 import mmj.mmio.BlockList;
 import mmj.mmio.SourcePosition;
+import mmj.mmio.TokenInterner;
 import mmj.pa.MMJException;
 import mmj.tl.*;
 import mmj.verify.VerifyException;
@@ -100,6 +101,8 @@ public class LogicalSystem implements SystemLoader {
     private ProofVerifier proofVerifier;
     private SyntaxVerifier syntaxVerifier;
     private ProofCompression proofCompression;
+    private ProofCache proofCache;
+    private ReferenceIndex referenceIndex;
 
     // Sym table (was sorted, asc order by Sym.id, but HashMap is
     // faster...)
@@ -108,6 +111,10 @@ public class LogicalSystem implements SystemLoader {
     // stmtTbl (was asc order by Stmt.label, but HashMap is
     // faster...)
     private final Map<String, Stmt> stmtTbl;
+
+    // canonical Strings for labels and math symbols, the keys
+    // of symTbl and stmtTbl
+    private final TokenInterner tokenInterner;
     
 	private ArrayList<Theorem> incompleteTheorems;
 
@@ -172,6 +179,8 @@ public class LogicalSystem implements SystemLoader {
 
         symTbl = new HashMap<>(symTblInitialSize);
         stmtTbl = new HashMap<>(stmtTblInitialSize);
+        tokenInterner = new TokenInterner(
+            symTblInitialSize + stmtTblInitialSize);
 
         this.syntaxVerifier = syntaxVerifier;
         this.proofVerifier = proofVerifier;
@@ -211,8 +220,10 @@ public class LogicalSystem implements SystemLoader {
             throw new LangException(
                 LangConstants.ERRMSG_MUST_DEF_CNST_AT_GLOBAL_LVL);
 
-        final Cnst c = new Cnst(seqAssigner.nextSeq(), symTbl, stmtTbl, id);
-        final Sym existingSym = symTbl.put(id, c);
+        // symTbl keys must be canonical, see getTokenInterner()
+        final String cid = tokenInterner.intern(id);
+        final Cnst c = new Cnst(seqAssigner.nextSeq(), symTbl, stmtTbl, cid);
+        final Sym existingSym = symTbl.put(cid, c);
 
         dupCheckSymAdd(existingSym);
 
@@ -245,7 +256,7 @@ public class LogicalSystem implements SystemLoader {
     public Var addVar(final String id) throws LangException {
 
         final Var v = Var.declareVar(seqAssigner.nextSeq(), symTbl, stmtTbl,
-            id);
+            tokenInterner.intern(id));
         currScopeDef.scopeVar.add(v);
 
         bookManager.assignChapterSectionNbrs(v);
@@ -304,6 +315,8 @@ public class LogicalSystem implements SystemLoader {
 
         bookManager.assignChapterSectionNbrs(vH);
 
+        indexReferences(vH);
+
         return vH;
     }
 
@@ -399,6 +412,8 @@ public class LogicalSystem implements SystemLoader {
 
         bookManager.assignChapterSectionNbrs(logHyp);
 
+        indexReferences(logHyp);
+
         return logHyp;
 
     }
@@ -472,6 +487,8 @@ public class LogicalSystem implements SystemLoader {
 
         bookManager.assignChapterSectionNbrs(axiom);
 
+        indexReferences(axiom);
+
         return axiom;
     }
 
@@ -532,6 +549,8 @@ public class LogicalSystem implements SystemLoader {
 
         bookManager.assignChapterSectionNbrs(theorem);
 
+        indexReferences(theorem);
+
         return theorem;
     }
 
@@ -598,7 +617,8 @@ public class LogicalSystem implements SystemLoader {
 
         final Theorem theorem = new Theorem(seqAssigner.nextSeq(), scopeDefList,
             symTbl, stmtTbl, labelS, column, typS, symList, proofList,
-            proofBlockList, getProofCompression(), position, messageHandler);
+            proofBlockList, getProofCompression(), proofCache, position,
+            messageHandler);
 
         final Stmt existingStmt = stmtTbl.put(labelS, theorem);
 
@@ -606,6 +626,8 @@ public class LogicalSystem implements SystemLoader {
 
         bookManager.assignChapterSectionNbrs(theorem);
 
+        indexReferences(theorem);
+
         return theorem;
     }
 
@@ -838,6 +860,20 @@ public class LogicalSystem implements SystemLoader {
         return symTbl;
     }
 
+    /**
+     * Returns the table of canonical label and math symbol Strings.
+     * <p>
+     * Looking up a token in this table first avoids creating a String just
+     * to query symTbl or stmtTbl: if the token is not found, it is neither a
+     * symbol nor a label of this system.
+     *
+     * @return tokenInterner the TokenInterner shared with the loader.
+     */
+    @Override
+    public TokenInterner getTokenInterner() {
+        return tokenInterner;
+    }
+
     /**
      * Returns the current stmtTbl, a Map containing all {@code Hyp}s and
      * {@code Assrt}s.
@@ -866,6 +902,56 @@ public class LogicalSystem implements SystemLoader {
         return proofCompression;
     }
 
+    /**
+     * Selects whether compressed proofs are decompressed as they are loaded,
+     * or kept compressed and decompressed on first access.
+     * <p>
+     * This applies to the theorems loaded afterwards.
+     *
+     * @param lazyProofDecompression true to decompress proofs on demand.
+     * @param proofCacheSize when proofs are decompressed on demand, the number
+     *            of decompressed proofs kept in the ProofCache; zero to let
+     *            each Theorem keep its proof once decompressed.
+     * @see LangConstants#LAZY_PROOF_DECOMPRESSION_DEFAULT
+     * @see LangConstants#PROOF_CACHE_SIZE_DEFAULT
+     */
+    public void setLazyProofDecompression(final boolean lazyProofDecompression,
+        final int proofCacheSize)
+    {
+        proofCache = lazyProofDecompression ? new ProofCache(proofCacheSize)
+            : null;
+    }
+
+    /**
+     * Returns the cache of decompressed proofs.
+     *
+     * @return the ProofCache, or null if proofs are decompressed when loaded.
+     */
+    public ProofCache getProofCache() {
+        return proofCache;
+    }
+
+    /**
+     * Returns the reverse-dependency index of this LogicalSystem, building it
+     * on the first call.
+     * <p>
+     * The index is then kept up to date as statements are loaded and rolled
+     * back. Theorem Loader updates discard it, and it is rebuilt on the next
+     * call.
+     *
+     * @return the ReferenceIndex.
+     */
+    public ReferenceIndex getReferenceIndex() {
+        if (referenceIndex == null)
+            referenceIndex = new ReferenceIndex(stmtTbl.values());
+        return referenceIndex;
+    }
+
+    private void indexReferences(final Stmt stmt) {
+        if (referenceIndex != null)
+            referenceIndex.add(stmt);
+    }
+
     /**
      *  Returns the list of all incomplete theorems, 
      *  i.e. containing an unknown proof step '?'
@@ -1044,6 +1130,7 @@ public class LogicalSystem implements SystemLoader {
 
             for (final TheoremStmtGroup g : mmtTheoremSet)
                 g.reverseStmtTblUpdates(stmtTbl);
+            referenceIndex = null;
             throw new TheoremLoaderException(error, TlConstants.ERRMSG_ROLLBACK,
                 error.getMessage());
         } catch (final IllegalArgumentException | LangException e) {
@@ -1079,6 +1166,8 @@ public class LogicalSystem implements SystemLoader {
             if (bookManager != null)
                 bookManager.commit(mmtTheoremSet);
 
+            referenceIndex = null;
+
             for (final TheoremLoaderCommitListener l : theoremLoaderCommitListeners)
                 l.commit(mmtTheoremSet);
         } catch (final Exception e) {
@@ -1088,6 +1177,110 @@ public class LogicalSystem implements SystemLoader {
         }
     }
 
+    /**
+     * Records the current loading state of the Logical System.
+     * <p>
+     * The mark captures the global scope level lists, the SeqAssigner,
+     * BookManager and GMFF typesetting comment cache state, so that
+     * {@code rollback()} can discard everything loaded afterwards.
+     *
+     * @return the load mark.
+     */
+    @Override
+    public SystemLoader.Mark mark() {
+        return new LoadMark();
+    }
+
+    /**
+     * Discards every Sym and Stmt loaded after the given mark.
+     * <p>
+     * Processing:
+     * <ol>
+     * <li>drop any nested scope level and truncate the global one to its
+     * marked size
+     * <li>remove from symTbl and stmtTbl every MObj whose seq is greater than
+     * the mark's last seq
+     * <li>recompute the "active" flags: at a global level mark only the global
+     * Vars and Hyps are active
+     * <li>roll back the SeqAssigner, BookManager and GMFF typesetting comment
+     * cache, and the ReferenceIndex.
+     * </ol>
+     *
+     * @param mark a load mark obtained from {@code mark()}.
+     */
+    @Override
+    public void rollback(final SystemLoader.Mark mark) {
+        final LoadMark m = (LoadMark)mark;
+        final int lastSeq = m.lastSeq;
+
+        while (scopeDefList.size() > 1)
+            scopeDefList.remove(scopeDefList.size() - 1);
+        scopeLvl = 0;
+        currScopeDef = scopeDefList.get(0);
+        truncate(currScopeDef.scopeVar, m.nbrScopeVar);
+        truncate(currScopeDef.scopeVarHyp, m.nbrScopeVarHyp);
+        truncate(currScopeDef.scopeLogHyp, m.nbrScopeLogHyp);
+        truncate(currScopeDef.scopeDjVars, m.nbrScopeDjVars);
+
+        symTbl.values().removeIf(sym -> sym.getSeq() > lastSeq);
+        stmtTbl.values().removeIf(stmt -> stmt.getSeq() > lastSeq);
+        incompleteTheorems.removeIf(theorem -> theorem.getSeq() > lastSeq);
+        if (referenceIndex != null)
+            referenceIndex.rollback(lastSeq);
+
+        final Set<MObj> active = Collections
+            .newSetFromMap(new IdentityHashMap<>());
+        active.addAll(currScopeDef.scopeVar);
+        active.addAll(currScopeDef.scopeVarHyp);
+        active.addAll(currScopeDef.scopeLogHyp);
+        for (final Sym sym : symTbl.values())
+            if (sym instanceof Var) {
+                ((Var)sym).setActive(active.contains(sym));
+                ((Var)sym).setActiveVarHyp(null);
+            }
+            else
+                ((Cnst)sym).setVarTyp(false);
+        for (final Stmt stmt : stmtTbl.values())
+            if (stmt instanceof Hyp) {
+                ((Hyp)stmt).setActive(active.contains(stmt));
+                if (stmt instanceof VarHyp)
+                    stmt.getTyp().setVarTyp(true);
+            }
+        for (final VarHyp vH : currScopeDef.scopeVarHyp)
+            vH.getVar().setActiveVarHyp(vH);
+
+        seqAssigner.rollbackTo(lastSeq, m.mObjCount);
+        bookManager.rollback(m.bookMark);
+        gmffManager.truncateTypesetDefinitionsCache(m.nbrTypesetComments);
+        setProofCompression(null);
+        if (proofCache != null)
+            proofCache.clear();
+    }
+
+    private static void truncate(final List<?> list, final int size) {
+        list.subList(size, list.size()).clear();
+    }
+
+    /**
+     * Loading state of the LogicalSystem, see {@code LogicalSystem.mark()}.
+     */
+    private class LoadMark implements SystemLoader.Mark {
+        private final int lastSeq = seqAssigner.getLastSeq();
+        private final int mObjCount = seqAssigner.getMObjCount();
+        private final int nbrScopeVar = currScopeDef.scopeVar.size();
+        private final int nbrScopeVarHyp = currScopeDef.scopeVarHyp.size();
+        private final int nbrScopeLogHyp = currScopeDef.scopeLogHyp.size();
+        private final int nbrScopeDjVars = currScopeDef.scopeDjVars.size();
+        private final int nbrTypesetComments = gmffManager
+            .getTypesetDefinitionsCacheSize();
+        private final BookManager.Mark bookMark = bookManager.mark();
+
+        @Override
+        public int getLastSeq() {
+            return lastSeq;
+        }
+    }
+
     private void dupCheckSymAdd(final Sym existingSym) {
 
         if (existingSym != null)
@@ -1107,6 +1300,9 @@ public class LogicalSystem implements SystemLoader {
     public void clear() {
         symTbl.clear();
         stmtTbl.clear();
+        if (proofCache != null)
+            proofCache.clear();
+        referenceIndex = null;
         
         //init stack of scope levels
         scopeDefList.clear();
@@ -247,7 +247,10 @@ public class ParseNode {
             if (myNode.stmt != thatNode.stmt) {
                 if (!(myNode.stmt instanceof VarHyp)
                     || myNode.stmt.getTyp() != thatNode.stmt.getTyp())
+                {
+                    nodeStack.clear();
                     return -1;
+                }
             }
             else if (!(myNode.stmt instanceof VarHyp)) {
                 for (int i = myNode.child.length - 1; i >= 0; i--) {
@@ -258,8 +261,12 @@ public class ParseNode {
             }
             for (int i = 0; i < count; i++)
                 if (subtree[i].targetVarHyp == myNode.stmt) {
-                    if (!subtree[i].sourceNode.isDeepDup(thatNode, otherStack))
+                    if (!subtree[i].sourceNode.isDeepDup(thatNode,
+                        otherStack))
+                    {
+                        nodeStack.clear();
                         return -1;
+                    }
                     continue stackLoop;
                 }
             subtree[count].targetVarHyp = (VarHyp)myNode.stmt;
@@ -338,9 +345,11 @@ public class ParseNode {
     }
 
     /**
-     * Calculates the hash code based on children deep hash code. This
-     * implementation may be inefficient so in case of performance problems the
-     * function should be fixed.
+     * Calculates the hash code based on children deep hash code. The order of
+     * the children is taken into account, so that for instance "( A + B )" and
+     * "( B + A )" usually have different hash codes. This implementation may
+     * be inefficient so in case of performance problems the function should
+     * be fixed.
      *
      * @return true the hash code
      */
@@ -349,8 +358,7 @@ public class ParseNode {
             return 0;
         int hash = stmt.hashCode();
         for (final ParseNode x : child)
-            if (x != null)
-                hash ^= x.deepHashCode();
+            hash = 31 * hash + (x == null ? 0 : x.deepHashCode());
         return hash;
     }
 
@@ -0,0 +1,109 @@
+package mmj.lang;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import mmj.lang.ParseTree.RPNStep;
+
+/**
+ * Bounded cache of the proofs decompressed from {@link CompressedProof}s.
+ * <p>
+ * The least recently used proofs are dropped once the maximum size is
+ * reached. With a maximum size of zero nothing is cached: each Theorem then
+ * keeps its proof once decompressed.
+ * <p>
+ * Entries are keyed by the CompressedProof object itself, so that theorems
+ * reloaded with the same label never see a stale proof.
+ */
+public class ProofCache {
+    private final int maxSize;
+    private final Map<CompressedProof, RPNStep[]> proofs;
+    private int hits;
+    private int misses;
+
+    /**
+     * Construct a ProofCache.
+     *
+     * @param maxSize maximum number of decompressed proofs kept, or zero.
+     */
+    public ProofCache(final int maxSize) {
+        if (maxSize < 0)
+            throw new IllegalArgumentException(new LangException(
+                LangConstants.ERRMSG_PROOF_CACHE_SIZE_NEGATIVE, maxSize));
+        this.maxSize = maxSize;
+        proofs = new LinkedHashMap<CompressedProof, RPNStep[]>(16, 0.75f,
+            true)
+        {
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<CompressedProof, RPNStep[]> eldest)
+            {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns true if decompressed proofs are kept in this cache rather than
+     * in their Theorem.
+     *
+     * @return true if this cache is bounded.
+     */
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Returns the decompressed proof, decompressing it if it is not in the
+     * cache.
+     *
+     * @param theorem the Theorem owning the compressed proof.
+     * @param compressedProof the compressed proof.
+     * @return the RPN proof.
+     */
+    public RPNStep[] get(final Theorem theorem,
+        final CompressedProof compressedProof)
+    {
+        RPNStep[] proof;
+        synchronized (this) {
+            proof = proofs.get(compressedProof);
+            if (proof != null) {
+                hits++;
+                return proof;
+            }
+            misses++;
+        }
+        proof = compressedProof.decompress(theorem.getLabel(),
+            theorem.getMandFrame().hypArray);
+        if (isEnabled())
+            synchronized (this) {
+                proofs.put(compressedProof, proof);
+            }
+        return proof;
+    }
+
+    /**
+     * Drops the proof of a Theorem, when it is replaced.
+     *
+     * @param compressedProof the previous compressed proof.
+     */
+    public synchronized void remove(final CompressedProof compressedProof) {
+        proofs.remove(compressedProof);
+    }
+
+    /** Drops all proofs. */
+    public synchronized void clear() {
+        proofs.clear();
+    }
+
+    /**
+     * Returns the cache statistics, for reporting.
+     *
+     * @return a description of the cache usage.
+     */
+    @Override
+    public synchronized String toString() {
+        return "ProofCache[size=" + proofs.size() + "/" + maxSize + ", hits="
+            + hits + ", misses=" + misses + "]";
+    }
+}
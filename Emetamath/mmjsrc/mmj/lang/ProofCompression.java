@@ -55,6 +55,14 @@ public class ProofCompression {
      */
     private List<RPNStep> step;
 
+    /*
+     * Work tables of knapsackFit, kept between calls: the best total value for
+     * each size, and for each item and size whether the item improved it.
+     */
+    private int[] knapsackWorth = new int[0];
+    private long[] knapsackTaken = new long[0];
+    private int[] knapsackChosen = new int[0];
+
     /** Messages object for error reporting */
     private MessageHandler messageHandler;
 
@@ -108,11 +116,64 @@ public class ProofCompression {
 
         loadOtherRefArrays(stmtTbl, otherRefList, seq, position);
 
-        loadSteps(proofBlockList);
+        loadSteps(theoremLabel, mandHyp, otherStmt, proofBlockList, step);
 
         return constructProofArray();
     }
 
+    /**
+     * Validates a single compressed proof without decompressing it.
+     * <p>
+     * The checks and error messages are the same as for
+     * {@link #decompress}, but instead of the RPN proof, the compressed proof
+     * is returned, to be decompressed on demand.
+     *
+     * @param theoremLabel Theorem's label, used in error messages that may be
+     *            generated during processing.
+     * @param seq the sequence number of the theorem
+     * @param stmtTbl Stmt lookup map for translating labels into Stmt object
+     *            references.
+     * @param mandHypArray The theorem's MandFrame.hypArray.
+     * @param optHypArray The theorem's OptFrame.optHypArray.
+     * @param otherRefList List of String containing labels of Stmt's provided
+     *            in the parenthesized portion of a compressed proof.
+     * @param proofBlockList List of String containing the compressed portion of
+     *            the proof.
+     * @param position the source position of this compressed proof, 
+     *            to highlight errors back to the user
+     * @param proofCache the cache through which the proof will be
+     *            decompressed.
+     * @param messageHandler for error reporting
+     * @return the validated CompressedProof.
+     * @throws LangException if an error occurred
+     */
+    public CompressedProof validate(final String theoremLabel, final int seq,
+        final Map<String, Stmt> stmtTbl, final Hyp[] mandHypArray,
+        final Hyp[] optHypArray, final List<String> otherRefList,
+        final BlockList proofBlockList, final SourcePosition position,
+        final ProofCache proofCache, final MessageHandler messageHandler)
+            throws LangException
+    {
+        this.theoremLabel = theoremLabel; // for error msgs
+
+        if (!usedYet) {
+            initArrays();
+            usedYet = true;
+        }
+
+        mandHyp = mandHypArray;
+        optHyp = optHypArray;
+        this.messageHandler = messageHandler;
+
+        loadOtherRefArrays(stmtTbl, otherRefList, seq, position);
+
+        loadSteps(theoremLabel, mandHyp, otherStmt, proofBlockList, null);
+
+        return new CompressedProof(
+            otherStmt.toArray(new Stmt[otherStmt.size()]),
+            proofBlockList.toBytes(), proofCache);
+    }
+
     private void loadOtherRefArrays(final Map<String, Stmt> stmtTbl,
         final List<String> otherRefList, final int seq, final SourcePosition position) throws LangException
     {
@@ -185,8 +246,26 @@ public class ProofCompression {
             || isProofStepInFrame(proofStep, optHyp);
     }
 
-    private void loadSteps(final BlockList blockList) throws LangException {
-        step.clear();
+    /**
+     * Decodes the compressed proof letters into RPN steps.
+     * <p>
+     * This does not use any work item of the ProofCompression instance, so it
+     * may be used concurrently, see {@link CompressedProof}.
+     *
+     * @param theoremLabel Theorem's label, used in error messages.
+     * @param mandHyp The theorem's MandFrame.hypArray.
+     * @param otherStmt the Stmts of the parenthesized portion of the proof.
+     * @param blockList the compressed portion of the proof.
+     * @param step the output list of RPN steps, or null to only validate the
+     *            proof.
+     * @throws LangException if an error occurred
+     */
+    static void loadSteps(final String theoremLabel, final Hyp[] mandHyp,
+        final List<Stmt> otherStmt, final BlockList blockList,
+        final List<RPNStep> step) throws LangException
+    {
+        if (step != null)
+            step.clear();
 
         int backrefs = 0;
         while (true) {
@@ -211,10 +290,14 @@ public class ProofCompression {
             if (decompressNbr < 0)
                 break; // run out of chars
             else if (decompressNbr == 0) { // unknown (?) step
-                final RPNStep s = new RPNStep(null);
                 if (blockList.marked)
-                    s.backRef = -++backrefs;
-                step.add(s);
+                    ++backrefs;
+                if (step != null) {
+                    final RPNStep s = new RPNStep(null);
+                    if (blockList.marked)
+                        s.backRef = -backrefs;
+                    step.add(s);
+                }
                 continue;
             }
 
@@ -223,10 +306,14 @@ public class ProofCompression {
             // ok, do we have a mandHyp array entry?
             // if so, just put it in the proof step array!
             if (decompressNbr < mandHyp.length) {
-                final RPNStep s = new RPNStep(mandHyp[decompressNbr]);
                 if (blockList.marked)
-                    s.backRef = -++backrefs;
-                step.add(s);
+                    ++backrefs;
+                if (step != null) {
+                    final RPNStep s = new RPNStep(mandHyp[decompressNbr]);
+                    if (blockList.marked)
+                        s.backRef = -backrefs;
+                    step.add(s);
+                }
                 continue;
             }
 
@@ -238,10 +325,14 @@ public class ProofCompression {
             // this time we need to compute subproofLength!
             // an Assrt has Hyps in its subproof tree/stack.
             if (decompressNbr < otherStmt.size()) {
-                final RPNStep s = new RPNStep(otherStmt.get(decompressNbr));
                 if (blockList.marked)
-                    s.backRef = -++backrefs;
-                step.add(s);
+                    ++backrefs;
+                if (step != null) {
+                    final RPNStep s = new RPNStep(otherStmt.get(decompressNbr));
+                    if (blockList.marked)
+                        s.backRef = -backrefs;
+                    step.add(s);
+                }
                 continue;
             }
 
@@ -251,11 +342,14 @@ public class ProofCompression {
                 throw new LangException(LangConstants.ERRMSG_COMPRESS_BAD_RPT3,
                     theoremLabel, blockList.getIndex(), decompressNbr).setPosition(blockList.getIndexPosition());
 
-            final RPNStep s = new RPNStep(null);
-            s.backRef = decompressNbr + 1;
-            step.add(s);
+            if (step != null) {
+                final RPNStep s = new RPNStep(null);
+                s.backRef = decompressNbr + 1;
+                step.add(s);
+            }
         }
     }
+
     private RPNStep[] constructProofArray() {
         return step.toArray(new RPNStep[step.size()]);
     }
@@ -265,142 +359,242 @@ public class ProofCompression {
         step = new ArrayList<>(LangConstants.COMPRESS_STEP_INIT_LEN);
     }
 
+    /**
+     * Compresses a proof.
+     * <p>
+     * The statements referenced by the proof, other than the mandatory
+     * hypotheses, are listed in the parenthesized portion by decreasing number
+     * of references, so that the most used ones get the shortest letters, and
+     * within each range of letters of the same length in the order which packs
+     * their labels best into lines of the given width.
+     * <p>
+     * All lookups are done through hash tables and the letters are appended
+     * directly, so compression time is linear in the size of the proof, apart
+     * from the packing of the parenthesized labels into lines.
+     *
+     * @param theoremLabel label of the theorem, for error messages.
+     * @param width the width of the proof lines.
+     * @param mandHypArray the mandatory hypotheses of the theorem.
+     * @param optHypArray the optional hypotheses of the theorem.
+     * @param rpnProof the proof to compress.
+     * @param letters the letters of the compressed proof are appended to this.
+     * @return the statements of the parenthesized portion of the proof.
+     */
     public List<Stmt> compress(final String theoremLabel, final int width,
         final List<Hyp> mandHypArray, final List<VarHyp> optHypArray,
         final RPNStep[] rpnProof, final StringBuilder letters)
     {
         this.theoremLabel = theoremLabel;
-        final List<Stmt> parenStmt = new ArrayList<>();
-        int linePos = 2;
+        final Map<Stmt, Integer> letterIndex = new IdentityHashMap<>(
+            2 * (mandHypArray.size() + rpnProof.length / 4 + 1));
+        for (int i = 0; i < mandHypArray.size(); i++)
+            letterIndex.putIfAbsent(mandHypArray.get(i), i + 1);
+
+        // the referenced statements, in proof order, with their references
+        final Map<Stmt, Integer> ordIndex = new IdentityHashMap<>();
         final List<Stmt> proofOrdered = new ArrayList<>();
-        final List<Integer> proofOrdBackrefs = new ArrayList<>();
+        int[] refs = new int[16];
         for (final RPNStep s : rpnProof)
             if (s != null && s.backRef <= 0 && s.stmt != null
-                && !mandHypArray.contains(s.stmt)
-                && !parenStmt.contains(s.stmt))
+                && !letterIndex.containsKey(s.stmt))
             {
-                final int i = proofOrdered.indexOf(s.stmt);
-                if (i >= 0)
-                    proofOrdBackrefs.set(i, proofOrdBackrefs.get(i) + 1);
+                final Integer i = ordIndex.get(s.stmt);
+                if (i != null)
+                    refs[i]++;
                 else {
+                    final int n = proofOrdered.size();
+                    ordIndex.put(s.stmt, n);
                     proofOrdered.add(s.stmt);
-                    proofOrdBackrefs.add(1);
+                    if (n == refs.length)
+                        refs = Arrays.copyOf(refs, 2 * n);
+                    refs[n] = 1;
                 }
             }
-        int hyps = 0;
-        for (int i = 0; i < proofOrdered.size(); i++)
-            if (proofOrdered.get(i) instanceof Hyp) {
-                proofOrdered.add(hyps, proofOrdered.remove(i));
-                proofOrdBackrefs.add(hyps++, proofOrdBackrefs.remove(i));
-            }
-        final int[] values = new int[proofOrdered.size()];
-        for (int i = 0; i < values.length; i++)
-            values[i] = proofOrdered.get(i).getLabel().length() + 1;
-        final PriorityQueue<Integer> sortedByBackrefs = new PriorityQueue<>(
-            proofOrdered.size(), new Comparator<Integer>()
-        {
-                public int compare(final Integer a, final Integer b) {
-                    final int i = proofOrdBackrefs.get(b)
-                        - proofOrdBackrefs.get(a);
-                    return i == 0 ? a - b : i;
+
+        // hypotheses first, otherwise keeping proof order
+        final int count = proofOrdered.size();
+        final Stmt[] ordered = new Stmt[count];
+        final int[] backrefs = new int[count];
+        int k = 0;
+        for (int pass = 0; pass < 2; pass++)
+            for (int i = 0; i < count; i++)
+                if (proofOrdered.get(i) instanceof Hyp == (pass == 0)) {
+                    ordered[k] = proofOrdered.get(i);
+                    backrefs[k++] = refs[i];
                 }
-            });
-        for (int i = 0; i < proofOrdered.size(); i++)
-            sortedByBackrefs.add(i);
-        int i = mandHypArray.size() + parenStmt.size();
+        final int[] values = new int[count];
+        for (int i = 0; i < count; i++)
+            values[i] = ordered[i].getLabel().length() + 1;
+        final Integer[] sortedByBackrefs = new Integer[count];
+        for (int i = 0; i < count; i++)
+            sortedByBackrefs[i] = i;
+        Arrays.sort(sortedByBackrefs, new Comparator<Integer>() {
+            public int compare(final Integer a, final Integer b) {
+                final int i = backrefs[b] - backrefs[a];
+                return i == 0 ? a - b : i;
+            }
+        });
+
+        final List<Stmt> parenStmt = new ArrayList<>(count);
+        int linePos = 2;
+        int i = mandHypArray.size();
         int cutoff = LangConstants.COMPRESS_LOW_BASE;
         while (cutoff <= i) {
             i -= cutoff;
             cutoff *= LangConstants.COMPRESS_HIGH_BASE;
         }
-        Integer pos;
-        final List<Integer> lengthBlock = new LinkedList<>();
-        while ((pos = sortedByBackrefs.poll()) != null) {
+        final int[] lengthBlock = new int[count];
+        int blockSize = 0;
+        for (final int pos : sortedByBackrefs) {
             if (i++ == cutoff) {
                 i = 1;
                 cutoff *= LangConstants.COMPRESS_HIGH_BASE;
-                linePos = processBlock(parenStmt, proofOrdered, values,
-                    lengthBlock, width, linePos);
+                linePos = processBlock(parenStmt, ordered, values,
+                    lengthBlock, blockSize, width, linePos);
+                blockSize = 0;
             }
-            lengthBlock.add(pos);
+            lengthBlock[blockSize++] = pos;
         }
-        processBlock(parenStmt, proofOrdered, values, lengthBlock, width,
-            linePos);
+        processBlock(parenStmt, ordered, values, lengthBlock, blockSize,
+            width, linePos);
+
+        final int nbrHyps = mandHypArray.size();
+        for (int j = 0; j < parenStmt.size(); j++)
+            letterIndex.putIfAbsent(parenStmt.get(j), nbrHyps + j + 1);
+        final char[] code = new char[32];
         for (final RPNStep s : rpnProof) {
             if (s == null) {
                 letters.append((char)LangConstants.COMPRESS_UNKNOWN_CHAR);
                 continue;
             }
-            int letter = 0;
+            int letter;
             if (s.backRef > 0)
-                letter = mandHypArray.size() + parenStmt.size() + s.backRef;
+                letter = nbrHyps + parenStmt.size() + s.backRef;
             else {
-                int index = mandHypArray.indexOf(s.stmt);
-                if (index != -1)
-                    letter = index + 1;
-                else {
-                    index = parenStmt.indexOf(s.stmt);
-                    if (index == -1)
-                        throw new RuntimeException("shouldn't happen");
-                    letter = mandHypArray.size() + index + 1;
-                }
+                final Integer index = letterIndex.get(s.stmt);
+                if (index == null)
+                    throw new RuntimeException("shouldn't happen");
+                letter = index;
             }
-            String code = ""
-                + (char)LangConstants.COMPRESS_LOW_DIGIT_CHARS[(letter - 1)
-                    % LangConstants.COMPRESS_LOW_BASE];
+            int c = code.length;
+            code[--c] = (char)LangConstants.COMPRESS_LOW_DIGIT_CHARS[(letter
+                - 1) % LangConstants.COMPRESS_LOW_BASE];
             letter = (letter - 1) / LangConstants.COMPRESS_LOW_BASE;
             while (letter > 0) {
-                code = (char)LangConstants.COMPRESS_HIGH_DIGIT_CHARS[(letter
-                    - 1) % LangConstants.COMPRESS_HIGH_BASE] + code;
+                code[--c] = (char)LangConstants.COMPRESS_HIGH_DIGIT_CHARS[(letter
+                    - 1) % LangConstants.COMPRESS_HIGH_BASE];
                 letter = (letter - 1) / LangConstants.COMPRESS_HIGH_BASE;
             }
+            letters.append(code, c, code.length - c);
             if (s.backRef < 0)
-                code += (char)LangConstants.COMPRESS_REPEAT_CHAR;
-            letters.append(code);
+                letters.append((char)LangConstants.COMPRESS_REPEAT_CHAR);
         }
         return parenStmt;
     }
 
-    private int processBlock(final List<Stmt> parenStmt,
-        final List<Stmt> proofOrdered, final int[] values,
-        final List<Integer> list, final int width, int linePos)
+    /**
+     * Adds the statements of a block, whose letters have the same length, to
+     * the parenthesized portion of the proof, filling each line with the
+     * labels which fit best, in proof order.
+     *
+     * @param parenStmt the parenthesized portion of the proof.
+     * @param ordered the statements referenced by the proof.
+     * @param values the label lengths of the statements, plus one.
+     * @param block the indexes in ordered of the statements of the block.
+     * @param blockSize the number of statements in the block.
+     * @param width the width of the proof lines.
+     * @param linePos the position in the current line.
+     * @return the position in the current line.
+     */
+    private int processBlock(final List<Stmt> parenStmt, final Stmt[] ordered,
+        final int[] values, final int[] block, int blockSize, final int width,
+        int linePos)
     {
-        Collections.sort(list); // restart with proof order
-        while (!list.isEmpty()) {
-            boolean noSpace = true;
-            for (final Integer p : knapsackFit(list, values, width - linePos)) {
-                noSpace = false;
-                final Stmt s = proofOrdered.get(p);
-                final int l = s.getLabel().length() + 1;
-                linePos += l;
-                list.remove(p);
-                parenStmt.add(s);
+        Arrays.sort(block, 0, blockSize); // restart with proof order
+        while (blockSize > 0) {
+            final int fit = knapsackFit(block, blockSize, values,
+                width - linePos);
+            for (int j = 0; j < fit; j++) {
+                final int p = block[knapsackChosen[j]];
+                linePos += values[p];
+                parenStmt.add(ordered[p]);
+                block[knapsackChosen[j]] = -1;
             }
-            if (noSpace || linePos >= width - 1)
+            int n = 0;
+            for (int j = 0; j < blockSize; j++)
+                if (block[j] != -1)
+                    block[n++] = block[j];
+            blockSize = n;
+            if (fit == 0 || linePos >= width - 1)
                 linePos = 0;
         }
         return linePos;
     }
 
-    private Deque<Integer> knapsackFit(final List<Integer> items,
+    /**
+     * Solves the 0/1 knapsack problem of filling a line with labels.
+     * <p>
+     * This is the classic dynamic programming algorithm, over a single row of
+     * best values updated in place and a bit table of the choices made, from
+     * which the solution is read back starting with the last item.
+     *
+     * @param items the indexes of the labels.
+     * @param count the number of items.
+     * @param values the label lengths of the statements, plus one.
+     * @param size the space left in the line.
+     * @return the number of items which fit, whose positions in items are
+     *         stored in ascending order at the start of knapsackChosen.
+     */
+    private int knapsackFit(final int[] items, final int count,
         final int[] values, final int size)
     {
-        final int[][] worth = new int[items.size() + 1][size + 1];
-        for (int i = 0; i < items.size(); i++) {
-            final int value = values[items.get(i)];
-            for (int s = 0; s <= size; s++)
-                worth[i + 1][s] = s >= value
-                    ? Math.max(worth[i][s], value + worth[i][s - value])
-                    : worth[i][s];
+        if (knapsackChosen.length < count)
+            knapsackChosen = new int[Math.max(count,
+                2 * knapsackChosen.length)];
+        int total = 0;
+        for (int i = 0; i < count && total <= size; i++)
+            total += values[items[i]];
+        if (total <= size) {
+            for (int i = 0; i < count; i++)
+                knapsackChosen[i] = i;
+            return count;
+        }
+
+        if (knapsackWorth.length < size + 1)
+            knapsackWorth = new int[size + 1];
+        final int[] worth = knapsackWorth;
+        Arrays.fill(worth, 0, size + 1, 0);
+        final int words = (size >> 6) + 1;
+        if (knapsackTaken.length < count * words)
+            knapsackTaken = new long[Math.max(count * words,
+                2 * knapsackTaken.length)];
+        final long[] taken = knapsackTaken;
+        Arrays.fill(taken, 0, count * words, 0);
+        for (int i = 0; i < count; i++) {
+            final int value = values[items[i]];
+            final int row = i * words;
+            for (int s = size; s >= value; s--) {
+                final int w = value + worth[s - value];
+                if (w > worth[s]) {
+                    worth[s] = w;
+                    taken[row + (s >> 6)] |= 1L << s;
+                }
+            }
         }
-        final Deque<Integer> included = new ArrayDeque<>();
+
+        int n = 0;
         int s = size;
-        for (int i = items.size() - 1; i >= 0; i--)
-            if (worth[i + 1][s] != worth[i][s]) {
-                included.push(items.get(i));
-                if ((s -= values[items.get(i)]) == 0)
+        for (int i = count - 1; i >= 0; i--)
+            if ((taken[i * words + (s >> 6)] & 1L << s) != 0) {
+                knapsackChosen[n++] = i;
+                if ((s -= values[items[i]]) == 0)
                     break;
             }
-        return included;
+        for (int i = 0, j = n - 1; i < j; i++, j--) {
+            final int t = knapsackChosen[i];
+            knapsackChosen[i] = knapsackChosen[j];
+            knapsackChosen[j] = t;
+        }
+        return n;
     }
 }
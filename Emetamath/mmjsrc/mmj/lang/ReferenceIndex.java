@@ -0,0 +1,173 @@
+package mmj.lang;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import mmj.lang.ParseTree.RPNStep;
+
+/**
+ * Reverse-dependency index of a LogicalSystem: for each Stmt, the Theorems
+ * whose proofs reference it, and for each Sym, the Stmts whose formulas use
+ * it.
+ * <p>
+ * The index is built by {@link LogicalSystem#getReferenceIndex()} and then
+ * kept up to date by the LogicalSystem as statements are added or rolled
+ * back.
+ * <p>
+ * A proof held in compressed form (see
+ * {@link LogicalSystem#setLazyProofDecompression}) is not decompressed to be
+ * indexed: its Theorem is recorded as referencing all of its mandatory
+ * hypotheses and all the statements listed in the parenthesized portion of
+ * the proof. The Theorems returned for a Stmt are therefore candidates, which
+ * callers needing the exact proof steps check against the proof itself.
+ */
+public class ReferenceIndex {
+
+    private final Map<Stmt, List<Theorem>> proofRefs = new IdentityHashMap<>();
+    private final Map<Sym, List<Stmt>> symRefs = new IdentityHashMap<>();
+    private final List<Theorem> incompleteTheorems = new ArrayList<>();
+
+    /**
+     * Construct a ReferenceIndex for the given statements.
+     *
+     * @param stmts the statements of the LogicalSystem.
+     */
+    public ReferenceIndex(final Collection<Stmt> stmts) {
+        for (final Stmt stmt : stmts)
+            add(stmt);
+    }
+
+    /**
+     * Indexes a Stmt newly added to the LogicalSystem.
+     *
+     * @param stmt the new Stmt.
+     */
+    public synchronized void add(final Stmt stmt) {
+        for (final Sym sym : stmt.getFormula().getExpr())
+            addRef(symRefs, sym, stmt);
+        if (!(stmt instanceof Theorem))
+            return;
+
+        final Theorem theorem = (Theorem)stmt;
+        final CompressedProof compressedProof = theorem.getCompressedProof();
+        if (compressedProof != null) {
+            for (final Hyp hyp : theorem.getMandFrame().hypArray)
+                addRef(proofRefs, hyp, theorem);
+            for (final Stmt ref : compressedProof.getOtherStmt())
+                addRef(proofRefs, ref, theorem);
+        }
+        else
+            for (final RPNStep step : theorem.getProof())
+                if (step != null && step.stmt != null)
+                    addRef(proofRefs, step.stmt, theorem);
+        if (theorem.hasUnknownSteps())
+            incompleteTheorems.add(theorem);
+    }
+
+    /*
+     * Statements are indexed one at a time, so a referencing statement
+     * already recorded is always the last element of the list.
+     */
+    private static <K, V> void addRef(final Map<K, List<V>> refs, final K key,
+        final V value)
+    {
+        List<V> list = refs.get(key);
+        if (list == null) {
+            list = new ArrayList<>(2);
+            refs.put(key, list);
+        }
+        else if (list.get(list.size() - 1) == value)
+            return;
+        list.add(value);
+    }
+
+    /**
+     * Removes from the index every Sym and Stmt whose seq is greater than
+     * {@code lastSeq}, see {@link LogicalSystem#rollback}.
+     *
+     * @param lastSeq the last seq kept.
+     */
+    public synchronized void rollback(final int lastSeq) {
+        rollback(proofRefs, lastSeq);
+        rollback(symRefs, lastSeq);
+        incompleteTheorems.removeIf(theorem -> theorem.getSeq() > lastSeq);
+    }
+
+    private static <K extends MObj, V extends MObj> void rollback(
+        final Map<K, List<V>> refs, final int lastSeq)
+    {
+        final Iterator<Map.Entry<K, List<V>>> i = refs.entrySet().iterator();
+        while (i.hasNext()) {
+            final Map.Entry<K, List<V>> e = i.next();
+            final List<V> list = e.getValue();
+            if (e.getKey().getSeq() > lastSeq
+                || list.removeIf(v -> v.getSeq() > lastSeq) && list.isEmpty())
+                i.remove();
+        }
+    }
+
+    /**
+     * Returns the Theorems whose proofs may reference the given Stmt.
+     *
+     * @param stmt the referenced Stmt.
+     * @return a new list of the candidate Theorems.
+     */
+    public synchronized List<Theorem> getProofRefs(final Stmt stmt) {
+        final List<Theorem> list = proofRefs.get(stmt);
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+
+    /**
+     * Returns the Stmts whose formulas use the given Sym.
+     *
+     * @param sym the referenced Sym.
+     * @return a new list of the Stmts.
+     */
+    public synchronized List<Stmt> getSymRefs(final Sym sym) {
+        final List<Stmt> list = symRefs.get(sym);
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
+
+    /**
+     * Returns the Theorems whose proofs have unknown '?' steps.
+     *
+     * @return a new list of the incomplete Theorems.
+     */
+    public synchronized List<Theorem> getIncompleteTheorems() {
+        return new ArrayList<>(incompleteTheorems);
+    }
+
+    /**
+     * Returns the given Stmts and every Theorem which depends on one of them,
+     * directly or through other Theorems.
+     *
+     * @param stmts the Stmts depended on.
+     * @return the set of the given Stmts and their dependent Theorems.
+     */
+    public synchronized Set<Stmt> getDependents(
+        final Collection<? extends Stmt> stmts)
+    {
+        final Set<Stmt> dependents = Collections
+            .newSetFromMap(new IdentityHashMap<>());
+        final Deque<Stmt> queue = new ArrayDeque<>();
+        for (final Stmt stmt : stmts)
+            if (dependents.add(stmt))
+                queue.add(stmt);
+        while (!queue.isEmpty()) {
+            final List<Theorem> list = proofRefs.get(queue.remove());
+            if (list != null)
+                for (final Theorem theorem : list)
+                    if (dependents.add(theorem))
+                        queue.add(theorem);
+        }
+        return dependents;
+    }
+}
@@ -51,6 +51,11 @@ public class ScopeFrame {
      */
     public DjVars[] djVarsArray;
 
+    /**
+     * Hash index of djVarsArray, built on demand by isVarPairInDjArray.
+     */
+    private volatile DjVarsIndex djVarsIndex;
+
     /**
      * Default Constructor.
      */
@@ -66,6 +71,10 @@ public class ScopeFrame {
      * "hi". Low and High are irrelevant to the mathematics of this situation.
      * But if the vars were stored randomly or arbitrarily, then twice as many
      * comparisons would be needed here.
+     * <p>
+     * Large DjVars arrays are looked up in a hash index of the frame, rebuilt
+     * whenever djVarsArray is replaced. The array itself must therefore not be
+     * modified in place once the frame is in use.
      *
      * @param frame Scope Frame to inspect.
      * @param vLo the "low" variable in the pair.
@@ -75,18 +84,90 @@ public class ScopeFrame {
     public static boolean isVarPairInDjArray(final ScopeFrame frame, Var vLo,
         Var vHi)
     {
+        final DjVars[] djVarsArray = frame.djVarsArray;
+        if (djVarsArray.length >= LangConstants.DJ_VARS_INDEX_MIN_SIZE) {
+            DjVarsIndex index = frame.djVarsIndex;
+            if (index == null || index.djVarsArray != djVarsArray)
+                frame.djVarsIndex = index = new DjVarsIndex(djVarsArray);
+            return index.contains(vLo, vHi);
+        }
+
         Var vSwap;
         if (DjVars.DV_ORDER.compare(vLo, vHi) > 0) {
             vSwap = vHi;
             vHi = vLo;
             vLo = vSwap;
         }
-        for (final DjVars element : frame.djVarsArray)
+        for (final DjVars element : djVarsArray)
             if (element.getVarLo() == vLo && element.getVarHi() == vHi)
                 return true;
         return false;
     }
 
+    /**
+     * Hash index of a DjVars array: the variables are numbered, and each pair
+     * is stored as a long packing the numbers of its two variables, lowest
+     * first, in an open addressing hash table.
+     * <p>
+     * An index is never modified once built, so that frames shared between
+     * threads may build and publish it without locking.
+     */
+    private static class DjVarsIndex {
+        private static final long EMPTY = -1L;
+
+        final DjVars[] djVarsArray;
+        private final Map<Var, Integer> varNbr = new IdentityHashMap<>();
+        private final long[] table;
+
+        DjVarsIndex(final DjVars[] djVarsArray) {
+            this.djVarsArray = djVarsArray;
+            table = new long[Integer.highestOneBit(4 * djVarsArray.length)];
+            Arrays.fill(table, EMPTY);
+            for (final DjVars djVars : djVarsArray) {
+                final long key = key(getOrAddNbr(djVars.getVarLo()),
+                    getOrAddNbr(djVars.getVarHi()));
+                int i = slot(key);
+                while (table[i] != EMPTY && table[i] != key)
+                    i = i + 1 & table.length - 1;
+                table[i] = key;
+            }
+        }
+
+        private int getOrAddNbr(final Var var) {
+            Integer nbr = varNbr.get(var);
+            if (nbr == null) {
+                nbr = varNbr.size();
+                varNbr.put(var, nbr);
+            }
+            return nbr;
+        }
+
+        boolean contains(final Var v1, final Var v2) {
+            final Integer nbr1 = varNbr.get(v1);
+            if (nbr1 == null)
+                return false;
+            final Integer nbr2 = varNbr.get(v2);
+            if (nbr2 == null)
+                return false;
+            final long key = key(nbr1, nbr2);
+            for (int i = slot(key); table[i] != EMPTY; i = i + 1
+                & table.length - 1)
+                if (table[i] == key)
+                    return true;
+            return false;
+        }
+
+        private static long key(final int nbr1, final int nbr2) {
+            return nbr1 < nbr2 ? (long)nbr1 << 32 | nbr2
+                : (long)nbr2 << 32 | nbr1;
+        }
+
+        private int slot(final long key) {
+            final long h = key * 0x9E3779B97F4A7C15L;
+            return (int)(h >>> 32) & table.length - 1;
+        }
+    }
+
     /**
      * Converts an array of ProofWorksheet DistinctVariablesStmt objects into an
      * array of DjVars objects.
@@ -165,6 +165,23 @@ public class Section implements SourceElement, Comparable<Section> {
         return lastMObjNbr;
     }
 
+    /**
+     * Restores the MObj counter and sequence number range of the Section.
+     * <p>
+     * Used by BookManager when a partial reload restarts from a load mark.
+     * 
+     * @param lastMObjNbr the last MObj number to be kept in the Section.
+     * @param minMObjSeq the minimum MObj sequence number.
+     * @param maxMObjSeq the maximum MObj sequence number.
+     */
+    void rollback(final int lastMObjNbr, final int minMObjSeq,
+        final int maxMObjSeq)
+    {
+        this.lastMObjNbr = lastMObjNbr;
+        this.minMObjSeq = minMObjSeq;
+        this.maxMObjSeq = maxMObjSeq;
+    }
+
     /**
      * Test code for creating diagnostics.
      * 
@@ -344,6 +344,37 @@ public class SeqAssigner implements TheoremLoaderCommitListener {
         turnOffCheckpointing();
     }
 
+    /**
+     * Returns the last appended sequence number, or 0 if none was assigned.
+     *
+     * @return the last appended MObj.seq number.
+     */
+    public int getLastSeq() {
+        return nbrIntervals * intervalSize;
+    }
+
+    /**
+     * Returns the number of MObj sequence numbers assigned so far.
+     *
+     * @return the MObj count.
+     */
+    public int getMObjCount() {
+        return mObjCount;
+    }
+
+    /**
+     * Discards every sequence number assigned after {@code lastSeq}, so that
+     * a partial reload of the input .mm database can restart from there.
+     *
+     * @param lastSeq value of {@code getLastSeq()} to revert to.
+     * @param mObjCount value of {@code getMObjCount()} to revert to.
+     */
+    public void rollbackTo(final int lastSeq, final int mObjCount) {
+        this.mObjCount = mObjCount;
+        nbrIntervals = lastSeq / intervalSize;
+        intervalTbl.keySet().removeIf(i -> i >= nbrIntervals);
+    }
+
     private void outputRollbackAuditMessage(final MessageHandler messageHandler,
         final int seq, final String stmtCaption, final Stmt stmt,
         final String updateCaption)
@@ -31,6 +31,7 @@ import java.util.List;
 
 import mmj.mmio.BlockList;
 import mmj.mmio.SourcePosition;
+import mmj.mmio.TokenInterner;
 import mmj.pa.MMJException;
 
 /**
@@ -227,4 +228,45 @@ public interface SystemLoader {
      */
     void cacheTypesettingCommentForGMFF(String comment);
 
+    /**
+     * Returns the table of canonical label and math symbol Strings, used by the
+     * loader to avoid creating a String for each token read.
+     * <p>
+     * The Strings passed to the {@code add} methods should come from this
+     * table so that the symbol and statement tables are keyed with them.
+     *
+     * @return the TokenInterner, or null if tokens are not to be interned.
+     */
+    TokenInterner getTokenInterner();
+
+    /**
+     * Records the current loading state of the Logical System, so that a
+     * partial reload can later restart from this point.
+     * <p>
+     * Marks are only meaningful at the global scope level.
+     * 
+     * @return the load mark.
+     */
+    Mark mark();
+
+    /**
+     * Discards everything loaded after the given mark, restoring the Logical
+     * System to the state it had when the mark was taken.
+     * 
+     * @param mark a load mark obtained from {@code mark()}.
+     */
+    void rollback(Mark mark);
+
+    /**
+     * Loading state of a {@code SystemLoader}, see {@code mark()}.
+     */
+    interface Mark {
+        /**
+         * Returns the sequence number of the last MObj loaded before the
+         * mark: every MObj loaded after the mark has a greater seq.
+         * 
+         * @return the last MObj.seq number before the mark.
+         */
+        int getLastSeq();
+    }
 }
@@ -30,6 +30,8 @@
 
 package mmj.lang;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.*;
 
 import mmj.lang.ParseTree.RPNStep;
@@ -72,7 +74,8 @@ import mmj.mmio.SourcePosition;
  *      Entity-Relationship Notes</a>
  */
 public class Theorem extends Assrt {
-    private RPNStep[] proof;
+    private volatile RPNStep[] proof;
+    private CompressedProof compressedProof;
     private final ScopeFrame optFrame;
     private final int column;
 
@@ -143,6 +146,42 @@ public class Theorem extends Assrt {
         final BlockList proofBlockList, final ProofCompression proofCompression,
         final SourcePosition position,
         final MessageHandler messageHandler) throws LangException
+    {
+        this(seq, scopeDefList, symTbl, stmtTbl, labelS, column, typS, symList,
+            proofList, proofBlockList, proofCompression, null, position,
+            messageHandler);
+    }
+
+    /**
+     * Construct Theorem using the entire enchilada from mmj.mmio.SrcStmt.java
+     * including compressed proof blocks, optionally keeping the proof
+     * compressed until it is needed.
+     *
+     * @param seq MObj.seq sequence number
+     * @param scopeDefList Scope info in effect at the time
+     * @param symTbl Symbol Table (Map)
+     * @param stmtTbl Statement Table (Map)
+     * @param labelS Theorem label String
+     * @param column Starting column
+     * @param typS Theorem Formula Type Code String
+     * @param symList Theorem Expression Sym String List
+     * @param proofList Theorem Proof Stmt String List.
+     * @param proofBlockList list containing one or more blocks of compressed
+     *            proof symbols.
+     * @param proofCompression instance of ProofCompression.java used to
+     *            decompress or validate proof.
+     * @param proofCache if not null, the proof is only validated here, and is
+     *            decompressed through this cache by {@link #getProof()}.
+     * @param messages for error reporting
+     * @throws LangException if there was a decompression error
+     */
+    public Theorem(final int seq, final List<ScopeDef> scopeDefList,
+        final Map<String, Sym> symTbl, final Map<String, Stmt> stmtTbl,
+        final String labelS, final int column, final String typS,
+        final List<String> symList, final List<String> proofList,
+        final BlockList proofBlockList, final ProofCompression proofCompression,
+        final ProofCache proofCache, final SourcePosition position,
+        final MessageHandler messageHandler) throws LangException
     {
         super(seq, scopeDefList, symTbl, stmtTbl, labelS, typS, symList);
 
@@ -150,9 +189,14 @@ public class Theorem extends Assrt {
         this.column = column;
 
         try {
-            proof = proofCompression.decompress(labelS, seq, stmtTbl,
-                mandFrame.hypArray, optFrame.hypArray, proofList,
-                proofBlockList, position, messageHandler);
+            if (proofCache == null)
+                proof = proofCompression.decompress(labelS, seq, stmtTbl,
+                    mandFrame.hypArray, optFrame.hypArray, proofList,
+                    proofBlockList, position, messageHandler);
+            else
+                compressedProof = proofCompression.validate(labelS, seq,
+                    stmtTbl, mandFrame.hypArray, optFrame.hypArray, proofList,
+                    proofBlockList, position, proofCache, messageHandler);
         } catch (final LangException e) {
             proof = new RPNStep[]{new RPNStep(null)};
             messageHandler.accumInfoMessage(e.getPosition(), e.getMessage());
@@ -162,11 +206,89 @@ public class Theorem extends Assrt {
 
     /**
      * Return Theorem's proof.
+     * <p>
+     * If the Theorem was loaded with lazy proof decompression, the proof is
+     * decompressed here, see {@link ProofCache}.
      *
      * @return Theorem's proof.
      */
     public RPNStep[] getProof() {
-        return proof;
+        final RPNStep[] p = proof;
+        return p != null ? p : decompressProof();
+    }
+
+    private synchronized RPNStep[] decompressProof() {
+        if (proof != null || compressedProof == null)
+            return proof;
+        final ProofCache proofCache = compressedProof.getProofCache();
+        final RPNStep[] p = proofCache.get(this, compressedProof);
+        if (!proofCache.isEnabled()) {
+            proof = p;
+            compressedProof = null;
+        }
+        return p;
+    }
+
+    /**
+     * Returns true if this Theorem's proof is still held in compressed form.
+     *
+     * @return true if the proof is decompressed on demand.
+     */
+    public synchronized boolean isProofCompressed() {
+        return compressedProof != null;
+    }
+
+    /**
+     * Returns this Theorem's proof in compressed form, see
+     * {@link #isProofCompressed()}.
+     *
+     * @return the CompressedProof, or null.
+     */
+    synchronized CompressedProof getCompressedProof() {
+        return compressedProof;
+    }
+
+    /**
+     * Adds this Theorem's proof to a digest, without decompressing it.
+     * <p>
+     * Two proofs giving the same digest refer to the same statements in the
+     * same way, so that one of them is valid if and only if the other is
+     * (given the same statements). A compressed proof and the equivalent
+     * uncompressed proof do not give the same digest.
+     *
+     * @param digest the MessageDigest to update.
+     */
+    public synchronized void digestProof(final MessageDigest digest) {
+        if (compressedProof != null) {
+            digest.update((byte)'C');
+            compressedProof.digest(digest);
+            return;
+        }
+        digest.update((byte)'N');
+        if (proof == null)
+            return;
+        for (final RPNStep step : proof) {
+            if (step == null) {
+                digest.update((byte)'?');
+            }
+            else {
+                digest.update(Integer.toString(step.backRef).getBytes(
+                    StandardCharsets.US_ASCII));
+                digest.update((byte)':');
+                if (step.stmt != null)
+                    digest.update(step.stmt.getLabel().getBytes(
+                        StandardCharsets.UTF_8));
+            }
+            digest.update((byte)' ');
+        }
+    }
+
+    private synchronized void replaceProof(final RPNStep[] newProof) {
+        if (compressedProof != null) {
+            compressedProof.getProofCache().remove(compressedProof);
+            compressedProof = null;
+        }
+        proof = newProof;
     }
 
     /**
@@ -183,8 +305,10 @@ public class Theorem extends Assrt {
     public RPNStep[] setProof(final Map<String, Stmt> stmtTbl,
         final List<String> proofList) throws LangException
     {
-        proof = editProofListDefAndActive(stmtTbl, proofList);
-        return proof;
+        final RPNStep[] newProof = editProofListDefAndActive(stmtTbl,
+            proofList);
+        replaceProof(newProof);
+        return newProof;
     }
 
     /**
@@ -375,7 +499,7 @@ public class Theorem extends Assrt {
         final DjVars[] newDjVarsArray, final DjVars[] newOptDjVarsArray)
     {
 
-        proof = newProof;
+        replaceProof(newProof);
         mandFrame.djVarsArray = newDjVarsArray;
         optFrame.djVarsArray = newOptDjVarsArray;
     }
@@ -473,7 +597,21 @@ public class Theorem extends Assrt {
      * @return
      */
 	public boolean hasUnknownSteps() {
-		for(RPNStep proofStep:proof) if(proofStep == null) return true;
+		synchronized(this) {
+			if(compressedProof != null) return compressedProof.hasUnknownSteps();
+		}
+		for(RPNStep proofStep:getProof()) if(isUnknownStep(proofStep)) return true;
 		return false;
 	}
+
+	/**
+	 * Returns true if the given proof step is an unknown '?' step: a null 
+	 * entry, or, in a decompressed proof, a step which is neither a statement
+	 * nor a back-reference.
+	 * @param proofStep a step of a proof
+	 * @return true if the step is unknown
+	 */
+	public static boolean isUnknownStep(RPNStep proofStep) {
+		return proofStep == null || proofStep.stmt == null && proofStep.backRef <= 0;
+	}
 }
@@ -12,11 +12,23 @@ public class BlockList {
     public boolean marked = false;
     private int index = 0;
 
+    public BlockList() {}
+
+    /**
+     * Construct a BlockList holding already validated compressed proof
+     * letters, without source positions.
+     *
+     * @param blocks the compressed proof letters.
+     */
+    public BlockList(final CharSequence blocks) {
+        this.blocks.append(blocks);
+    }
+
     public int getIndex() {
         return index;
     }
 
-    public void addBlock(final String block, final SourcePosition position) {
+    public void addBlock(final CharSequence block, final SourcePosition position) {
         blocks.append(block);
         positions.add(position);
     }
@@ -75,6 +87,21 @@ public class BlockList {
         }
     }
 
+    /**
+     * Returns the compressed proof letters, one byte per character.
+     * <p>
+     * Only meaningful once the letters have been validated, that is once
+     * they have all been read through {@link #getNext(String)} without error.
+     *
+     * @return the compressed proof letters.
+     */
+    public byte[] toBytes() {
+        final byte[] bytes = new byte[blocks.length()];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte)blocks.charAt(i);
+        return bytes;
+    }
+
     public boolean isEmpty() {
         return blocks.length() == 0;
     }
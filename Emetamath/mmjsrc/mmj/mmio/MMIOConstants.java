@@ -140,6 +140,24 @@ public class MMIOConstants {
 
     public static final int READER_BUFFER_SIZE = 32768;
 
+    /**
+     * Default for reading file sources through a memory-mapped byte buffer
+     * instead of a Reader.
+     * <p>
+     * Metamath files are 7-bit ASCII, so the Tokenizer can scan the mapped
+     * bytes directly. See {@code Source.FileSource.setMapped()}.
+     */
+    public static final boolean MAPPED_FILE_SOURCE_DEFAULT = true;
+
+    /**
+     * Minimum size of a file source for it to be memory-mapped.
+     * <p>
+     * Smaller files (proof worksheets, theorem files...) are read through a
+     * Reader: mapping them does not pay off, and on some platforms a mapped
+     * file cannot be modified until the mapping is garbage collected.
+     */
+    public static final int MAPPED_FILE_SOURCE_MIN_SIZE = 1 << 20;
+
     /**
      * Printable character. Contains all ASCII printable characters (character
      * codes 32-126), except for {@link #WHITE_SPACE} characters.
@@ -281,6 +299,17 @@ public class MMIOConstants {
      */
     public static final boolean LOAD_PROOFS_DEFAULT = true;
 
+    /**
+     * Minimum number of characters between two load checkpoints.
+     * <p>
+     * Systemizer records a checkpoint (character offset plus a SystemLoader
+     * mark) at global scope statement boundaries of the top level file, at
+     * most every LOAD_CHECKPOINT_INTERVAL characters. A partial reload
+     * restarts from the last checkpoint before the modified offset.
+     * <p>
+     */
+    public static final int LOAD_CHECKPOINT_INTERVAL = 16384;
+
     public static class FileContext extends FormatContext {
         public final Source sourceId;
 
@@ -8,6 +8,10 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.DocumentEvent;
@@ -31,6 +35,17 @@ public interface Source {
       */
 	Reader createReader() throws FileNotFoundException;
 
+	/**
+	 * Returns the contents of this source as a read-only byte buffer, one 
+	 * byte per character (Metamath sources are 7-bit ASCII), or null if
+	 * this source shall be read through {@link #createReader()}.
+	 * <p>
+	 * This is a fast path for the {@link Tokenizer}.
+	 */
+	default ByteBuffer getByteContents() throws IOException {
+		return null;
+	}
+
 	/**
 	 * Returns the full contents of this source
 	 * @return
@@ -64,6 +79,7 @@ public interface Source {
 	 */
 	public static class FileSource implements Source {
 		final File file;
+		boolean mapped = MMIOConstants.MAPPED_FILE_SOURCE_DEFAULT;
 		
 		public FileSource(File path, String fileName) {
 			this.file = new File(path, fileName);
@@ -72,6 +88,15 @@ public interface Source {
 		public FileSource(File f) {
 			this.file = f;
 		}
+
+		/**
+		 * Selects whether large files are memory-mapped (see
+		 * {@link #getByteContents()}) or read through a Reader.
+		 * Sources created for include statements inherit this setting.
+		 */
+		public void setMapped(boolean mapped) {
+			this.mapped = mapped;
+		}
 		
 		@Override
 		public String getContents() {
@@ -103,6 +128,18 @@ public interface Source {
 			    );
     		}
 
+		@Override
+		public ByteBuffer getByteContents() throws IOException {
+			if (!mapped || file.length() < MMIOConstants.MAPPED_FILE_SOURCE_MIN_SIZE
+				|| file.length() > Integer.MAX_VALUE)
+				return null;
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} catch (NoSuchFileException e) {
+				throw new FileNotFoundException(file.getPath());
+			}
+		}
+
 		@Override
 		public int getSize() throws FileNotFoundException {
 			return (int)file.length();
@@ -112,7 +149,9 @@ public interface Source {
 		public Source createSourceId(final String fileName) {
 	        File f = new File(fileName);
 	        if (!f.isAbsolute()) f = new File(file.getPath(), fileName);
-			return new FileSource(f);
+			FileSource source = new FileSource(f);
+			source.mapped = mapped;
+			return source;
 		}
 	}
 
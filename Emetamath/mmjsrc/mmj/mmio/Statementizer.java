@@ -68,12 +68,16 @@ public class Statementizer implements Closeable {
 
     private int stmtNbr = 0;
 
+    private long nbrTokens = 0;
+
     private final StringBuilder nextToken = new StringBuilder();
 
     private final int offset = 0;
 
     private String prevStmtComment = null;
 
+    private TokenInterner tokenInterner = null;
+
     /**
      * Retrieves Chapter or Section title from a Comment String based on an
      * identifying pair of characters.
@@ -251,6 +255,15 @@ public class Statementizer implements Closeable {
         return stmtNbr;
     }
 
+    /**
+     * Return number of tokens read so far, including the tokens of comments.
+     *
+     * @return nbrTokens
+     */
+    public long getNbrTokens() {
+        return nbrTokens;
+    }
+
     /**
      * Attempts to bypass the current statement in the input Metamath file.
      * <p>
@@ -293,6 +306,18 @@ public class Statementizer implements Closeable {
         stmtNbr = s;
     }
 
+    /**
+     * Sets the table used to share a single String instance between all the
+     * occurrences of a label or math symbol.
+     * <p>
+     * If none is set, a new String is created for each token.
+     *
+     * @param tokenInterner the TokenInterner to use, or null.
+     */
+    public void setTokenInterner(final TokenInterner tokenInterner) {
+        this.tokenInterner = tokenInterner;
+    }
+
     /**
      * Switches the Tokenizer reader in use.
      * <p>
@@ -345,7 +370,7 @@ public class Statementizer implements Closeable {
         long startPosition = 0;
 
         while (x == null && getNextToken() > 0) {
-            x = new SrcStmt(++stmtNbr, nextToken.toString());
+            x = new SrcStmt(++stmtNbr, nextTokenString());
             startPosition = tokenizer.getCurrentCharNbr() - nextToken.length();
             if (nextToken.charAt(0) == MMIOConstants.MM_KEYWORD_1ST_CHAR)
                 switch (x.keyword) {
@@ -403,7 +428,7 @@ public class Statementizer implements Closeable {
                     raiseParseException(
                         MMIOConstants.ERRMSG_MISSING_KEYWORD_AFTER_LABEL,
                         x.label);
-                switch (x.keyword = nextToken.toString()) {
+                switch (x.keyword = nextTokenString()) {
                     case MMIOConstants.MM_LOG_HYP_KEYWORD:
                         getLogHypSrcStmt(x);
                         break;
@@ -458,13 +483,11 @@ public class Statementizer implements Closeable {
         int xLen = getNextToken();
 
         commentStart: while (true)
-            if (nextToken.toString()
-                .equals(MMIOConstants.MM_BEGIN_COMMENT_KEYWORD))
+            if (nextTokenEquals(MMIOConstants.MM_BEGIN_COMMENT_KEYWORD))
                 while (true) {
                     if ((xLen = getNextToken()) <= 0)
                         return xLen;
-                    if (nextToken.toString()
-                        .equals(MMIOConstants.MM_END_COMMENT_KEYWORD))
+                    if (nextTokenEquals(MMIOConstants.MM_END_COMMENT_KEYWORD))
                     {
                         xLen = getNextToken();
                         continue commentStart;
@@ -475,12 +498,32 @@ public class Statementizer implements Closeable {
     }
 
     private int getNextToken() throws IOException {
+        nbrTokens++;
         nextToken.setLength(0);
         return tokenizer.getToken(nextToken, offset);
     }
 
+    /*
+     * Returns the next token as a String, shared with all its other
+     * occurrences if a TokenInterner is in use.
+     */
+    private String nextTokenString() {
+        return tokenInterner == null ? nextToken.toString()
+            : tokenInterner.intern(nextToken);
+    }
+
+    private boolean nextTokenEquals(final String s) {
+        final int n = s.length();
+        if (nextToken.length() != n)
+            return false;
+        for (int i = 0; i < n; i++)
+            if (nextToken.charAt(i) != s.charAt(i))
+                return false;
+        return true;
+    }
+
     private String validateNextTokenLabel() throws MMIOException, IOException {
-        final String s = nextToken.toString();
+        final String s = nextTokenString();
         if (!isValidLabel(s))
             raiseParseException(MMIOConstants.ERRMSG_INV_LABEL, s);
         return s;
@@ -567,7 +610,7 @@ public class Statementizer implements Closeable {
         if (getNextNonCommentTokenLen() <= 0)
             raiseParseException(MMIOConstants.ERRMSG_STMT_PREMATURE_EOF,
                 x.keyword);
-        s = nextToken.toString();
+        s = nextTokenString();
         if (!isValidMathSymbol(s))
             if (s.equals(MMIOConstants.MM_END_STMT_KEYWORD))
                 raiseParseException(MMIOConstants.ERRMSG_STMT_MISSING_TYPE,
@@ -584,7 +627,7 @@ public class Statementizer implements Closeable {
         String s;
         x.symList = new ArrayList<>(40);
         while (getNextNonCommentTokenLen() > 0) {
-            s = nextToken.toString();
+            s = nextTokenString();
             if (isValidMathSymbol(s))
                 x.symList.add(s);
             else if (s.equals(MMIOConstants.MM_END_STMT_KEYWORD))
@@ -617,7 +660,7 @@ public class Statementizer implements Closeable {
         String s;
         x.symList = new ArrayList<>(40);
         while (getNextNonCommentTokenLen() > 0) {
-            s = nextToken.toString();
+            s = nextTokenString();
             if (isValidMathSymbol(s))
                 x.symList.add(s);
             else if (s.equals(MMIOConstants.MM_START_PROOF_KEYWORD))
@@ -644,7 +687,7 @@ public class Statementizer implements Closeable {
                 loadCompressedProof(x);
             else
                 do {
-                    s = nextToken.toString();
+                    s = nextTokenString();
                     if (isValidProofStep(s))
                         x.proofList.add(s);
                     else if (s.equals(MMIOConstants.MM_END_STMT_KEYWORD))
@@ -674,7 +717,7 @@ public class Statementizer implements Closeable {
                 loadCompressedProofBlockList(x);
                 break;
             }
-            s = nextToken.toString();
+            s = nextTokenString();
             if (isValidProofStep(s)) {
                 x.proofList.add(s);
                 continue;
@@ -702,11 +745,10 @@ public class Statementizer implements Closeable {
         throws MMIOException, IOException
     {
         while (getNextNonCommentTokenLen() > 0) {
-            final String s = nextToken.toString();
-            if (s.equals(MMIOConstants.MM_END_STMT_KEYWORD))
+            if (nextTokenEquals(MMIOConstants.MM_END_STMT_KEYWORD))
                 break;
 
-            x.proofBlockList.addBlock(s, tokenizer.getCurrentPosition());
+            x.proofBlockList.addBlock(nextToken, tokenizer.getCurrentPosition());
         }
 
         if (x.proofBlockList.isEmpty())
@@ -723,27 +765,25 @@ public class Statementizer implements Closeable {
         prevStmtComment = null;
 
         final StringBuilder s = new StringBuilder();
-        String workToken;
         while (true) {
             nextToken.setLength(0);
             if (tokenizer.getWhiteSpace(nextToken, offset) > 0)
                 s.append(nextToken);
             if (getNextToken() > 0) {
-                workToken = nextToken.toString();
-                if (workToken.equals(MMIOConstants.MM_END_COMMENT_KEYWORD)) {
+                if (nextTokenEquals(MMIOConstants.MM_END_COMMENT_KEYWORD)) {
                     x.comment = prevStmtComment = s.toString();
                     break;
                 }
-                s.append(workToken);
+                s.append(nextToken);
                 /**
                  * must not contain embedded $( or $) character sequences
                  */
-                if (workToken.indexOf(MMIOConstants.MM_END_COMMENT_KEYWORD) < 0
-                    && workToken
+                if (nextToken.indexOf(MMIOConstants.MM_END_COMMENT_KEYWORD) < 0
+                    && nextToken
                         .indexOf(MMIOConstants.MM_BEGIN_COMMENT_KEYWORD) < 0)
                     continue;
                 raiseParseException(MMIOConstants.ERRMSG_INV_COMMENT_CHAR_STR,
-                    workToken);
+                    nextToken.toString());
             }
             else
                 raiseParseException(MMIOConstants.ERRMSG_PREMATURE_COMMENT_EOF);
@@ -764,7 +804,7 @@ public class Statementizer implements Closeable {
         if (getNextNonCommentTokenLen() <= 0)
             raiseParseException(
                 MMIOConstants.ERRMSG_PREMATURE_INCLUDE_STMT_EOF);
-        if (!nextToken.toString().equals(MMIOConstants.MM_END_FILE_KEYWORD))
+        if (!nextTokenEquals(MMIOConstants.MM_END_FILE_KEYWORD))
             raiseParseException(MMIOConstants.ERRMSG_INV_INCLUDE_FILE_NAME);
     }
 
@@ -90,6 +90,7 @@ public class Systemizer {
     private boolean eofReached = false;
     private Deque<IncludeFile> fileList = new ArrayDeque<>(); // the stack of include files
     private final List<String> filesAlreadyLoaded = new ArrayList<>();
+    private final List<Source> sourcesAlreadyLoaded = new ArrayList<>();
 
     private SrcStmt currSrcStmt = null;
 
@@ -106,6 +107,12 @@ public class Systemizer {
 
     private   DependencyListener	dependencyListener = null;
 
+    private long nbrTokensRead = 0;
+
+    private int scopeLvl = 0;
+    private String checkpointSourceId = null;
+    private final List<LoadCheckpoint> checkpoints = new ArrayList<>();
+
     /**
      * Initialize (or re-initialize) a {@code Systemizer} from a
      * {@code Messages} object and a {@code SystemLoader} object.
@@ -178,26 +185,135 @@ public class Systemizer {
 
         tokenizer = new Tokenizer(sourceId);
         statementizer = new Statementizer(tokenizer);
+        statementizer.setTokenInterner(systemLoader.getTokenInterner());
+
+        scopeLvl = 0;
+        checkpoints.clear();
+        checkpointSourceId = sourceId.getUniqueId();
 
         eofReached = false;
         getNextStmt();
         if (eofReached && !messageHandler.hasErrors())
             handleParseException(
                 new MMIOException(MMIOConstants.ERRMSG_INPUT_FILE_EMPTY));
-        else {
-            while (!eofReached && !messageHandler.maxErrorMessagesReached()) {
-                loadStmt();
-                if (loadLimit.endpointReached) {
-                    finalizePrematureEOF();
-                    tokenizer.close();
-                    return messageHandler;
+        else
+            loadStmts();
+        tokenizer.close();
+        nbrTokensRead += statementizer.getNbrTokens();
+        return messageHandler;
+    }
+
+    /**
+     * Loads statements until end of file, starting with the current SrcStmt.
+     *
+     * @throws IOException if I/O error
+     */
+    private void loadStmts() throws IOException {
+        while (!eofReached && !messageHandler.maxErrorMessagesReached()) {
+            loadStmt();
+            if (loadLimit.endpointReached) {
+                finalizePrematureEOF();
+                return;
+            }
+            recordCheckpoint();
+            getNextStmt();
+        }
+        if (eofReached == true)
+            finalizeEOF();
+    }
+
+    /**
+     * Returns the last load checkpoint from which the given source can be
+     * reloaded, or null if there is none.
+     * <p>
+     * The current contents of the source are read again up to the
+     * checkpoints, and only a checkpoint whose preceding characters are
+     * unchanged since the last load (same content hash) can be used.
+     * <p>
+     * Checkpoints are only recorded for the last source read by
+     * {@code load()}, and not for the included files.
+     *
+     * @param source the (top level) source which was modified.
+     * @param maxCharNbr the returned checkpoint shall not be located after
+     *            this character offset (e.g. the offset of an include
+     *            statement whose included file was modified).
+     * @return the last usable load checkpoint, or null.
+     * @throws IOException if the source cannot be read.
+     */
+    public LoadCheckpoint getRestartCheckpoint(final Source source,
+        final long maxCharNbr) throws IOException
+    {
+        if (checkpoints.isEmpty()
+            || !source.getUniqueId().equals(checkpointSourceId))
+            return null;
+        LoadCheckpoint checkpoint = null;
+        try (Reader reader = source.createReader()) {
+            long charNbr = 0;
+            long hash = 0;
+            for (final LoadCheckpoint c : checkpoints) {
+                if (c.charNbr > maxCharNbr)
+                    break;
+                while (charNbr < c.charNbr) {
+                    final int ch = reader.read();
+                    if (ch == -1)
+                        return checkpoint;
+                    hash = Tokenizer.hashChar(hash, ch);
+                    charNbr++;
                 }
-                getNextStmt();
+                if (hash != c.contentHash)
+                    break;
+                checkpoint = c;
             }
-            if (eofReached == true)
-                finalizeEOF();
         }
-        tokenizer.close();
+        return checkpoint;
+    }
+
+    /**
+     * Reloads the given source starting from a load checkpoint.
+     * <p>
+     * Everything loaded after the checkpoint is first discarded from the
+     * {@code SystemLoader} (see {@code SystemLoader.rollback()}), then the
+     * source is read again starting at the checkpoint's character offset.
+     *
+     * @param source the source to be reloaded, which must be the one the
+     *            checkpoint was obtained for.
+     * @param checkpoint the load checkpoint, as returned by
+     *            {@code getRestartCheckpoint()}.
+     * @return {@code Messages} object, which can be tested to see if any error
+     *         messages were generated
+     * @throws MMIOException if the source cannot be read again.
+     */
+    public MessageHandler reload(final Source source,
+        final LoadCheckpoint checkpoint) throws MMIOException
+    {
+        systemLoader.rollback(checkpoint.loaderMark);
+        filesAlreadyLoaded.subList(checkpoint.nbrFilesLoaded,
+            filesAlreadyLoaded.size()).clear();
+        sourcesAlreadyLoaded.subList(checkpoint.nbrFilesLoaded,
+            sourcesAlreadyLoaded.size()).clear();
+        fileList.clear();
+        checkpoints.subList(checkpoints.indexOf(checkpoint) + 1,
+            checkpoints.size()).clear();
+        scopeLvl = 0;
+        loadLimit.endpointReached = false;
+
+        try {
+            loadProgress.addTask(source.getSize() - (int)checkpoint.charNbr);
+            tokenizer = new Tokenizer(source, checkpoint.charNbr);
+            tokenizer.getProgress(); // bypassed characters are not progress
+            statementizer = new Statementizer(tokenizer);
+            statementizer.setTokenInterner(systemLoader.getTokenInterner());
+            statementizer.setStmtNbr(checkpoint.stmtNbr);
+
+            eofReached = false;
+            getNextStmt();
+            loadStmts();
+            tokenizer.close();
+            nbrTokensRead += statementizer.getNbrTokens();
+        } catch (final IOException e) {
+            throw new MMIOException(e, MMIOConstants.ERRMSG_LOAD_MISC_IO,
+                source.toString(), e.getMessage());
+        }
         return messageHandler;
     }
 
@@ -230,9 +346,32 @@ public class Systemizer {
         }
     }
 
+    /**
+     * Returns the sources loaded so far, top level sources and include files,
+     * in the order in which they were opened.
+     *
+     * @return the list of loaded sources.
+     */
+    public List<Source> getLoadedSources() {
+        return Collections.unmodifiableList(sourcesAlreadyLoaded);
+    }
+
+    /**
+     * Returns the number of tokens read so far by all loads and reloads,
+     * including the tokens of comments.
+     *
+     * @return the number of tokens read.
+     */
+    public long getNbrTokensRead() {
+        return nbrTokensRead;
+    }
+
     public void clearFilesAlreadyLoaded() {
     	filesAlreadyLoaded.clear();
+    	sourcesAlreadyLoaded.clear();
     	fileList.clear();
+    	checkpoints.clear();
+    	checkpointSourceId = null;
     }
     
     // =========================================================
@@ -352,6 +491,7 @@ public class Systemizer {
      */
     private void loadBeginScope() {
         systemLoader.beginScope();
+        scopeLvl++;
     }
 
     /**
@@ -471,6 +611,7 @@ public class Systemizer {
      */
     private void loadEndScope() throws MMJException {
         systemLoader.endScope();
+        scopeLvl--;
     }
 
     /**
@@ -586,6 +727,7 @@ public class Systemizer {
             if (filesAlreadyLoaded.get(i).equals(absPath))
                 return true;
         filesAlreadyLoaded.add(absPath);
+        sourcesAlreadyLoaded.add(sourceId);
 
         return false;
     }
@@ -633,6 +775,27 @@ public class Systemizer {
         throw tokenizer.addContext(e);
     }
 
+    /**
+     * Records a load checkpoint after the statement just loaded, if it is a
+     * global scope statement of the top level source, not a comment (whose
+     * text may be the description of the next statement), and if the last
+     * checkpoint is far enough behind.
+     */
+    private void recordCheckpoint() {
+        if (scopeLvl != 0 || !fileList.isEmpty()
+            || currSrcStmt.keyword
+                .equals(MMIOConstants.MM_BEGIN_COMMENT_KEYWORD)
+            || currSrcStmt.keyword.equals(MMIOConstants.MM_BEGIN_FILE_KEYWORD))
+            return;
+        final long charNbr = tokenizer.getCurrentCharNbr();
+        if (!checkpoints.isEmpty() && charNbr - checkpoints
+            .get(checkpoints.size() - 1).charNbr < MMIOConstants.LOAD_CHECKPOINT_INTERVAL)
+            return;
+        checkpoints.add(new LoadCheckpoint(charNbr, tokenizer.getContentHash(),
+            statementizer.getStmtNbr(), filesAlreadyLoaded.size(),
+            systemLoader.mark()));
+    }
+
 	protected void updateLoadProgress() {
     	loadProgress.worked(tokenizer.getProgress());
     }
@@ -661,6 +824,49 @@ public class Systemizer {
         }
     }
 
+    /**
+     * A point in the top level source from which loading can be restarted:
+     * the character offset just after a global scope statement, the hash of
+     * the characters before it, and the loading state at that point.
+     */
+    public static class LoadCheckpoint {
+        private final long charNbr;
+        private final long contentHash;
+        private final int stmtNbr;
+        private final int nbrFilesLoaded;
+        private final SystemLoader.Mark loaderMark;
+
+        private LoadCheckpoint(final long charNbr, final long contentHash,
+            final int stmtNbr, final int nbrFilesLoaded,
+            final SystemLoader.Mark loaderMark)
+        {
+            this.charNbr = charNbr;
+            this.contentHash = contentHash;
+            this.stmtNbr = stmtNbr;
+            this.nbrFilesLoaded = nbrFilesLoaded;
+            this.loaderMark = loaderMark;
+        }
+
+        /**
+         * Returns the character offset in the source where loading restarts.
+         *
+         * @return the character offset of the checkpoint.
+         */
+        public long getCharNbr() {
+            return charNbr;
+        }
+
+        /**
+         * Returns the sequence number of the last MObj loaded before the
+         * checkpoint.
+         *
+         * @return the last MObj.seq number before the checkpoint.
+         */
+        public int getLastSeq() {
+            return loaderMark.getLastSeq();
+        }
+    }
+
     public interface DependencyListener {
     	/**
     	 * Registers an include file dependency
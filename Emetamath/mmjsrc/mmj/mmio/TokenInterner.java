@@ -0,0 +1,143 @@
+package mmj.mmio;
+
+/**
+ * Table of the canonical String instances of the Metamath tokens read so far.
+ * <p>
+ * A token is looked up directly from a {@code CharSequence} -- typically the
+ * work buffer filled by the {@code Tokenizer} -- so that a new String is
+ * allocated only the first time a given token is read. The symbol and
+ * statement tables of a LogicalSystem are keyed with these canonical
+ * instances, so later lookups in these maps are resolved by identity, using
+ * the hash code cached by the String.
+ * <p>
+ * This is an open-addressing hash table with linear probing. Tokens are never
+ * removed. {@link #get(CharSequence)} does not lock and may be used while
+ * another thread is interning tokens (for example, the editor's syntax
+ * highlighting during a build): it may then miss a token being added, but
+ * never returns a wrong one.
+ */
+public class TokenInterner {
+
+    private static final int MINIMUM_CAPACITY = 16;
+
+    /** Table of canonical instances, its length is a power of 2. */
+    private volatile String[] table;
+
+    private int size;
+
+    /**
+     * Construct an empty TokenInterner.
+     *
+     * @param expectedSize expected number of distinct tokens.
+     */
+    public TokenInterner(final int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity < 2 * expectedSize && capacity < 1 << 30)
+            capacity <<= 1;
+        table = new String[capacity];
+    }
+
+    /**
+     * Returns the canonical instance of a token, or null if the token has not
+     * been interned yet. This never allocates.
+     *
+     * @param token the characters of the token.
+     * @return the canonical String for the token, or null.
+     */
+    public String get(final CharSequence token) {
+        final String[] t = table;
+        final int h = hash(token);
+        final int mask = t.length - 1;
+        for (int i = mix(h) & mask;; i = i + 1 & mask) {
+            final String s = t[i];
+            if (s == null)
+                return null;
+            if (s.hashCode() == h && contentEquals(s, token))
+                return s;
+        }
+    }
+
+    /**
+     * Returns the canonical instance of a token, adding it to this table if it
+     * is not present yet.
+     *
+     * @param token the characters of the token.
+     * @return the canonical String for the token.
+     */
+    public String intern(final CharSequence token) {
+        final String s = get(token);
+        return s != null ? s : add(token);
+    }
+
+    /**
+     * Returns the number of distinct tokens interned so far.
+     *
+     * @return the number of tokens in this table.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized String add(final CharSequence token) {
+        String s = get(token); // may have been added concurrently
+        if (s != null)
+            return s;
+        s = token.toString();
+        String[] t = table;
+        if (2 * (size + 1) > t.length) {
+            t = rehash(t);
+            insert(t, s);
+            table = t;
+        }
+        else
+            insert(t, s);
+        size++;
+        return s;
+    }
+
+    private static String[] rehash(final String[] t) {
+        final String[] r = new String[t.length << 1];
+        for (final String s : t)
+            if (s != null)
+                insert(r, s);
+        return r;
+    }
+
+    private static void insert(final String[] t, final String s) {
+        final int mask = t.length - 1;
+        int i = mix(s.hashCode()) & mask;
+        while (t[i] != null)
+            i = i + 1 & mask;
+        t[i] = s;
+    }
+
+    /** Same value as {@link String#hashCode()}. */
+    private static int hash(final CharSequence token) {
+        int h = 0;
+        final int n = token.length();
+        for (int i = 0; i < n; i++)
+            h = 31 * h + token.charAt(i);
+        return h;
+    }
+
+    /*
+     * Spreads the hash codes: labels such as "th1", "th2"... have consecutive
+     * hash codes, which would form long runs of occupied slots.
+     */
+    private static int mix(final int h) {
+        final int x = h * 0x9E3779B9;
+        return x ^ x >>> 16;
+    }
+
+    private static boolean contentEquals(final String s,
+        final CharSequence token)
+    {
+        final int n = s.length();
+        if (n != token.length())
+            return false;
+        for (int i = 0; i < n; i++)
+            if (s.charAt(i) != token.charAt(i))
+                return false;
+        return true;
+    }
+}
@@ -21,6 +21,8 @@ package mmj.mmio;
 import static mmj.mmio.MMIOConstants.*;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import mmj.mmio.MMIOConstants.FileContext;
 import mmj.mmio.MMIOConstants.LineColumnContext;
@@ -79,11 +81,25 @@ public class Tokenizer implements Closeable {
     private long lastCharNbr = 0;
 
     private long lastProgress = 0;
+
+    private long contentHash = 0;
     
     private int prevChar = -1;
     private int currChar = -1;
     private int nextChar = -1;
 
+    /**
+     * Fast path, see {@code Source.getByteContents()}: the characters are
+     * read from this buffer instead of the reader, and line and column
+     * numbers are only computed on demand, from a line start index.
+     */
+    private ByteBuffer buffer = null;
+    private int bufferLimit = 0;
+    private int[] lineStarts = null;
+    private int nbrLineStarts = 0;
+    private int lineIndexEnd = 0;
+    private long linePositionCharNbr = 0;
+
     /**
      * Constructs Tokenizer from a Source.
      *
@@ -92,10 +108,19 @@ public class Tokenizer implements Closeable {
      */
     public Tokenizer(final Source s) throws IOException {
 
-        reader = s.createReader();
         sourceId = s;
 
-        nextChar = reader.read();
+        buffer = s.getByteContents();
+        if (buffer != null) {
+            bufferLimit = buffer.limit();
+            lineStarts = new int[1024];
+            nbrLineStarts = 1; // line 1 starts at char 0
+            nextChar = bufferLimit > 0 ? buffer.get(0) & 0x00ff : -1;
+        }
+        else {
+            reader = s.createReader();
+            nextChar = reader.read();
+        }
         if (nextChar == -1)
             lineNbr = 0;
         else
@@ -147,6 +172,9 @@ public class Tokenizer implements Closeable {
         throws IOException
     {
 
+        if (buffer != null)
+            return getBufferToken(strBuf, offset);
+
         int x;
         int len = 0;
 
@@ -224,6 +252,7 @@ public class Tokenizer implements Closeable {
      * @return current line number in the file (starts with 1).
      */
     public long getCurrentLineNbr() {
+        updateLinePosition();
         return lineNbr;
     }
 
@@ -235,6 +264,7 @@ public class Tokenizer implements Closeable {
      * @return current column number (starts with 1).
      */
     public long getCurrentColumnNbr() {
+        updateLinePosition();
         return columnNbr;
     }
 
@@ -284,6 +314,7 @@ public class Tokenizer implements Closeable {
 
     @Override
     public void close() throws IOException {
+        buffer = null;
         if (reader != null)
             reader.close();
     }
@@ -294,6 +325,7 @@ public class Tokenizer implements Closeable {
      * @return
      */
 	public SourcePosition getCurrentPosition() {
+		updateLinePosition();
 		return new SourcePosition(sourceId, lineNbr, columnNbr, lastCharNbr, charNbr);
 	}
 
@@ -303,6 +335,7 @@ public class Tokenizer implements Closeable {
      * @return
      */
 	public SourcePosition getCurrentPositionStartingAt(long startCharNbr) {
+		updateLinePosition();
 		return new SourcePosition(sourceId, lineNbr, columnNbr, startCharNbr, charNbr);
 	}
 
@@ -347,12 +380,20 @@ public class Tokenizer implements Closeable {
         if (nextChar == -1)
             return -1;
         currChar = nextChar;
+        if (buffer != null) {
+            charNbr++;
+            contentHash = hashChar(contentHash, currChar);
+            nextChar = charNbr < bufferLimit ? buffer.get((int)charNbr) & 0x00ff
+                : -1;
+            return currChar;
+        }
         nextChar = reader.read();
         if (nextChar != -1)
             nextChar &= 0x00ff;
 
         columnNbr++;
         charNbr++;
+        contentHash = hashChar(contentHash, currChar);
 
         if (prevChar == '\n') {
             lineNbr++;
@@ -366,6 +407,95 @@ public class Tokenizer implements Closeable {
         return currChar;
     }
 
+    /**
+     * Fast path of {@code getToken}, scanning the byte buffer directly.
+     *
+     * @param strBuf the {@code StringBuilder} where the next available MetaMath
+     *            token will be inserted
+     * @param offset insertion point offset in strBuf for token.
+     * @return length of token, or -1 if EOF reached.
+     */
+    private int getBufferToken(final StringBuilder strBuf, final int offset) {
+        final ByteBuffer b = buffer;
+        final int end = bufferLimit;
+        int i = (int)charNbr;
+        long hash = contentHash;
+        int x = -1;
+
+        while (i < end
+            && (VALID_CHAR_ARRAY[x = b.get(i) & 0x00ff] & WHITE_SPACE) != 0)
+        {
+            hash = hashChar(hash, x);
+            i++;
+        }
+
+        lastCharNbr = i;
+
+        int len = -1;
+        if (i < end) {
+            final int start = i;
+            do {
+                hash = hashChar(hash, b.get(i));
+                i++;
+            } while (i < end
+                && (VALID_CHAR_ARRAY[b.get(i) & 0x00ff] & PRINTABLE) != 0);
+            len = i - start;
+
+            if (offset == strBuf.length())
+                for (int j = start; j < i; j++)
+                    strBuf.append((char)(b.get(j) & 0x00ff));
+            else
+                for (int j = start, k = offset; j < i; j++, k++)
+                    strBuf.insert(k, (char)(b.get(j) & 0x00ff));
+        }
+
+        if (i > charNbr) {
+            prevChar = i - charNbr > 1 ? b.get(i - 2) & 0x00ff : currChar;
+            currChar = b.get(i - 1) & 0x00ff;
+            charNbr = i;
+            contentHash = hash;
+            nextChar = i < end ? b.get(i) & 0x00ff : -1;
+        }
+        return len;
+    }
+
+    /**
+     * Computes lineNbr and columnNbr of the current character, when reading
+     * from the byte buffer.
+     * <p>
+     * The line start index is extended up to the current character, using the
+     * same line terminator rules as {@code getChar}: "lf", "cr/lf" and "cr".
+     */
+    private void updateLinePosition() {
+        if (buffer == null || bufferLimit == 0
+            || linePositionCharNbr == charNbr)
+            return;
+        linePositionCharNbr = charNbr;
+
+        final int i = (int)charNbr - 1; // current character
+        if (i < 0) {
+            lineNbr = 1;
+            columnNbr = 0;
+            return;
+        }
+        for (int j = lineIndexEnd; j < i; j++) {
+            final int c = buffer.get(j);
+            if (c == '\n' || c == '\r' && buffer.get(j + 1) != '\n') {
+                if (nbrLineStarts == lineStarts.length)
+                    lineStarts = Arrays.copyOf(lineStarts, 2 * nbrLineStarts);
+                lineStarts[nbrLineStarts++] = j + 1;
+            }
+        }
+        if (i > lineIndexEnd)
+            lineIndexEnd = i;
+
+        int k = Arrays.binarySearch(lineStarts, 0, nbrLineStarts, i);
+        if (k < 0)
+            k = -k - 2;
+        lineNbr = k + 1;
+        columnNbr = i - lineStarts[k] + 1;
+    }
+
     /**
      * Non-destructive "peek" at next character in the file.
      *
@@ -386,10 +516,34 @@ public class Tokenizer implements Closeable {
             e.addContext(new FileContext(sourceId));
             e.setPosition(getCurrentPosition()); // same as e.addContext(new SourcePositionContext(getCurrentPosition())), but saves the creation of one object
         }
+        updateLinePosition();
         return MMJException.addContext(new LineColumnContext(lineNbr, columnNbr,
             charNbr - errorFldChars + 1), e);
     }
 
+    /**
+     * Returns a hash of all the characters read so far.
+     * <p>
+     * Used to find out whether the beginning of a source was modified since
+     * it was read, see {@code hashChar}.
+     *
+     * @return hash of the characters read so far.
+     */
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    /**
+     * Adds one character to a content hash.
+     *
+     * @param hash the content hash of the preceding characters.
+     * @param c the next character, as returned by the reader.
+     * @return the content hash including the character.
+     */
+    public static long hashChar(final long hash, final int c) {
+        return 31 * hash + (c & 0x00ff);
+    }
+
 	public long getProgress() {
 		long progress = charNbr - lastProgress;
 		lastProgress = charNbr;
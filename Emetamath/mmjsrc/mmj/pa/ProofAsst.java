@@ -120,6 +120,7 @@ public class ProofAsst implements TheoremLoaderCommitListener {
     private MessageHandler messageHandler;
     private final TheoremLoader theoremLoader;
     public final MacroManager macroManager;
+    private UnificationCache unificationCache;
 
     // -----------------------------------------------------------------
     // -------------------------LOCAL CLASSES---------------------------
@@ -1020,6 +1021,17 @@ public class ProofAsst implements TheoremLoaderCommitListener {
             formula.sortConstList(comp);
     }
 
+    /**
+     * Sets the cache of the previous unifications of the proof to be unified
+     * next, see {@link UnificationCache}.
+     *
+     * @param unificationCache the UnificationCache of the proof, or null for
+     *            none.
+     */
+    public void setUnificationCache(final UnificationCache unificationCache) {
+        this.unificationCache = unificationCache;
+    }
+
     /**
      * This function initialize auto-transformation component.
      *
@@ -1450,6 +1462,7 @@ public class ProofAsst implements TheoremLoaderCommitListener {
                 grammar, messageHandler, macroManager))
         {
 
+            proofWorksheetParser.setUnificationCache(unificationCache);
             proofWorksheet = proofWorksheetParser.next(inputCursorPos,
                 stepRequest);
 
@@ -1686,6 +1699,54 @@ public class ProofAsst implements TheoremLoaderCommitListener {
             false); // deriveFormulas
     }
 
+    /**
+     * Creates the Proof Worksheet of one theorem, as
+     * {@link #exportOneTheorem(String)} does, without generating its text.
+     *
+     * @param theoremLabel label of the theorem to export.
+     * @return the Proof Worksheet, or null if it could not be created.
+     */
+    public ProofWorksheet exportOneProofWorksheet(final String theoremLabel) {
+
+        final Theorem theorem = getTheorem(theoremLabel);
+        if (theorem == null)
+            throw new IllegalArgumentException(new ProofAsstException(
+                PaConstants.ERRMSG_PA_GET_THEOREM_NOT_FOUND, theoremLabel));
+        return exportOneProofWorksheet(theorem, messageHandler);
+    }
+
+    /**
+     * Creates the Proof Worksheet of one theorem, as
+     * {@link #exportOneTheorem(Theorem)} does, without generating its text,
+     * reporting the errors to the given MessageHandler.
+     * <p>
+     * The statements of the Proof Worksheet are formatted, so its text is
+     * {@link ProofWorksheet#getOutputProofText()} if it is needed.
+     *
+     * @param theorem the theorem to export.
+     * @param messages MessageHandler receiving the error messages.
+     * @return the Proof Worksheet, or null if it could not be created.
+     */
+    public ProofWorksheet exportOneProofWorksheet(final Theorem theorem,
+        final MessageHandler messages)
+    {
+        final MessageHandler saved = messageHandler;
+        messageHandler = messages;
+        try {
+            final ProofWorksheet proofWorksheet = getExportedProofWorksheet(
+                theorem, true, // exportFormatUnified
+                HypsOrder.Correct, // hypsRandomized
+                false); // deriveFormulas
+
+            if (proofWorksheet != null && proofWorksheet.hasStructuralErrors())
+                throw new IllegalArgumentException(addLabelContext(
+                    proofWorksheet, PaConstants.ERRMSG_PA_EXPORT_STRUCT_ERROR));
+            return proofWorksheet;
+        } finally {
+            messageHandler = saved;
+        }
+    }
+
     private String exportOneTheorem(final Writer exportWriter, // already open
         final Theorem theorem, final boolean exportFormatUnified,
         final HypsOrder hypsOrder, final boolean deriveFormulas)
@@ -643,9 +643,16 @@ public abstract class ProofStepStmt extends ProofWorkStmt implements ProofStep {
 
     // on existing formulas we retrieve parse tree from Stmt
     protected void getNewFormulaStepParseTree() throws ProofAsstException {
+        final UnificationCache cache = w.unificationCache;
+        formulaParseTree = cache == null ? null
+            : cache.getParseTree(w, formula);
+        if (formulaParseTree != null)
+            return;
         formulaParseTree = w.grammar.parseFormulaWithoutSafetyNet(formula,
             w.comboFrame.hypArray, // is array, confusingly...
             w.getMaxSeq());
+        if (cache != null && formulaParseTree != null)
+            cache.putParseTree(w, formula, formulaParseTree);
         if (formulaParseTree == null)
             w.triggerLoadStructureException(
                 (int)w.proofTextTokenizer.getCurrentCharNbr() + 1
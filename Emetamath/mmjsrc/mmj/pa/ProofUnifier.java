@@ -75,6 +75,7 @@ import mmj.pa.MacroManager.CallbackType;
 import mmj.pa.PaConstants.*;
 import mmj.pa.StepRequest.StepRequestType;
 import mmj.transforms.TransformationManager;
+import mmj.util.Progress;
 import mmj.verify.*;
 
 /**
@@ -159,8 +160,34 @@ public class ProofUnifier {
         return unifySearchList;
     }
 
+    // unifySearchList indexed by conclusion syntax axioms
+    private UnifySearchIndex unifySearchIndex = null;
+
     private boolean tablesInitialized = false;
 
+    private long nbrUnifyAttempts = 0;
+    private long nbrUnificationsFound = 0;
+
+    /**
+     * Returns the number of assertions which were tried for unification with
+     * a derivation step so far.
+     *
+     * @return the number of unification attempts.
+     */
+    public long getNbrUnifyAttempts() {
+        return nbrUnifyAttempts;
+    }
+
+    /**
+     * Returns the number of unifications of a derivation step with an
+     * assertion found so far, including the alternate ones.
+     *
+     * @return the number of unifications found.
+     */
+    public long getNbrUnificationsFound() {
+        return nbrUnificationsFound;
+    }
+
     public boolean getTablesInitialized() {
         return tablesInitialized;
     }
@@ -229,6 +256,13 @@ public class ProofUnifier {
      * ***********************************************************/
     private final StepUnifier stepUnifier;
 
+    /**
+     * Number of assertions scanned between two progress reports.
+     */
+    private static final int PROGRESS_STEP = 1000;
+
+    private Progress unifyProgress = Progress.NONE;
+
     /**
      * Standard constructor for set up.
      *
@@ -284,6 +318,8 @@ public class ProofUnifier {
 
         Collections.sort(unifySearchList, MObj.SEQ);
 
+        unifySearchIndex = new UnifySearchIndex(unifySearchList, MObj.SEQ);
+
         final Set<String> excl = proofAsstPreferences.unifySearchExclude.get();
         if (!excl.isEmpty())
             messageHandler.accumMessage(PaConstants.ERRMSG_UNIFY_SEARCH_EXCLUDE,
@@ -520,9 +556,11 @@ public class ProofUnifier {
         autoDerivSteps = new DerivationStep[proofWorksheet
             .getProofWorkStmtListCnt()];
 
+        unifyProgress.addTask(proofWorksheet.getProofWorkStmtListCnt());
         stepLoop: for (final ProofWorkStmt proofWorkStmtObject : proofWorksheet
             .getProofWorkStmtList())
         {
+            unifyProgress.worked(1);
             if (!(proofWorkStmtObject instanceof DerivationStep))
                 continue;
 
@@ -616,10 +654,16 @@ public class ProofUnifier {
 
         final Map<DerivationStep, UnifyResult> autoBestResults = new HashMap<>();
 
-        for (final Assrt a : unifySearchList) {
+        final List<Assrt> searchList = getUnifySearchList(autoDerivSteps,
+            autoDerivStepsCount);
+        unifyProgress.addTask(searchList.size());
+        int scanned = 0;
+        for (final Assrt a : searchList) {
             if (a.getSeq() >= maxSeq)
                 // halt the scan -- the list is sorted!!!
                 break;
+            if (++scanned % PROGRESS_STEP == 0)
+                unifyProgress.worked(PROGRESS_STEP);
 
             assrt = a;
             assrtNbrLogHyps = assrt.getLogHypArrayLength();
@@ -701,7 +745,9 @@ public class ProofUnifier {
         shiftEmptyElements(autoDerivSteps, autoDerivStepsCount);
         autoDerivStepsCount -= autoBestResults.size();
 
+        unifyProgress.addTask(autoDerivStepsCount);
         for (int i = 0; i < autoDerivStepsCount; i++) {
+            unifyProgress.worked(1);
             final List<DerivationStep> list = trManager
                 .tryToFindTransformations(proofWorksheet, autoDerivSteps[i]);
             if (list != null) {
@@ -729,10 +775,23 @@ public class ProofUnifier {
         final int maxSeq = proofWorksheet.getMaxSeq();
         int nbrCompleted = 0;
 
-        for (final Assrt a : unifySearchList) {
+        final UnificationCache cache = proofWorksheet.unificationCache;
+        final DerivationStep[] emptyRefSteps = cache == null ? null
+            : Arrays.copyOf(derivStepsWithEmptyRef,
+                derivStepsWithEmptyRefCount);
+        if (cache != null)
+            unifyCachedRefs(cache, maxSeq);
+
+        final List<Assrt> searchList = getUnifySearchList(
+            derivStepsWithEmptyRef, derivStepsWithEmptyRefCount);
+        unifyProgress.addTask(searchList.size());
+        int scanned = 0;
+        for (final Assrt a : searchList) {
             if (a.getSeq() >= maxSeq)
                 // halt the scan -- the list is sorted!!!
                 break;
+            if (++scanned % PROGRESS_STEP == 0)
+                unifyProgress.worked(PROGRESS_STEP);
 
             assrt = a;
             assrtNbrLogHyps = assrt.getLogHypArrayLength();
@@ -771,7 +830,78 @@ public class ProofUnifier {
                 continue;
             break;
         }
+
+        if (cache != null)
+            for (final DerivationStep d : emptyRefSteps)
+                if (d.getRef() instanceof Assrt && d.unificationStatus.proper
+                    && d.djVarsErrorStatus == DjVarsErrorStatus.None)
+                    cache.putRef(proofWorksheet, d);
+    }
+
+    /**
+     * Unifies the steps without Ref with the Ref the unification search found
+     * the last time the same steps were unified, if any, see
+     * {@link UnificationCache}. The steps so unified are removed from
+     * derivStepsWithEmptyRef, the other ones are left for the search.
+     *
+     * @param cache the UnificationCache
+     * @param maxSeq the maximum seq of the assertions
+     * @throws VerifyException Verification exception
+     */
+    private void unifyCachedRefs(final UnificationCache cache,
+        final int maxSeq) throws VerifyException
+    {
+        int nbrCompleted = 0;
+        for (int i = 0; i < derivStepsWithEmptyRefCount; i++) {
+            derivStep = derivStepsWithEmptyRef[i];
+            final Assrt a = cache.getRef(proofWorksheet, derivStep);
+            if (a == null || a.getSeq() >= maxSeq
+                || derivStep.getHypNumber() != a.getLogHypArrayLength())
+                continue;
+            assrt = a;
+            assrtNbrLogHyps = assrt.getLogHypArrayLength();
+            if (unifyStepWithoutWorkVars().proper()
+                && derivStep.djVarsErrorStatus == DjVarsErrorStatus.None)
+            {
+                derivStepsWithEmptyRef[i] = null;
+                nbrCompleted++;
+            }
+        }
+        if (nbrCompleted > 0) {
+            shiftEmptyElements(derivStepsWithEmptyRef,
+                derivStepsWithEmptyRefCount);
+            derivStepsWithEmptyRefCount -= nbrCompleted;
+        }
     }
+
+    /**
+     * Returns the assertions of unifySearchList which could unify with one of
+     * the given steps, in unifySearchList order.
+     * <p>
+     * The other assertions would all be rejected by checkAssrtLevelMatch() or
+     * by the unification of the step formula, so skipping them leaves the
+     * results unchanged.
+     *
+     * @param steps the steps to unify.
+     * @param count the number of steps.
+     * @return the assertions to scan.
+     */
+    private List<Assrt> getUnifySearchList(final DerivationStep[] steps,
+        final int count)
+    {
+        final List<ParseNode> stepRoots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final DerivationStep d = steps[i];
+            if (d.getFormula() == null || d.formulaParseTree == null
+                || d.hasDeriveStepFormula())
+                return unifySearchList;
+            stepRoots.add(d.formulaParseTree.getRoot());
+        }
+        final List<Assrt> candidates = unifySearchIndex
+            .getCandidates(stepRoots);
+        return candidates == null ? unifySearchList : candidates;
+    }
+
     private boolean buildProofsAndErrorUnUnifiedSteps() {
         // ok, finish: error un-unified steps and
         // build proofs for the unified steps!
@@ -1055,6 +1185,7 @@ public class ProofUnifier {
          * penalty for non-Proof Assistant users).
          */
 
+        nbrUnifyAttempts++;
         if (derivStep.getFormula() == null || !checkAssrtLevelMatch()
             || !checkHypLevelMatch())
             return badUnification;
@@ -1917,6 +2048,7 @@ public class ProofUnifier {
     private void markStepUnified(final boolean usedUnifyWithWorkVars,
         final boolean swapHyps, final int[] rearrangeDerivAssrtXRef)
     {
+        nbrUnificationsFound++;
 
         ProofAsstException djMsg = null;
 
@@ -2994,6 +3126,20 @@ public class ProofUnifier {
         this.trManager = trManager;
     }
 
+    /**
+     * Sets the Progress notified as unifyAllProofDerivationSteps() works
+     * through the derivation steps and the assertions to search.
+     * <p>
+     * The Progress may cancel the unification by throwing a RuntimeException
+     * from {@link Progress#worked}: the ProofWorksheet being unified shall
+     * then be discarded.
+     *
+     * @param progress the Progress, or null for none.
+     */
+    public void setUnifyProgress(final Progress progress) {
+        unifyProgress = progress == null ? Progress.NONE : progress;
+    }
+
     public <T extends MMJException> T addStepContext(final T e) {
         return ProofWorksheet.addLabelContext(proofWorksheet, StepContext
             .addStepContext(derivStep == null ? null : derivStep, e));
@@ -195,6 +195,9 @@ public class ProofWorksheet {
     public StringBuilder tmffFormulaSB;
     public MacroManager macroManager;
 
+    /** results of the previous unifications of this proof, or null */
+    public UnificationCache unificationCache;
+
     public StepSelectorStore stepSelectorStore = null;
     public StepRequest stepRequest = null;
 
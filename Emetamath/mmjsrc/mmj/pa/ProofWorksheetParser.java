@@ -52,6 +52,7 @@ public class ProofWorksheetParser implements Closeable {
     private final Grammar grammar;
     private final MessageHandler messageHandler;
     private final MacroManager macroManager;
+    private UnificationCache unificationCache;
 
     private String nextToken;
     private final Tokenizer proofTextTokenizer;
@@ -189,6 +190,16 @@ public class ProofWorksheetParser implements Closeable {
             return false;
     }
 
+    /**
+     * Sets the cache of the previous unifications of the proof, used while
+     * loading the next ProofWorksheets.
+     *
+     * @param unificationCache the UnificationCache, or null for none.
+     */
+    public void setUnificationCache(final UnificationCache unificationCache) {
+        this.unificationCache = unificationCache;
+    }
+
     /**
      * Returns the next ProofWorksheet from the input source for situations when
      * input cursor position not available.
@@ -223,6 +234,7 @@ public class ProofWorksheetParser implements Closeable {
         final ProofWorksheet proofWorksheet = new ProofWorksheet(
             proofTextTokenizer, proofAsstPreferences, logicalSystem, grammar,
             messageHandler, macroManager);
+        proofWorksheet.unificationCache = unificationCache;
 
         /*
          * loadWorksheet() returns next token *after* this
@@ -47,6 +47,11 @@ public class StepSelectorSearch {
 //  private Assrt[]                assrtArray;
     private final ArrayList<Assrt> assrtAList;
 
+    /*
+     * assrtAList indexed by conclusion syntax axioms
+     */
+    private final UnifySearchIndex unifySearchIndex;
+
     /*
      * these instance variables are "global" work items
      * stored here for convenience.
@@ -93,6 +98,9 @@ public class StepSelectorSearch {
         assrtAList.addAll(unifySearchList);
 
         Collections.sort(assrtAList, Assrt.NBR_LOG_HYP_SEQ);
+
+        unifySearchIndex = new UnifySearchIndex(assrtAList,
+            Assrt.NBR_LOG_HYP_SEQ);
     }
 
     public void mergeListOfAssrtAddsSortedBySeq(
@@ -106,6 +114,9 @@ public class StepSelectorSearch {
 
         new MergeSortedArrayLists<>(assrtAList, addList, Assrt.NBR_LOG_HYP_SEQ,
             true); // abortIfDupsFound
+
+        for (final Theorem theorem : addList)
+            unifySearchIndex.add(theorem);
     }
 
     /**
@@ -151,9 +162,21 @@ public class StepSelectorSearch {
         final ProofStepStmt[] derivStepSortedHypArray = derivStep
             .getSortedHypArray();
 
+        /* Only scan the assertions whose conclusion could unify
+           with the step formula, in the same order.
+         */
+        List<Assrt> searchList = null;
+        if (derivStep.formulaParseTree != null)
+            searchList = unifySearchIndex
+                .getCandidates(derivStep.formulaParseTree.getRoot());
+        if (searchList == null)
+            searchList = assrtAList;
+        else if (searchList.isEmpty())
+            return store;
+
         /*  Binary search for 1st Assrt w/correct number of log hyps.
          */
-        int assrtIndex = computeSearchStart(nbrDerivStepHyps);
+        int assrtIndex = computeSearchStart(searchList, nbrDerivStepHyps);
 
         /* See if log hyp "wildcards" to be searched.
          */
@@ -178,8 +201,8 @@ public class StepSelectorSearch {
             for (int i = 0; i < nbrDerivStepHyps; i++)
                 derivStepHypArray[i] = derivStepSortedHypArray[i];
 
-            while (assrtIndex < assrtAList.size()) {
-                assrt = assrtAList.get(assrtIndex);
+            while (assrtIndex < searchList.size()) {
+                assrt = searchList.get(assrtIndex);
                 if (assrt.getSeq() < maxSeq) {
                     assrtNbrLogHyps = assrt.getLogHypArrayLength();
                     if (assrtNbrLogHyps != hypIndex) {
@@ -194,7 +217,7 @@ public class StepSelectorSearch {
                 else if (hypIndex < // 95% of Assrts
                 PaConstants.STEP_SELECTOR_SEARCH_HYP_LOOKUP_MAX) {
                     hypIndex++; // so skip forward
-                    assrtIndex = computeSearchStart(hypIndex);
+                    assrtIndex = computeSearchStart(searchList, hypIndex);
                     continue hypLoop;
                 }
                 assrtIndex++;
@@ -216,11 +239,14 @@ public class StepSelectorSearch {
      * Assumes that assrtArray is not empty and that it is sorted by
      * Assrt.NBR_LOG_HYP_SEQ.
      *
+     * @param assrtAList the list of assertions to search.
      * @param nbrHyps number of hypotheses on derivation step.
      * @return if not found, then return Integer.MAX_VALUE, otherwise the index
      *         of the first assertion with number of LogHyps >= input nbrHyps.
      */
-    private int computeSearchStart(final int nbrHyps) {
+    private static int computeSearchStart(final List<Assrt> assrtAList,
+        final int nbrHyps)
+    {
 
 //      if (assrtArray[0].getLogHypArrayLength() >= nbrHyps) {
         if (assrtAList.get(0).getLogHypArrayLength() >= nbrHyps)
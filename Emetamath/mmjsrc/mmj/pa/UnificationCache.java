@@ -0,0 +1,203 @@
+package mmj.pa;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import mmj.lang.*;
+import mmj.pa.PaConstants.DjVarsSoftErrors;
+
+/**
+ * Results of the previous unifications of a proof, reused by the next ones so
+ * that the work done on an unchanged step is not done again.
+ * <p>
+ * A cache is kept for one proof, typically by the editor of the proof, and
+ * set with {@link ProofAsst#setUnificationCache} before unifying. It holds:
+ * <ul>
+ * <li>the parse trees of the step formulas, by formula text, which are reused
+ * by {@link ProofStepStmt} instead of parsing the formula again;
+ * <li>the Ref found by the unification search for the steps input without
+ * Ref, by text of the step formula and of its hypotheses. The
+ * {@link ProofUnifier} first tries to unify such a step with its cached Ref,
+ * and only searches the assertions if this fails.
+ * </ul>
+ * The cached Ref is the one which the search found for the same step, so
+ * trying it first gives the same result as the search. It is still unified
+ * again, which is cheap compared to the search, so that the substitutions and
+ * the distinct variable checks are those of the current worksheet.
+ * <p>
+ * Formulas with work variables are not cached. The cache is cleared when the
+ * proof is unified against another logical system, another theorem or another
+ * position in the database, and the Refs are forgotten when the distinct
+ * variable restrictions or their handling change.
+ */
+public class UnificationCache {
+    /**
+     * Maximum number of parse trees and of Refs kept, the least recently used
+     * are dropped first.
+     */
+    private static final int MAX_ENTRIES = 10000;
+
+    private LogicalSystem logicalSystem;
+    private Theorem theorem;
+    private int maxSeq;
+    private String djVarsKey;
+
+    private final Map<String, ParseTree> parseTrees = newMap();
+    private final Map<String, String> refs = newMap();
+
+    private static <V> Map<String, V> newMap() {
+        return new LinkedHashMap<String, V>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                final Map.Entry<String, V> eldest)
+            {
+                return size() > MAX_ENTRIES;
+            }
+        };
+    }
+
+    /**
+     * Forgets all cached results.
+     */
+    public synchronized void clear() {
+        parseTrees.clear();
+        refs.clear();
+        logicalSystem = null;
+        theorem = null;
+        djVarsKey = null;
+    }
+
+    /**
+     * Returns the cached parse tree of a step formula.
+     *
+     * @param w the ProofWorksheet being loaded, with its combo frame.
+     * @param formula the step formula.
+     * @return the parse tree, or null if it is not cached.
+     */
+    synchronized ParseTree getParseTree(final ProofWorksheet w,
+        final Formula formula)
+    {
+        final String key = formulaKey(formula);
+        if (key == null || !checkContext(w))
+            return null;
+        return parseTrees.get(key);
+    }
+
+    /**
+     * Caches the parse tree of a step formula.
+     *
+     * @param w the ProofWorksheet being loaded.
+     * @param formula the step formula.
+     * @param parseTree the parse tree of the formula.
+     */
+    synchronized void putParseTree(final ProofWorksheet w,
+        final Formula formula, final ParseTree parseTree)
+    {
+        final String key = formulaKey(formula);
+        if (key != null && checkContext(w))
+            parseTrees.put(key, parseTree);
+    }
+
+    /**
+     * Returns the Ref found by the unification search for this step, the last
+     * time the same step was unified.
+     *
+     * @param w the ProofWorksheet being unified.
+     * @param d the derivation step, without Ref.
+     * @return the assertion, or null if there is none cached.
+     */
+    synchronized Assrt getRef(final ProofWorksheet w, final DerivationStep d) {
+        final String key = stepKey(d);
+        if (key == null || !checkContext(w))
+            return null;
+        checkDjVars(w);
+        final String label = refs.get(key);
+        if (label == null)
+            return null;
+        final Stmt ref = w.logicalSystem.getStmtTbl().get(label);
+        return ref instanceof Assrt ? (Assrt)ref : null;
+    }
+
+    /**
+     * Caches the Ref found by the unification search for this step.
+     *
+     * @param w the ProofWorksheet being unified.
+     * @param d the derivation step, unified.
+     */
+    synchronized void putRef(final ProofWorksheet w, final DerivationStep d) {
+        final String key = stepKey(d);
+        if (key == null || !checkContext(w))
+            return;
+        checkDjVars(w);
+        refs.put(key, d.getRef().getLabel());
+    }
+
+    /**
+     * Clears the cache if the worksheet is not for the same theorem, at the
+     * same position in the same logical system, as the cached results.
+     *
+     * @return false if the worksheet has no theorem context yet.
+     */
+    private boolean checkContext(final ProofWorksheet w) {
+        if (w.comboFrame == null)
+            return false;
+        if (w.logicalSystem != logicalSystem || w.theorem != theorem
+            || w.getMaxSeq() != maxSeq)
+        {
+            clear();
+            logicalSystem = w.logicalSystem;
+            theorem = w.theorem;
+            maxSeq = w.getMaxSeq();
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the cached Refs if the distinct variable restrictions of the
+     * worksheet, or their handling, changed.
+     */
+    private void checkDjVars(final ProofWorksheet w) {
+        final StringBuilder sb = new StringBuilder();
+        final DjVarsSoftErrors softErrors = w.proofAsstPreferences.djVarsSoftErrors
+            .get();
+        sb.append(softErrors);
+        if (w.comboFrame.djVarsArray != null)
+            for (final DjVars djVars : w.comboFrame.djVarsArray)
+                sb.append(' ').append(djVars);
+        final String key = sb.toString();
+        if (!key.equals(djVarsKey)) {
+            refs.clear();
+            djVarsKey = key;
+        }
+    }
+
+    private static String formulaKey(final Formula formula) {
+        if (formula == null)
+            return null;
+        final StringBuilder sb = new StringBuilder();
+        sb.append(formula.getTyp().getId());
+        for (final Sym sym : formula.getExpr()) {
+            if (sym instanceof WorkVar)
+                return null;
+            sb.append(' ').append(sym.getId());
+        }
+        return sb.toString();
+    }
+
+    private static String stepKey(final DerivationStep d) {
+        final String formulaKey = formulaKey(d.getFormula());
+        if (formulaKey == null)
+            return null;
+        final StringBuilder sb = new StringBuilder(formulaKey);
+        for (final ProofStepStmt hyp : d.getHypList()) {
+            final String hypKey = hyp == null ? null
+                : formulaKey(hyp.getFormula());
+            if (hypKey == null)
+                return null;
+            sb.append('\n').append(hypKey);
+        }
+        return sb.toString();
+    }
+}
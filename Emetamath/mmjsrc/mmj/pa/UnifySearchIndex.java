@@ -0,0 +1,188 @@
+package mmj.pa;
+
+import java.util.*;
+
+import mmj.lang.*;
+
+/**
+ * Discrimination tree of assertions, keyed by the syntax axioms at the first
+ * two levels of the parse trees of their conclusions.
+ * <p>
+ * A proof step formula can only unify with an assertion if, at the root and
+ * at each child of the root, either the assertion has a variable or both have
+ * the same syntax axiom. The index returns the assertions passing this test,
+ * which are the only ones worth trying to unify with the step, instead of
+ * scanning all assertions. Work variables of the step may be substituted by
+ * anything, so they match every assertion.
+ * <p>
+ * This is the level one and two check done by ProofUnifier with
+ * {@link ParseTree#getLevelOneTwo()}, applied to all assertions at once.
+ */
+public class UnifySearchIndex {
+
+    private final Comparator<? super Assrt> order;
+
+    /** Assertions whose conclusion is a variable. */
+    private final List<Assrt> varRooted = new ArrayList<>();
+
+    /** Assertions without parse tree, which are always returned. */
+    private final List<Assrt> unparsed = new ArrayList<>();
+
+    private final Map<Stmt, Node> byRoot = new IdentityHashMap<>();
+
+    private int size = 0;
+
+    /**
+     * One level of the tree: the children of a node are keyed by the syntax
+     * axiom of the next child of the conclusion root, or are the wildcard
+     * when it is a variable.
+     */
+    private static class Node {
+        Map<Stmt, Node> next;
+        Node wildcard;
+        List<Assrt> assrts;
+
+        Node getOrCreate(final Stmt stmt) {
+            if (stmt instanceof VarHyp) {
+                if (wildcard == null)
+                    wildcard = new Node();
+                return wildcard;
+            }
+            if (next == null)
+                next = new IdentityHashMap<>();
+            Node node = next.get(stmt);
+            if (node == null) {
+                node = new Node();
+                next.put(stmt, node);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Construct a UnifySearchIndex of the given assertions.
+     *
+     * @param assrts the assertions to index.
+     * @param order the order in which the candidates are returned, that of
+     *            the list of assertions the index replaces.
+     */
+    public UnifySearchIndex(final Collection<? extends Assrt> assrts,
+        final Comparator<? super Assrt> order)
+    {
+        this.order = order;
+        for (final Assrt assrt : assrts)
+            add(assrt);
+    }
+
+    /**
+     * Adds an assertion to the index.
+     *
+     * @param assrt the new assertion.
+     */
+    public void add(final Assrt assrt) {
+        size++;
+        final ParseTree tree = assrt.getExprParseTree();
+        if (tree == null) {
+            unparsed.add(assrt);
+            return;
+        }
+        final ParseNode root = tree.getRoot();
+        if (root.stmt instanceof VarHyp) {
+            varRooted.add(assrt);
+            return;
+        }
+        Node node = byRoot.get(root.stmt);
+        if (node == null) {
+            node = new Node();
+            byRoot.put(root.stmt, node);
+        }
+        for (final ParseNode child : root.child)
+            node = node.getOrCreate(child.stmt);
+        if (node.assrts == null)
+            node.assrts = new ArrayList<>(2);
+        node.assrts.add(assrt);
+    }
+
+    /**
+     * Returns the number of assertions in the index.
+     *
+     * @return the number of assertions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the assertions which could unify with a step formula.
+     *
+     * @param stepRoot the root of the step formula parse tree, or null if the
+     *            step formula is not known.
+     * @return the candidate assertions in the order of the index, or null if
+     *         any assertion could unify.
+     */
+    public List<Assrt> getCandidates(final ParseNode stepRoot) {
+        final List<Assrt> candidates = new ArrayList<>();
+        if (!addCandidates(stepRoot, candidates))
+            return null;
+        Collections.sort(candidates, order);
+        return candidates;
+    }
+
+    /**
+     * Returns the assertions which could unify with one of several step
+     * formulas.
+     *
+     * @param stepRoots the roots of the step formula parse trees, null for
+     *            a step formula which is not known.
+     * @return the candidate assertions in the order of the index, or null if
+     *         any assertion could unify.
+     */
+    public List<Assrt> getCandidates(final Collection<ParseNode> stepRoots) {
+        final Set<Assrt> candidates = Collections
+            .newSetFromMap(new IdentityHashMap<>());
+        for (final ParseNode stepRoot : stepRoots)
+            if (!addCandidates(stepRoot, candidates))
+                return null;
+        final List<Assrt> list = new ArrayList<>(candidates);
+        Collections.sort(list, order);
+        return list;
+    }
+
+    private boolean addCandidates(final ParseNode stepRoot,
+        final Collection<Assrt> candidates)
+    {
+        if (stepRoot == null || stepRoot.stmt instanceof WorkVarHyp)
+            return false;
+        candidates.addAll(unparsed);
+        candidates.addAll(varRooted);
+        if (!(stepRoot.stmt instanceof VarHyp)) {
+            final Node node = byRoot.get(stepRoot.stmt);
+            if (node != null)
+                addCandidates(node, stepRoot.child, 0, candidates);
+        }
+        return true;
+    }
+
+    private static void addCandidates(final Node node, final ParseNode[] keys,
+        final int i, final Collection<Assrt> candidates)
+    {
+        if (i == keys.length) {
+            if (node.assrts != null)
+                candidates.addAll(node.assrts);
+            return;
+        }
+        final ParseNode key = keys[i];
+        if (key == null || key.stmt instanceof WorkVarHyp) {
+            if (node.next != null)
+                for (final Node n : node.next.values())
+                    addCandidates(n, keys, i + 1, candidates);
+        }
+        else if (!(key.stmt instanceof VarHyp) && node.next != null) {
+            final Node n = node.next.get(key.stmt);
+            if (n != null)
+                addCandidates(n, keys, i + 1, candidates);
+        }
+        if (node.wildcard != null)
+            addCandidates(node.wildcard, keys, i + 1, candidates);
+    }
+}
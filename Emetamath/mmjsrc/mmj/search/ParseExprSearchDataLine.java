@@ -30,6 +30,16 @@ public class ParseExprSearchDataLine extends SearchDataLine {
             parseSearchTerms(csa);
     }
 
+    @Override
+    public SearchDataLine copy(final SearchDataGetter searchDataGetter,
+        final SearchUnifier searchUnifier)
+    {
+        final ParseExprSearchDataLine copy = (ParseExprSearchDataLine)super
+            .copy(searchDataGetter, searchUnifier);
+        copy.searchUnifier = searchUnifier;
+        return copy;
+    }
+
     @Override
     public void loadAssrtData() {
         loadAssrtDataTreeArray();
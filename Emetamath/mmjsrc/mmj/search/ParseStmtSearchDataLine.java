@@ -29,6 +29,16 @@ public class ParseStmtSearchDataLine extends SearchDataLine {
             parseSearchTerms(csa);
     }
 
+    @Override
+    public SearchDataLine copy(final SearchDataGetter searchDataGetter,
+        final SearchUnifier searchUnifier)
+    {
+        final ParseStmtSearchDataLine copy = (ParseStmtSearchDataLine)super
+            .copy(searchDataGetter, searchUnifier);
+        copy.searchUnifier = searchUnifier;
+        return copy;
+    }
+
     @Override
     public void loadAssrtData() {
         loadAssrtDataTreeArray();
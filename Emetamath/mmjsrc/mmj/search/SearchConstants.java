@@ -24,6 +24,8 @@ public class SearchConstants {
     public static final int SEARCH_RETURN_CODE_EXECUTION_ERROR = 4;
     public static final int SEARCH_RETURN_CODE_FATAL_ERROR = 16;
     public static final String SEARCH_FONT_FAMILY = "Monospaced";
+    public static final String SEARCH_THREAD_NAME = "mmj2 search";
+    public static final int SEARCH_PARALLEL_CHUNK_SIZE = 256;
     public static final String SEARCH_OPTIONS_NEW_STMT_LABEL_PROMPT = ""
         + "Statement label, or a blank?";
     public static final String SEARCH_OPTIONS_NEW_STMT_LABEL_PROMPT_2 = ""
@@ -22,7 +22,7 @@ import java.util.regex.PatternSyntaxException;
 
 import mmj.lang.*;
 
-public abstract class SearchDataLine {
+public abstract class SearchDataLine implements Cloneable {
 
     public static SearchDataLine createSearchDataLine(
         final CompiledSearchArgs csa, final int i,
@@ -97,6 +97,28 @@ public abstract class SearchDataLine {
         loadQuotedSearchTermList(csa);
     }
 
+    /**
+     * Returns a copy of this SearchDataLine sharing its compiled search terms,
+     * for evaluation on another thread.
+     *
+     * @param searchDataGetter the SearchDataGetter of the copy.
+     * @param searchUnifier the SearchUnifier of the copy.
+     * @return the copy.
+     */
+    public SearchDataLine copy(final SearchDataGetter searchDataGetter,
+        final SearchUnifier searchUnifier)
+    {
+        final SearchDataLine copy;
+        try {
+            copy = (SearchDataLine)clone();
+        } catch (final CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        copy.searchDataGetter = searchDataGetter;
+        copy.initForNextSearch();
+        return copy;
+    }
+
     public abstract void loadAssrtData();
 
     public abstract boolean evaluateSearchTerm(
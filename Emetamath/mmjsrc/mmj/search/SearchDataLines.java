@@ -32,6 +32,22 @@ public class SearchDataLines {
 
     }
 
+    /**
+     * Construct a copy of the given SearchDataLines with its own
+     * SearchDataGetter and SearchUnifier, so that both can evaluate
+     * assertions concurrently.
+     *
+     * @param lines the SearchDataLines to copy.
+     */
+    public SearchDataLines(final SearchDataLines lines) {
+        getter = new SearchDataGetter();
+        final SearchUnifier searchUnifier = new SearchUnifier();
+        line = new SearchDataLine[lines.line.length];
+        for (int i = 0; i < line.length; i++)
+            if (lines.line[i] != null)
+                line[i] = lines.line[i].copy(getter, searchUnifier);
+    }
+
     public boolean evaluate(final Assrt assrt, final CompiledSearchArgs csa) {
         getter.initForNextSearch(assrt);
         boolean flag = false;
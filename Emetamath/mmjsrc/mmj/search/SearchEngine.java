@@ -15,9 +15,11 @@
 
 package mmj.search;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import mmj.lang.*;
 import mmj.pa.*;
@@ -26,6 +28,12 @@ import mmj.verify.VerifyProofs;
 
 public class SearchEngine {
 
+    /**
+     * Executor shared by all searches, running the search tasks and the
+     * workers evaluating the search data lines.
+     */
+    private static ExecutorService searchExecutor;
+
     private final SearchMgr searchMgr;
     private SearchArgs searchArgs;
     private CompiledSearchArgs compiledSearchArgs = null;
@@ -47,6 +55,7 @@ public class SearchEngine {
     private ParseNode[] assrtSubst = null;
     private boolean stepSearchMode = false;
     private boolean substitutions = false;
+    private SearchDataLinesEvaluation searchDataLinesEvaluation = null;
 
     public SearchEngine(final SearchMgr searchMgr, final ProofAsst proofAsst,
         final ProofAsstPreferences proofAsstPreferences,
@@ -85,11 +94,12 @@ public class SearchEngine {
                         return searchTask();
                     }
                 });
-            Executors.newSingleThreadExecutor().execute(search);
+            getSearchExecutor().execute(search);
             try {
                 searchOutput = search.get(compiledSearchArgs.searchMaxTime,
                     TimeUnit.SECONDS);
             } catch (final InterruptedException interruptedexception) {
+                search.cancel(true);
                 searchOutput.storeError(3, 30,
                     SearchConstants.ERRMSG_SEARCH_TASK_INTERRUPTED_1
                         + interruptedexception.getMessage());
@@ -101,6 +111,7 @@ public class SearchEngine {
                 throw new IllegalArgumentException(
                     "Rethrowing ExecutionException", executionexception);
             } catch (final TimeoutException timeoutexception) {
+                search.cancel(true);
                 searchOutput.storeError(2, 30,
                     SearchConstants.ERRMSG_SEARCH_TASK_TIMEOUT_1
                         + timeoutexception.getMessage());
@@ -111,10 +122,22 @@ public class SearchEngine {
         return searchOutput;
     }
 
+    private static synchronized ExecutorService getSearchExecutor() {
+        if (searchExecutor == null)
+            searchExecutor = Executors.newCachedThreadPool(r -> {
+                final Thread thread = new Thread(r,
+                    SearchConstants.SEARCH_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+        return searchExecutor;
+    }
+
     public SearchOutput searchTask() {
         substitutions = compiledSearchArgs.searchSubstitutions;
         store = new SearchOutputStore(compiledSearchArgs.searchMaxResults,
             compiledSearchArgs.searchOutputSortNbr);
+        searchDataLinesEvaluation = startSearchDataLinesEvaluation();
         try {
             loadSearchOutput();
             if (searchOutput.searchReturnCode == 0
@@ -127,6 +150,11 @@ public class SearchEngine {
             searchOutput.storeError(3, 30,
                 SearchConstants.ERRMSG_SEARCH_TASK_INTERRUPTED_1
                     + interruptedexception.getMessage());
+        } finally {
+            if (searchDataLinesEvaluation != null) {
+                searchDataLinesEvaluation.cancel();
+                searchDataLinesEvaluation = null;
+            }
         }
         return searchOutput;
     }
@@ -210,7 +238,7 @@ public class SearchEngine {
                         k1++;
                         continue;
                     }
-                    if (evaluateSearchDataLines()) {
+                    if (evaluateSearchDataLines(k1)) {
                         if (searchOutput.searchReturnCode != 0)
                             break;
                         searchOutput.statsNbrSelected++;
@@ -235,34 +263,90 @@ public class SearchEngine {
     }
 
     private boolean evaluateOtherExclusionCriteria() {
-        final String s = assrt.getLabel();
+        if (isExcludedLabel(assrt)) {
+            searchOutput.statsNbrRejectExclLabels++;
+            return false;
+        }
+        return isInSearchDependencies(assrt);
+    }
+
+    private boolean isExcludedLabel(final Assrt candidate) {
+        final String s = candidate.getLabel();
         final int i = compiledSearchArgs.searchExclLabelsPattern.length;
         for (int j = 0; j < i; j++)
             if (compiledSearchArgs.searchExclLabelsPattern[j].matcher(s)
                 .matches())
-            {
-                searchOutput.statsNbrRejectExclLabels++;
-                return false;
-            }
+                return true;
+        return false;
+    }
 
+    private boolean isInSearchDependencies(final Assrt candidate) {
         final BitSet bitset = compiledSearchArgs.searchCombinedDependencies;
         if (bitset != null)
             if (compiledSearchArgs.searchUseChapHierarchy) {
-                if (!bitset.get(assrt.getChapterNbr()))
+                if (!bitset.get(candidate.getChapterNbr()))
                     return false;
             }
             else if (compiledSearchArgs.searchUseSecHierarchy && !bitset
-                .get(BookManager.getOrigSectionNbr(assrt.getSectionNbr())))
+                .get(BookManager.getOrigSectionNbr(candidate.getSectionNbr())))
                 return false;
         return true;
     }
 
-    private boolean evaluateSearchDataLines() {
-        if (compiledSearchArgs.searchDataLines != null)
-            return compiledSearchArgs.searchDataLines.evaluate(assrt,
-                compiledSearchArgs);
-        else
+    private boolean evaluateSearchDataLines(final int assrtIndex)
+        throws InterruptedException
+    {
+        if (compiledSearchArgs.searchDataLines == null)
             return true;
+        if (searchDataLinesEvaluation != null)
+            return searchDataLinesEvaluation.getResult(assrtIndex);
+        return compiledSearchArgs.searchDataLines.evaluate(assrt,
+            compiledSearchArgs);
+    }
+
+    /**
+     * Starts evaluating the search data lines of the candidate assertions on
+     * the search executor, when there are enough of them to be worth sharing
+     * among several processors.
+     * <p>
+     * The candidates are the assertions which pass the sequence number,
+     * hypothesis count, proof reference and exclusion criteria checked by
+     * {@link #loadSearchOutput()}, which then takes the results in list order.
+     * Step unification is not done here, as the work variables it assigns are
+     * shared: it stays in {@code loadSearchOutput()}, and the search data
+     * lines of the assertions failing it are evaluated for nothing.
+     *
+     * @return the evaluation, or null if the search data lines are to be
+     *         evaluated by the search task itself.
+     */
+    private SearchDataLinesEvaluation startSearchDataLinesEvaluation() {
+        final int nbrProcessors = Runtime.getRuntime().availableProcessors();
+        if (compiledSearchArgs.searchDataLines == null || nbrProcessors < 2)
+            return null;
+        final int start = computeSearchStart(compiledSearchArgs.searchMinHyps);
+        final int[] candidates = new int[Math.max(0,
+            assrtAList.size() - start)];
+        int nbrCandidates = 0;
+        for (int i = start; i < assrtAList.size(); i++) {
+            final Assrt a = assrtAList.get(i);
+            if (a.getLogHypArrayLength() > compiledSearchArgs.searchMaxHyps)
+                break;
+            final int seq = a.getSeq();
+            if (seq > compiledSearchArgs.searchMinSeq
+                && seq < compiledSearchArgs.searchMaxSeq
+                && a.getNbrProofRefs() >= compiledSearchArgs.searchMinProofRefs
+                && !isExcludedLabel(a) && isInSearchDependencies(a))
+                candidates[nbrCandidates++] = i;
+        }
+        if (nbrCandidates <= SearchConstants.SEARCH_PARALLEL_CHUNK_SIZE)
+            return null;
+        final SearchDataLinesEvaluation evaluation = new SearchDataLinesEvaluation(
+            Arrays.copyOf(candidates, nbrCandidates));
+        final int nbrWorkers = Math.min(nbrProcessors,
+            evaluation.chunkDone.length);
+        for (int i = 0; i < nbrWorkers; i++)
+            getSearchExecutor().execute(evaluation);
+        return evaluation;
     }
 
     private int computeSearchStart(final int minHyps) {
@@ -328,13 +412,10 @@ public class SearchEngine {
         else
             s = "";
         String s1 = "";
-        int j;
-        if (compiledSearchArgs.searchComments) {
+        if (compiledSearchArgs.searchComments
+            && assrt.getDescription() != null)
             s1 = assrt.getDescription();
-            j = 2 + assrtNbrLogHyps;
-        }
-        else
-            j = 1 + assrtNbrLogHyps;
+        final int j = (s1.length() > 0 ? 2 : 1) + assrtNbrLogHyps;
         final String[] selection = new String[j];
         int k = 0;
         final Formula[] aformula = new Formula[assrtNbrLogHyps];
@@ -405,4 +486,73 @@ public class SearchEngine {
         else
             return;
     }
+
+    /**
+     * Evaluation of the search data lines of a list of candidate assertions,
+     * split into chunks which the workers take in order, each worker with its
+     * own copy of the search data lines.
+     */
+    private class SearchDataLinesEvaluation implements Runnable {
+
+        /** Indexes in assrtAList of the candidate assertions, ascending. */
+        private final int[] candidates;
+        private final boolean[] results;
+        private final CountDownLatch[] chunkDone;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private volatile boolean cancelled = false;
+        private volatile RuntimeException failure = null;
+
+        SearchDataLinesEvaluation(final int[] candidates) {
+            this.candidates = candidates;
+            results = new boolean[candidates.length];
+            chunkDone = new CountDownLatch[(candidates.length
+                + SearchConstants.SEARCH_PARALLEL_CHUNK_SIZE - 1)
+                / SearchConstants.SEARCH_PARALLEL_CHUNK_SIZE];
+            for (int i = 0; i < chunkDone.length; i++)
+                chunkDone[i] = new CountDownLatch(1);
+        }
+
+        /*
+         * Every chunk taken is counted down, even once cancelled, so that
+         * getResult() never waits for a chunk which no worker will evaluate.
+         */
+        public void run() {
+            final SearchDataLines lines = new SearchDataLines(
+                compiledSearchArgs.searchDataLines);
+            for (int chunk; (chunk = nextChunk
+                .getAndIncrement()) < chunkDone.length; chunkDone[chunk]
+                    .countDown())
+            {
+                if (cancelled)
+                    continue;
+                final int end = Math.min(candidates.length,
+                    (chunk + 1) * SearchConstants.SEARCH_PARALLEL_CHUNK_SIZE);
+                try {
+                    for (int i = chunk
+                        * SearchConstants.SEARCH_PARALLEL_CHUNK_SIZE; i < end
+                            && !cancelled; i++)
+                        results[i] = lines.evaluate(
+                            assrtAList.get(candidates[i]), compiledSearchArgs);
+                } catch (final RuntimeException e) {
+                    failure = e;
+                    cancelled = true;
+                }
+            }
+        }
+
+        boolean getResult(final int assrtIndex) throws InterruptedException {
+            final int i = Arrays.binarySearch(candidates, assrtIndex);
+            if (i < 0)
+                return compiledSearchArgs.searchDataLines.evaluate(
+                    assrtAList.get(assrtIndex), compiledSearchArgs);
+            chunkDone[i / SearchConstants.SEARCH_PARALLEL_CHUNK_SIZE].await();
+            if (failure != null)
+                throw failure;
+            return results[i];
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
 }
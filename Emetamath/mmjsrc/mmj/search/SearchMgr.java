@@ -114,6 +114,34 @@ public class SearchMgr {
         return execSearch();
     }
 
+    /**
+     * Runs a general search without the Search Options screen, for batch use.
+     * <p>
+     * All the search options are set to their defaults, then the first search
+     * field is set to look for {@code forWhat} in the given format and with the
+     * given operator, among the assertions preceding {@code stmt}.
+     *
+     * @param stmt the statement the search is made for, may be null.
+     * @param format one of {@link SearchOptionsConstants#FORMAT_VALUES}.
+     * @param oper one of the {@link SearchOptionsConstants} operator values
+     *            for that format.
+     * @param forWhat the text searched for.
+     * @return the output of the search.
+     */
+    public SearchOutput execGeneralSearch(final Stmt stmt, final String format,
+        final String oper, final String forWhat)
+    {
+        searchArgs.initSearchArgsToDefaults();
+        searchArgs.loadSearchKeys(stmt, logicalSystem);
+        searchArgs.format[0].set(format);
+        searchArgs.oper[0].set(oper);
+        searchArgs.forWhat[0].set(forWhat);
+        searchOutput = new SearchOutput(
+            stmt == null ? "" : stmt.getLabel());
+        searchArgs.sortedAssrtSearchList = proofAsst.getSortedAssrtSearchList();
+        return searchEngine.execSearch();
+    }
+
     public SearchOutput execSearch() {
         searchOutput = new SearchOutput(getSearchOptionsFrame().getTitle());
         getSearchOptionsFrame().uploadFromScrnMap(searchArgs);
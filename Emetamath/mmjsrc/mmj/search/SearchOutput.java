@@ -51,6 +51,10 @@ public class SearchOutput {
         this.searchTitle = searchTitle;
     }
 
+    public int getSearchReturnCode() {
+        return searchReturnCode;
+    }
+
     public void finalize(final CompiledSearchArgs csa,
         final BookManager bookManager, final MessageHandler messageHandler)
     {
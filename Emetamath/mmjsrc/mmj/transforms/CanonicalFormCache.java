@@ -0,0 +1,175 @@
+package mmj.transforms;
+
+import java.util.*;
+
+import mmj.lang.ParseNode;
+import mmj.lang.Stmt;
+
+/**
+ * The canonical forms already computed, reused across derivation steps and
+ * across unifications.
+ * <p>
+ * The canonical form of a node does not only depend on the node: it also
+ * depends on the implication prefix of the derivation step, and on the steps
+ * of the worksheet which were looked up while computing it (for example to
+ * check that a closure property like "A e. CC" is available). So the cache is
+ * keyed by the structure of the node and of the prefix, and each entry keeps
+ * the lookups made while computing it. An entry is only reused if these
+ * lookups still give the same results.
+ * <p>
+ * Equal nodes share the same entry, so they get the same canonical node
+ * instance: canonical forms are compared by identity first, then by hash
+ * code, before being compared deeply.
+ * <p>
+ * This class has local package visibility.
+ */
+/*local*/class CanonicalFormCache {
+    /**
+     * Maximum number of canonical forms kept, the least recently used are
+     * dropped first.
+     */
+    private static final int MAX_ENTRIES = 10000;
+
+    private final TransformationManager trManager;
+
+    private final Map<Key, CachedForm> entries = new LinkedHashMap<Key, CachedForm>(
+        16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(
+            final Map.Entry<Key, CachedForm> eldest)
+        {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * The lookups made by the canonical forms being computed, each one
+     * recorded once even if it is made again or made by a nested form
+     */
+    private final Deque<Set<Lookup>> recording = new ArrayDeque<>();
+
+    public CanonicalFormCache(final TransformationManager trManager) {
+        this.trManager = trManager;
+    }
+
+    /**
+     * Returns the canonical form of a node, computing it only if it is not
+     * cached or the cached one is no longer valid for this worksheet.
+     *
+     * @param node the input node
+     * @param info the work sheet info
+     * @return the canonical form, with its hash code
+     */
+    public synchronized ParseNodeHashElem get(final ParseNode node,
+        final WorksheetInfo info)
+    {
+        final Key key = new Key(node, info);
+        CachedForm entry = entries.get(key);
+        if (entry == null || !entry.isValid(info)) {
+            recording.push(new LinkedHashSet<>());
+            final ParseNode canonical;
+            final Set<Lookup> lookups;
+            try {
+                canonical = trManager.createTransformation(node, info)
+                    .getCanonicalNode(info);
+            } finally {
+                lookups = recording.pop();
+            }
+            entry = new CachedForm(new ParseNodeHashElem(canonical), lookups);
+            entries.put(key, entry);
+        }
+        // the enclosing canonical form depends on the same lookups
+        if (!recording.isEmpty())
+            recording.peek().addAll(entry.lookups);
+        return entry.canonical;
+    }
+
+    /**
+     * Records a lookup of a step made while computing canonical forms.
+     *
+     * @param root the searched expression
+     * @param found true if a step was found
+     */
+    public synchronized void recordLookup(final ParseNode root,
+        final boolean found)
+    {
+        if (!recording.isEmpty())
+            recording.peek().add(new Lookup(root, found));
+    }
+
+    /**
+     * Forgets all cached canonical forms.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static class Key {
+        final ParseNodeHashElem node;
+        final ParseNodeHashElem implPrefix;
+        final Stmt implStatement;
+
+        Key(final ParseNode node, final WorksheetInfo info) {
+            this.node = new ParseNodeHashElem(node);
+            implPrefix = new ParseNodeHashElem(info.implPrefix);
+            implStatement = info.implStatement;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key))
+                return false;
+            final Key that = (Key)obj;
+            return implStatement == that.implStatement
+                && node.equals(that.node) && implPrefix.equals(that.implPrefix);
+        }
+
+        @Override
+        public int hashCode() {
+            return node.hashCode() * 31 + implPrefix.hashCode();
+        }
+    }
+
+    private static class Lookup {
+        final ParseNodeHashElem root;
+        final boolean found;
+
+        Lookup(final ParseNode root, final boolean found) {
+            this.root = new ParseNodeHashElem(root);
+            this.found = found;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Lookup))
+                return false;
+            final Lookup that = (Lookup)obj;
+            return found == that.found && root.equals(that.root);
+        }
+
+        @Override
+        public int hashCode() {
+            return root.hashCode() * 2 + (found ? 1 : 0);
+        }
+    }
+
+    private static class CachedForm {
+        final ParseNodeHashElem canonical;
+        final Set<Lookup> lookups;
+
+        CachedForm(final ParseNodeHashElem canonical, final Set<Lookup> lookups) {
+            this.canonical = canonical;
+            this.lookups = lookups;
+        }
+
+        boolean isValid(final WorksheetInfo info) {
+            for (final Lookup lookup : lookups)
+                if ((info.findProofStepStmt(lookup.root.node) != null) != lookup.found)
+                    return false;
+            return true;
+        }
+    }
+}
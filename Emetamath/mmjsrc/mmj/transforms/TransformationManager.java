@@ -7,6 +7,7 @@
 package mmj.transforms;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.Predicate;
 
 import mmj.lang.*;
@@ -72,6 +73,9 @@ public class TransformationManager {
 
     public final ProofAsst proofAsst;
 
+    /** The canonical forms already computed */
+    final CanonicalFormCache canonicalForms;
+
     /**
      * Note: Here will be performed a lot of work during the construction of
      * this class!
@@ -105,22 +109,74 @@ public class TransformationManager {
 
         eqInfo.fillDeductRules(assrtList, implInfo);
 
-        conjInfo = new ConjunctionInfo(implInfo, assrtList, output, dbg);
+        if (dbg) {
+            // keep the debug output of each scan in order
+            conjInfo = new ConjunctionInfo(implInfo, assrtList, output, dbg);
 
-        clInfo = new ClosureInfo(implInfo, conjInfo, assrtList, output, dbg);
+            clInfo = new ClosureInfo(implInfo, conjInfo, assrtList, output,
+                dbg);
 
-        replInfo = new ReplaceInfo(eqInfo, implInfo, assrtList, output, dbg);
+            replInfo = new ReplaceInfo(eqInfo, implInfo, assrtList, output,
+                dbg);
 
-        assocInfo = new AssociativeInfo(eqInfo, clInfo, replInfo, assrtList,
-            output, dbg);
+            assocInfo = new AssociativeInfo(eqInfo, clInfo, replInfo,
+                assrtList, output, dbg);
 
-        comInfo = new CommutativeInfo(eqInfo, clInfo, assrtList, output, dbg);
+            comInfo = new CommutativeInfo(eqInfo, clInfo, assrtList, output,
+                dbg);
+        }
+        else {
+            // the remaining scans only read the tables built before them:
+            // the replace rules are scanned while the conjunction and closure
+            // rules are, then the commutative while the associative ones are
+            final EquivalenceInfo eq = eqInfo;
+            final ImplicationInfo impl = implInfo;
+            final ExecutorService pool = Executors.newSingleThreadExecutor();
+            try {
+                final Future<ReplaceInfo> repl = pool.submit(
+                    () -> new ReplaceInfo(eq, impl, assrtList, output, dbg));
+
+                conjInfo = new ConjunctionInfo(implInfo, assrtList, output,
+                    dbg);
+
+                clInfo = new ClosureInfo(implInfo, conjInfo, assrtList, output,
+                    dbg);
+
+                replInfo = getResult(repl);
+
+                final ClosureInfo cl = clInfo;
+                final Future<CommutativeInfo> com = pool.submit(
+                    () -> new CommutativeInfo(eq, cl, assrtList, output, dbg));
+
+                assocInfo = new AssociativeInfo(eqInfo, clInfo, replInfo,
+                    assrtList, output, dbg);
+
+                comInfo = getResult(com);
+            } finally {
+                pool.shutdownNow();
+            }
+        }
 
         provers = new ArrayList<>();
 
+        canonicalForms = new CanonicalFormCache(this);
+
         setUpProvers(assrtList);
     }
 
+    private static <T> T getResult(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
     private void setUpProvers(final List<Assrt> assrtList) {
         if (proofAsst.macroManager != null) {
             proofAsst.macroManager.set("trManager", this);
@@ -161,13 +217,24 @@ public class TransformationManager {
                         continue assrtLoop;
                 extraProvers.add(new Provers.UseWhenPossible(assrt));
             }
+        // a prover can only prove a conclusion with the same root syntax
+        // axiom, unless its own conclusion is a variable
+        final Map<Stmt, List<AssrtProver>> byRoot = new HashMap<>();
+        for (final AssrtProver p2 : extraProvers)
+            byRoot.computeIfAbsent(p2.assrt.getExprParseTree().getRoot().stmt,
+                k -> new ArrayList<>()).add(p2);
         final Map<Assrt, List<AssrtProver>> map = new HashMap<>();
-        for (final AssrtProver p : extraProvers)
-            for (final AssrtProver p2 : extraProvers)
+        for (final AssrtProver p : extraProvers) {
+            final Stmt root = p.assrt.getExprParseTree().getRoot().stmt;
+            final List<AssrtProver> candidates = root instanceof VarHyp
+                ? extraProvers
+                : byRoot.getOrDefault(root, Collections.emptyList());
+            for (final AssrtProver p2 : candidates)
                 if (p2 != p && p.prove(null,
                     p2.assrt.getExprParseTree().getRoot()) != null)
                     map.computeIfAbsent(p.assrt, k -> new ArrayList<>())
                         .add(p2);
+        }
 
         final TopologicalSorter<AssrtProver> sorter = new TopologicalSorter<>(
             extraProvers,
@@ -242,10 +309,11 @@ public class TransformationManager {
         throw new IllegalStateException(new VerifyException(
             TrConstants.ERRMSG_ILLEGAL_STATE_IN_CREATE_TRANSFORMATION));
     }
+
     public ParseNode getCanonicalForm(final ParseNode originalNode,
         final WorksheetInfo info)
     {
-        return createTransformation(originalNode, info).getCanonicalNode(info);
+        return canonicalForms.get(originalNode, info).node;
     }
 
     // ------------------------------------------------------------------------
@@ -311,12 +379,12 @@ public class TransformationManager {
         if (implAssrt == null)
             return null;
 
-        final Transformation dsTr = createTransformation(derivRoot, info);
         // Get canonical form for destination statement
-        final ParseNode dsCanonicalForm = dsTr.getCanonicalNode(info);
+        final ParseNodeHashElem dsCanonicalForm = canonicalForms.get(derivRoot,
+            info);
 
         output.dbgMessage(dbg, TrConstants.ERRMSG_CANONICAL_FORM,
-            info.derivStep, getFormula(dsCanonicalForm));
+            info.derivStep, getFormula(dsCanonicalForm.node));
 
         for (final ProofWorkStmt proofWorkStmtObject : info.proofWorksheet
             .getProofWorkStmtList())
@@ -332,13 +400,13 @@ public class TransformationManager {
             if (candidate.formulaParseTree == null)
                 continue;
 
-            final ParseNode candCanon = getCanonicalForm(
-                candidate.formulaParseTree.getRoot(), info);
+            final ParseNodeHashElem candCanon = canonicalForms
+                .get(candidate.formulaParseTree.getRoot(), info);
             output.dbgMessage(dbg, TrConstants.ERRMSG_CANONICAL_FORM, candidate,
-                getFormula(candCanon));
+                getFormula(candCanon.node));
 
             // Compare canonical forms for destination and for candidate
-            if (dsCanonicalForm.isDeepDup(candCanon)) {
+            if (dsCanonicalForm.equals(candCanon)) {
                 output.dbgMessage(dbg,
                     TrConstants.ERRMSG_CANONICAL_CORRESPONDENCE, candidate,
                     info.derivStep);
@@ -64,6 +64,22 @@ import mmj.verify.VerifyProofs;
         return getOrCreateProofStepStmt(root, null, null);
     }
 
+    /**
+     * Same as {@link #getProofStepStmt(ParseNode)}, but the lookup is not
+     * recorded for the canonical forms being computed.
+     *
+     * @param root searched expression
+     * @return an existed step with root equals to "root" or null
+     */
+    public ProofStepStmt findProofStepStmt(final ParseNode root) {
+        final ParseTree tree = new ParseTree(root);
+        final Formula generatedFormula = verifyProofs
+            .convertRPNToFormula(tree.convertToRPN(), "tree");
+        generatedFormula.setTyp(provableLogicStmtTyp);
+        return proofWorksheet.findMatchingStepFormula(generatedFormula,
+            derivStep);
+    }
+
     /**
      * @param root searched expression
      * @param hyps hypotheses needed for result step construction (could be null
@@ -100,6 +116,8 @@ import mmj.verify.VerifyProofs;
         if (get) {
             final ProofStepStmt findMatchingStepFormula = proofWorksheet
                 .findMatchingStepFormula(generatedFormula, derivStep);
+            trManager.canonicalForms.recordLookup(root,
+                findMatchingStepFormula != null);
 
             if (findMatchingStepFormula != null)
                 return findMatchingStepFormula;
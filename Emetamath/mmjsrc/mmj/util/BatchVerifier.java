@@ -0,0 +1,432 @@
+package mmj.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import mmj.gmff.GMFFManager;
+import mmj.lang.*;
+import mmj.mmio.MMIOException;
+import mmj.mmio.Source.FileSource;
+import mmj.mmio.Systemizer;
+import mmj.verify.BuildSnapshot;
+import mmj.verify.Grammar;
+import mmj.verify.VerifyException;
+import mmj.verify.VerifyProofs;
+
+/**
+ * BatchVerifier loads, parses and verifies a Metamath database from the
+ * command line, without the Eclipse workspace nor the RunParm file of
+ * {@link BatchMMJ2}, typically on a continuous integration server.
+ * <p>
+ * Command line:
+ *
+ * <pre>
+ * java mmj.util.BatchVerifier [-threads n] [-snapshot file] [-json file]
+ *     [-junit file] [-provable typecode] [-logic typecode] [-maxErrors n]
+ *     file.mm
+ * </pre>
+ * <ul>
+ * <li>{@code -threads}: the number of threads parsing the formulas and
+ * verifying the proofs, by default one per processor;
+ * <li>{@code -snapshot}: a build snapshot file, see {@link BuildSnapshot}. If
+ * it matches the database, the parse trees are restored from it, and the
+ * proofs, already verified against the same sources, are not verified again.
+ * Otherwise, it is written once the database is parsed and verified without
+ * error;
+ * <li>{@code -json} and {@code -junit}: files where the results are written,
+ * as JSON or JUnit XML, with the timings of each phase;
+ * <li>{@code -provable} and {@code -logic}: the provable and logic statement
+ * type codes, "|-" and "wff" by default;
+ * <li>{@code -maxErrors}: the maximum number of error messages kept.
+ * </ul>
+ * The error messages are printed to the standard error stream, and a summary
+ * to the standard output. The exit code is 0 if the database was verified
+ * without error, 1 if errors were found and 2 for a usage error.
+ */
+public class BatchVerifier {
+
+    private static final String[] PHASES = {"load", "grammar", "parse",
+            "verify"};
+
+    private String provableType = "|-";
+    private String logicType = "wff";
+    private int nbrThreads = Runtime.getRuntime().availableProcessors();
+    private int maxErrors = LangConstants.MAX_ERROR_MESSAGES_DEFAULT;
+    private final File database;
+    private File snapshotFile;
+    private File jsonFile;
+    private File junitFile;
+
+    private final Messages messages;
+    private final List<Phase> phases = new ArrayList<>();
+    private LogicalSystem logicalSystem;
+    private Systemizer systemizer;
+    private Grammar grammar;
+    private VerifyProofs verifyProofs;
+    private boolean snapshotRestored;
+    private boolean snapshotSaved;
+
+    /**
+     * One phase of the verification, with its timing and the error messages
+     * it produced.
+     */
+    private static class Phase {
+        final String name;
+        final long startNanos = System.nanoTime();
+        long elapsedNanos;
+        boolean skipped;
+        List<String> errors = new ArrayList<>();
+
+        Phase(final String name) {
+            this.name = name;
+        }
+    }
+
+    private BatchVerifier(final String[] args) {
+        String database = null;
+        for (int i = 0; i < args.length; i++)
+            switch (args[i]) {
+                case "-threads":
+                    nbrThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "-snapshot":
+                    snapshotFile = new File(args[++i]);
+                    break;
+                case "-json":
+                    jsonFile = new File(args[++i]);
+                    break;
+                case "-junit":
+                    junitFile = new File(args[++i]);
+                    break;
+                case "-provable":
+                    provableType = args[++i];
+                    break;
+                case "-logic":
+                    logicType = args[++i];
+                    break;
+                case "-maxErrors":
+                    maxErrors = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    if (database != null || args[i].startsWith("-"))
+                        throw new IllegalArgumentException(args[i]);
+                    database = args[i];
+            }
+        if (database == null)
+            throw new IllegalArgumentException("no database");
+        this.database = new File(database);
+        messages = new Messages(maxErrors,
+            LangConstants.MAX_INFO_MESSAGES_DEFAULT);
+    }
+
+    /**
+     * Main function interfacing to Java environment, running the
+     * BatchVerifier.
+     *
+     * @param args see class description.
+     */
+    public static void main(final String[] args) {
+        final BatchVerifier verifier;
+        try {
+            verifier = new BatchVerifier(args);
+        } catch (final RuntimeException e) {
+            System.err.println("Usage: java mmj.util.BatchVerifier"
+                + " [-threads n] [-snapshot file] [-json file] [-junit file]"
+                + " [-provable typecode] [-logic typecode] [-maxErrors n]"
+                + " file.mm");
+            System.exit(2);
+            return;
+        }
+        System.exit(verifier.run() ? 0 : 1);
+    }
+
+    /**
+     * Runs the phases, until one fails, then reports the results.
+     *
+     * @return true if the database was verified without error.
+     */
+    private boolean run() {
+        final long startNanos = System.nanoTime();
+        byte[] snapshotKey = null;
+        if (runPhase("load", this::load)
+            && runPhase("grammar", this::initializeGrammar))
+        {
+            snapshotKey = restoreSnapshot();
+            if (snapshotRestored) {
+                skipPhase("parse");
+                skipPhase("verify");
+            }
+            else if (runPhase("parse", this::parse))
+                runPhase("verify", this::verify);
+        }
+        final boolean success = phases.size() == PHASES.length
+            && phases.stream().allMatch(phase -> phase.errors.isEmpty());
+        if (success && !snapshotRestored)
+            saveSnapshot(snapshotKey);
+        final long elapsedNanos = System.nanoTime() - startNanos;
+
+        for (final Phase phase : phases)
+            for (final String error : phase.errors)
+                System.err.println(error);
+        System.out.println(summary(success, elapsedNanos));
+        try {
+            if (jsonFile != null)
+                write(jsonFile, toJSON(success, elapsedNanos).toString(2));
+            if (junitFile != null)
+                write(junitFile, toJUnitXML(elapsedNanos));
+        } catch (final IOException e) {
+            System.err.println(e);
+            return false;
+        }
+        return success;
+    }
+
+    /**
+     * A phase of the verification.
+     */
+    private interface PhaseTask {
+        void run() throws Exception;
+    }
+
+    /**
+     * Runs a phase, collecting the error messages it produced.
+     *
+     * @param name the name of the phase.
+     * @param task the work of the phase.
+     * @return true if the phase completed without error.
+     */
+    private boolean runPhase(final String name, final PhaseTask task) {
+        final Phase phase = new Phase(name);
+        phases.add(phase);
+        try {
+            task.run();
+        } catch (final Exception e) {
+            phase.errors.add(e.getMessage() != null ? e.getMessage()
+                : e.toString());
+        }
+        phase.elapsedNanos = System.nanoTime() - phase.startNanos;
+        phase.errors.addAll(Arrays.asList(messages.getErrorMessageArray())
+            .subList(0, messages.getErrorMessageCnt()));
+        messages.clearMessages();
+        return phase.errors.isEmpty();
+    }
+
+    private void skipPhase(final String name) {
+        final Phase phase = new Phase(name);
+        phase.skipped = true;
+        phases.add(phase);
+    }
+
+    private void load() throws MMIOException {
+        final GMFFManager gmffManager = new GMFFManager(null, messages);
+        final BookManager bookManager = new BookManager(true, provableType);
+        logicalSystem = new LogicalSystem(provableType, logicType,
+            gmffManager, bookManager, new SeqAssigner(),
+            LangConstants.SYM_TBL_INITIAL_SIZE_DEFAULT,
+            LangConstants.STMT_TBL_INITIAL_SIZE_DEFAULT, null, null);
+        systemizer = new Systemizer();
+        systemizer.init(messages, logicalSystem, 0, null, false, true);
+        systemizer.setLoadProgress(Progress.NONE);
+        systemizer.load(new FileSource(database));
+    }
+
+    private void initializeGrammar() throws VerifyException {
+        grammar = new Grammar(new String[]{provableType},
+            new String[]{logicType});
+        grammar.setNbrThreads(nbrThreads);
+        grammar.initializeGrammar(messages, logicalSystem.getSymTbl(),
+            logicalSystem.getStmtTbl());
+    }
+
+    private void parse() {
+        grammar.parseAllFormulas(messages, logicalSystem.getSymTbl(),
+            logicalSystem.getStmtTbl(), Progress.NONE);
+    }
+
+    private void verify() {
+        verifyProofs = new VerifyProofs();
+        verifyProofs.setNbrThreads(nbrThreads);
+        verifyProofs.setVerifyProgress(Progress.NONE);
+        verifyProofs.verifyAllProofs(messages, logicalSystem.getStmtTbl());
+    }
+
+    /**
+     * Restores the parse trees from the snapshot file, if any and if it
+     * matches the sources loaded.
+     *
+     * @return the snapshot key of the sources loaded, or null if there is no
+     *         snapshot file or the sources cannot be read again.
+     */
+    private byte[] restoreSnapshot() {
+        if (snapshotFile == null)
+            return null;
+        try {
+            final byte[] key = BuildSnapshot.computeKey(
+                systemizer.getLoadedSources(), provableType, logicType);
+            snapshotRestored = BuildSnapshot.restore(snapshotFile, key,
+                logicalSystem.getStmtTbl(), grammar);
+            return key;
+        } catch (final IOException e) {
+            System.err.println(e);
+            return null;
+        }
+    }
+
+    private void saveSnapshot(final byte[] key) {
+        if (key == null)
+            return;
+        try {
+            BuildSnapshot.write(snapshotFile, key, logicalSystem.getStmtTbl());
+            snapshotSaved = true;
+        } catch (final IOException e) {
+            System.err.println(e);
+        }
+    }
+
+    private int getNbrTheorems() {
+        int n = 0;
+        if (logicalSystem != null)
+            for (final Stmt stmt : logicalSystem.getStmtTbl().values())
+                if (stmt instanceof Theorem)
+                    n++;
+        return n;
+    }
+
+    private int getNbrErrors() {
+        int n = 0;
+        for (final Phase phase : phases)
+            n += phase.errors.size();
+        return n;
+    }
+
+    private String summary(final boolean success, final long elapsedNanos) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(database).append(success ? ": verified" : ": FAILED")
+            .append(", ").append(getNbrErrors()).append(" errors, ")
+            .append(elapsedNanos / 1000000).append(" ms (");
+        String delim = "";
+        for (final Phase phase : phases) {
+            sb.append(delim).append(phase.name).append(' ')
+                .append(phase.skipped ? "skipped"
+                    : phase.elapsedNanos / 1000000 + " ms");
+            delim = ", ";
+        }
+        if (snapshotRestored)
+            sb.append(", snapshot restored");
+        else if (snapshotSaved)
+            sb.append(", snapshot saved");
+        return sb.append(')').toString();
+    }
+
+    private JSONObject toJSON(final boolean success, final long elapsedNanos) {
+        final JSONObject o = new JSONObject();
+        o.put("database", database.getPath());
+        o.put("success", success);
+        o.put("elapsedMillis", elapsedNanos / 1000000);
+        o.put("threads", nbrThreads);
+        if (snapshotFile != null) {
+            final JSONObject snapshot = new JSONObject();
+            snapshot.put("file", snapshotFile.getPath());
+            snapshot.put("restored", snapshotRestored);
+            snapshot.put("saved", snapshotSaved);
+            o.put("snapshot", snapshot);
+        }
+        if (logicalSystem != null) {
+            o.put("statements", logicalSystem.getStmtTbl().size());
+            o.put("theorems", getNbrTheorems());
+        }
+        if (systemizer != null)
+            o.put("tokens", systemizer.getNbrTokensRead());
+        if (grammar != null) {
+            o.put("formulasParsed", grammar.getNbrFormulasParsed());
+            o.put("parseFailures", grammar.getNbrParseFailures());
+        }
+        if (verifyProofs != null) {
+            o.put("proofsVerified", verifyProofs.getNbrProofsVerified());
+            o.put("proofStepsVerified",
+                verifyProofs.getNbrProofStepsVerified());
+        }
+        final JSONArray a = new JSONArray();
+        for (final Phase phase : phases) {
+            final JSONObject p = new JSONObject();
+            p.put("name", phase.name);
+            if (phase.skipped)
+                p.put("skipped", true);
+            else
+                p.put("elapsedMillis", phase.elapsedNanos / 1000000);
+            p.put("errors", new JSONArray(phase.errors));
+            a.put(p);
+        }
+        o.put("phases", a);
+        return o;
+    }
+
+    /**
+     * Writes the results as a JUnit XML test suite, with a test case for each
+     * phase of the verification.
+     */
+    private String toJUnitXML(final long elapsedNanos) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<testsuite name=\"").append(xml(database.getName()))
+            .append("\" tests=\"").append(PHASES.length)
+            .append("\" failures=\"")
+            .append(phases.stream().filter(p -> !p.errors.isEmpty()).count())
+            .append("\" errors=\"0\" skipped=\"")
+            .append(PHASES.length - phases.size()
+                + phases.stream().filter(p -> p.skipped).count())
+            .append("\" time=\"").append(seconds(elapsedNanos))
+            .append("\">\n");
+        for (int i = 0; i < PHASES.length; i++) {
+            final Phase phase = i < phases.size() ? phases.get(i) : null;
+            sb.append("  <testcase classname=\"")
+                .append(xml(database.getName())).append("\" name=\"")
+                .append(PHASES[i]).append("\" time=\"")
+                .append(phase == null ? "0"
+                    : seconds(phase.elapsedNanos))
+                .append('"');
+            if (phase == null || phase.skipped)
+                sb.append(">\n    <skipped/>\n  </testcase>\n");
+            else if (!phase.errors.isEmpty()) {
+                sb.append(">\n    <failure message=\"")
+                    .append(phase.errors.size()).append(" errors\">");
+                for (final String error : phase.errors)
+                    sb.append(xml(error)).append('\n');
+                sb.append("</failure>\n  </testcase>\n");
+            }
+            else
+                sb.append("/>\n");
+        }
+        return sb.append("</testsuite>\n").toString();
+    }
+
+    private static String seconds(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e9);
+    }
+
+    private static String xml(final String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;")
+            .replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    private static void write(final File file, final String contents)
+        throws IOException
+    {
+        try (Writer writer = new OutputStreamWriter(
+            new FileOutputStream(file), StandardCharsets.UTF_8))
+        {
+            writer.write(contents);
+        }
+    }
+}
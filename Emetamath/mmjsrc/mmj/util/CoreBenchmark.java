@@ -0,0 +1,682 @@
+package mmj.util;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import mmj.gmff.GMFFManager;
+import mmj.lang.*;
+import mmj.lang.ParseTree.RPNStep;
+import mmj.mmio.BlockList;
+import mmj.mmio.MMIOException;
+import mmj.mmio.Source;
+import mmj.mmio.Source.FileSource;
+import mmj.mmio.Source.StringSource;
+import mmj.mmio.SrcStmt;
+import mmj.mmio.Statementizer;
+import mmj.mmio.Systemizer;
+import mmj.mmio.Tokenizer;
+import mmj.pa.ProofAsst;
+import mmj.pa.ProofAsstPreferences;
+import mmj.pa.ProofWorksheet;
+import mmj.pa.SessionStore;
+import mmj.pa.StepUnifier;
+import mmj.search.SearchOptionsConstants;
+import mmj.search.SearchOutput;
+import mmj.verify.*;
+
+/**
+ * CoreBenchmark measures the throughput of the mmj core pipeline, without any
+ * user interface, so performance work on these paths can be measured and
+ * regressions caught.
+ * <p>
+ * Each benchmark is run a number of warmup iterations, which are not
+ * measured, then a number of measured iterations, and the minimum, mean and
+ * maximum time of the measured iterations is reported, along with the number
+ * of items processed per second, based on the minimum time:
+ * <ul>
+ * <li>{@code tokenize}: Tokenizer and Statementizer, statements read;
+ * <li>{@code load}: Systemizer.load into a new LogicalSystem, statements
+ * loaded;
+ * <li>{@code parse}: Grammar.parseAllFormulas, once with each of the
+ * EarleyParser, LRParser and BottomUpParser, formulas parsed;
+ * <li>{@code verify}: VerifyProofs.verifyOneProof, theorems verified;
+ * <li>{@code compress} and {@code decompress}: ProofCompression, proofs
+ * compressed and decompressed;
+ * <li>{@code compressCheck}: checks that ProofCompression gives the same
+ * compressed proofs as the previous algorithm, see
+ * {@link PreviousProofCompression}, at each of the widths
+ * {@link #COMPRESS_CHECK_WIDTHS}, failing on the first difference, then
+ * measures both algorithms at the usual width of a proof line, proofs
+ * compressed;
+ * <li>{@code unify}: ProofAsst.unify of the exported proof worksheet of each
+ * theorem, which runs ProofUnifier.unifyAllProofDerivationSteps, proofs
+ * unified;
+ * <li>{@code search}: SearchEngine general searches for the formulas of a
+ * sample of theorems, searches run.
+ * </ul>
+ * Command line:
+ *
+ * <pre>
+ * java mmj.util.CoreBenchmark [-warmup n] [-iterations n] [-bench b1,b2,...]
+ *     [-theorems n] [-searches n] database...
+ * </pre>
+ *
+ * Each database is either the name of a Metamath file, or
+ * {@code synthetic:n} for a generated database of {@code n} theorems, see
+ * {@link #generateSyntheticDatabase(int)}. The {@code -theorems} option limits
+ * the number of theorems used by the verify, compress, decompress,
+ * compressCheck and unify benchmarks, zero meaning all of them.
+ */
+public class CoreBenchmark {
+
+    public static final String[] BENCHMARKS = {"tokenize", "load", "parse",
+            "verify", "compress", "decompress", "compressCheck", "unify",
+            "search"};
+
+    private static final String PROVABLE_TYPE = "|-";
+    private static final String LOGIC_TYPE = "wff";
+    private static final String SYNTHETIC_PREFIX = "synthetic:";
+    private static final String[] SYNTHETIC_VARS = {"ph", "ps", "ch", "th"};
+
+    /**
+     * The proof line widths at which the compressed proofs are compared, the
+     * last one being the one measured.
+     */
+    private static final int[] COMPRESS_CHECK_WIDTHS = {20, 50, 120, 79};
+
+    private int warmup = 3;
+    private int iterations = 5;
+    private int maxTheorems = 0;
+    private int nbrSearches = 20;
+    private List<String> benchmarks = Arrays.asList(BENCHMARKS);
+    private final PrintStream out;
+
+    /**
+     * A unit of work measured by a benchmark.
+     */
+    private interface Task {
+        /**
+         * Runs one iteration.
+         *
+         * @return the number of items processed.
+         * @throws Exception if the iteration failed.
+         */
+        long run() throws Exception;
+    }
+
+    /**
+     * Supplies a new Source for the database, for each load.
+     */
+    private interface Sources {
+        Source get();
+    }
+
+    /**
+     * A proof compression algorithm, with the arguments of
+     * {@link ProofCompression#compress}.
+     */
+    private interface Compressor {
+        List<Stmt> compress(int width, List<Hyp> mandHypList,
+            List<VarHyp> optHypList, RPNStep[] proof, StringBuilder letters);
+    }
+
+    /**
+     * The LogicalSystem loaded from one database, with the grammar, proof
+     * verifier and proof assistant built on it.
+     */
+    private static class Env {
+        final Messages messages = new Messages(
+            LangConstants.MAX_ERROR_MESSAGES_DEFAULT,
+            LangConstants.MAX_INFO_MESSAGES_DEFAULT);
+        LogicalSystem logicalSystem;
+        Systemizer systemizer;
+        Grammar grammar;
+        VerifyProofs verifyProofs;
+        ProofAsstPreferences proofAsstPreferences;
+        ProofAsst proofAsst;
+        List<Theorem> theorems;
+    }
+
+    /**
+     * Construct a CoreBenchmark reporting to the given stream.
+     *
+     * @param out the stream the results are printed to.
+     */
+    public CoreBenchmark(final PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Main function interfacing to Java environment, running the benchmarks.
+     *
+     * @param args see class description.
+     */
+    public static void main(final String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        final CoreBenchmark benchmark = new CoreBenchmark(System.out);
+        final List<String> databases = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++)
+                switch (args[i]) {
+                    case "-warmup":
+                        benchmark.warmup = Integer.parseInt(args[++i]);
+                        break;
+                    case "-iterations":
+                        benchmark.iterations = Integer.parseInt(args[++i]);
+                        break;
+                    case "-theorems":
+                        benchmark.maxTheorems = Integer.parseInt(args[++i]);
+                        break;
+                    case "-searches":
+                        benchmark.nbrSearches = Integer.parseInt(args[++i]);
+                        break;
+                    case "-bench":
+                        benchmark.benchmarks = Arrays
+                            .asList(args[++i].split(","));
+                        break;
+                    default:
+                        databases.add(args[i]);
+                }
+        } catch (final RuntimeException e) {
+            databases.clear();
+        }
+        if (databases.isEmpty() || benchmark.iterations < 1
+            || !Arrays.asList(BENCHMARKS).containsAll(benchmark.benchmarks))
+        {
+            System.err.println("Usage: java mmj.util.CoreBenchmark"
+                + " [-warmup n] [-iterations n] [-bench "
+                + String.join(",", BENCHMARKS) + "]"
+                + " [-theorems n] [-searches n]"
+                + " (file.mm | " + SYNTHETIC_PREFIX + "n)...");
+            System.exit(1);
+        }
+        try {
+            for (final String database : databases)
+                benchmark.run(database);
+        } catch (final Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the selected benchmarks on one database.
+     *
+     * @param database a file name, or "synthetic:n".
+     * @throws Exception if the database could not be loaded.
+     */
+    public void run(final String database) throws Exception {
+        final String syntheticDatabase;
+        if (database.startsWith(SYNTHETIC_PREFIX))
+            syntheticDatabase = generateSyntheticDatabase(Integer
+                .parseInt(database.substring(SYNTHETIC_PREFIX.length())));
+        else
+            syntheticDatabase = null;
+        final File file = new File(database);
+
+        out.println("Database " + database + ", " + warmup + " warmup and "
+            + iterations + " measured iterations");
+        final Sources sources = () -> syntheticDatabase != null
+            ? new StringSource(syntheticDatabase, database)
+            : new FileSource(file);
+
+        if (benchmarks.contains("tokenize"))
+            measure("tokenize", "statements", () -> tokenize(sources.get()));
+
+        if (benchmarks.contains("load"))
+            measure("load", "statements", () -> load(sources.get(),
+                false).logicalSystem.getStmtTbl().size());
+
+        if (benchmarks.contains("parse"))
+            for (final Class<? extends GrammaticalParser> parser : Arrays
+                .asList(EarleyParser.class, LRParser.class,
+                    BottomUpParser.class))
+            {
+                final Env env = load(sources.get(), false);
+                initializeGrammar(env, parser);
+                measure("parse " + parser.getSimpleName(), "formulas",
+                    () -> parse(env));
+            }
+
+        if (!benchmarks.contains("verify") && !benchmarks.contains("compress")
+            && !benchmarks.contains("decompress")
+            && !benchmarks.contains("compressCheck")
+            && !benchmarks.contains("unify") && !benchmarks.contains("search"))
+            return;
+
+        final Env env = load(sources.get(), true);
+        initializeGrammar(env, null);
+        parse(env);
+        initializeProofAsst(env);
+        printMessages(env);
+
+        if (benchmarks.contains("verify"))
+            measure("verify", "proofs", () -> verify(env));
+
+        if (benchmarks.contains("compress") || benchmarks.contains("decompress"))
+        {
+            final List<Stmt[]> parenLists = new ArrayList<>();
+            final List<String> letters = new ArrayList<>();
+            compress(env, parenLists, letters);
+            if (benchmarks.contains("compress"))
+                measure("compress", "proofs",
+                    () -> compress(env, new ArrayList<>(), new ArrayList<>()));
+            if (benchmarks.contains("decompress"))
+                measure("decompress", "proofs",
+                    () -> decompress(env, parenLists, letters));
+        }
+
+        if (benchmarks.contains("compressCheck")) {
+            final ProofCompression proofCompression = env.logicalSystem
+                .getProofCompression();
+            final Compressor current = (width, mandHypList, optHypList, proof,
+                letters) -> proofCompression.compress(null, width, mandHypList,
+                    optHypList, proof, letters);
+            final Compressor previous = new PreviousProofCompression()::compress;
+            for (final int width : COMPRESS_CHECK_WIDTHS)
+                checkCompression(env, current, previous, width);
+            out.println("compressCheck: " + env.theorems.size()
+                + " compressed proofs identical at widths "
+                + Arrays.toString(COMPRESS_CHECK_WIDTHS));
+            final int width = COMPRESS_CHECK_WIDTHS[COMPRESS_CHECK_WIDTHS.length
+                - 1];
+            measure("compress width " + width, "proofs",
+                () -> compress(env, current, width));
+            measure("compress previous", "proofs",
+                () -> compress(env, previous, width));
+        }
+
+        if (benchmarks.contains("unify")) {
+            final List<String> proofTexts = new ArrayList<>();
+            for (final Theorem theorem : env.theorems) {
+                final String proofText = env.proofAsst
+                    .exportOneTheorem(theorem);
+                if (proofText != null)
+                    proofTexts.add(proofText);
+            }
+            env.messages.clearMessages();
+            measure("unify", "proofs", () -> unify(env, proofTexts));
+        }
+
+        if (benchmarks.contains("search"))
+            measure("search", "searches", () -> search(env));
+    }
+
+    /**
+     * Runs the warmup and measured iterations of a benchmark, and prints
+     * their results.
+     *
+     * @param name the name of the benchmark.
+     * @param unit the items processed by the benchmark.
+     * @param task the work measured.
+     * @throws Exception if an iteration failed.
+     */
+    private void measure(final String name, final String unit,
+        final Task task) throws Exception
+    {
+        for (int i = 0; i < warmup; i++)
+            task.run();
+        long items = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            final long start = System.nanoTime();
+            items = task.run();
+            final long elapsed = System.nanoTime() - start;
+            min = Math.min(min, elapsed);
+            max = Math.max(max, elapsed);
+            total += elapsed;
+        }
+        out.println(String.format(
+            "%-20s min %9.2f ms  mean %9.2f ms  max %9.2f ms  %10d %s"
+                + "  %12.1f %s/s",
+            name, min / 1e6, total / 1e6 / iterations, max / 1e6, items, unit,
+            items * 1e9 / min, unit));
+    }
+
+    private long tokenize(final Source source) throws Exception {
+        try (final Statementizer statementizer = new Statementizer(
+            new Tokenizer(source)))
+        {
+            long n = 0;
+            SrcStmt stmt;
+            while ((stmt = statementizer.getStmt()) != null)
+                if (stmt.label != null || stmt.keyword != null)
+                    n++;
+            return n;
+        }
+    }
+
+    private Env load(final Source source, final boolean selectTheorems)
+        throws MMIOException
+    {
+        final Env env = new Env();
+        final GMFFManager gmffManager = new GMFFManager(null, env.messages);
+        final BookManager bookManager = new BookManager(true, PROVABLE_TYPE);
+        final SeqAssigner seqAssigner = new SeqAssigner();
+        env.logicalSystem = new LogicalSystem(PROVABLE_TYPE, LOGIC_TYPE,
+            gmffManager, bookManager, seqAssigner,
+            LangConstants.SYM_TBL_INITIAL_SIZE_DEFAULT,
+            LangConstants.STMT_TBL_INITIAL_SIZE_DEFAULT, null, null);
+        env.systemizer = new Systemizer();
+        env.systemizer.init(env.messages, env.logicalSystem, 0, null, true,
+            true);
+        env.systemizer.setLoadProgress(Progress.NONE);
+        env.systemizer.load(source);
+        if (env.messages.hasErrors())
+            throw new IllegalStateException("Errors loading "
+                + source.toString() + ": "
+                + Arrays.toString(env.messages.getErrorMessageArray()));
+        env.messages.clearMessages();
+
+        if (selectTheorems) {
+            env.theorems = new ArrayList<>();
+            for (final Stmt stmt : env.logicalSystem.getStmtTbl().values())
+                if (stmt instanceof Theorem)
+                    env.theorems.add((Theorem)stmt);
+            Collections.sort(env.theorems,
+                Comparator.comparingInt(Stmt::getSeq));
+            if (maxTheorems > 0 && maxTheorems < env.theorems.size())
+                env.theorems = new ArrayList<>(
+                    env.theorems.subList(0, maxTheorems));
+        }
+        return env;
+    }
+
+    private void initializeGrammar(final Env env,
+        final Class<? extends GrammaticalParser> parser)
+            throws VerifyException
+    {
+        final String[] provableTypes = {PROVABLE_TYPE};
+        final String[] logicTypes = {LOGIC_TYPE};
+        env.grammar = parser == null
+            ? new Grammar(provableTypes, logicTypes)
+            : new Grammar(provableTypes, logicTypes,
+                GrammarConstants.DEFAULT_COMPLETE_GRAMMAR_AMBIG_EDITS,
+                GrammarConstants.DEFAULT_COMPLETE_STATEMENT_AMBIG_EDITS,
+                parser);
+        env.grammar.setStore(new SessionStore());
+        if (!env.grammar.initializeGrammar(env.messages,
+            env.logicalSystem.getSymTbl(), env.logicalSystem.getStmtTbl()))
+            throw new IllegalStateException("Errors initializing the grammar: "
+                + Arrays.toString(env.messages.getErrorMessageArray()));
+    }
+
+    private long parse(final Env env) {
+        final long nbrFormulasParsed = env.grammar.getNbrFormulasParsed();
+        env.grammar.parseAllFormulas(env.messages,
+            env.logicalSystem.getSymTbl(), env.logicalSystem.getStmtTbl(),
+            null);
+        env.messages.clearMessages();
+        return env.grammar.getNbrFormulasParsed() - nbrFormulasParsed;
+    }
+
+    private void initializeProofAsst(final Env env) throws VerifyException {
+        env.verifyProofs = new VerifyProofs();
+        env.proofAsstPreferences = new ProofAsstPreferences();
+        final WorkVarManager workVarManager = new WorkVarManager(env.grammar);
+        workVarManager.declareWorkVars(env.grammar, env.logicalSystem);
+        env.proofAsstPreferences.setWorkVarManager(workVarManager);
+        env.proofAsstPreferences
+            .setStepUnifier(new StepUnifier(workVarManager));
+        env.proofAsst = new ProofAsst(env.proofAsstPreferences,
+            env.logicalSystem, env.grammar, env.verifyProofs, null, null);
+        if (!env.proofAsst.initializeLookupTables(env.messages))
+            throw new IllegalStateException(
+                "Errors initializing the proof assistant: " + Arrays
+                    .toString(env.messages.getErrorMessageArray()));
+    }
+
+    private long verify(final Env env) {
+        long n = 0;
+        for (final Theorem theorem : env.theorems)
+            if (env.verifyProofs.verifyOneProof(theorem) == null)
+                n++;
+        return n;
+    }
+
+    private long compress(final Env env, final List<Stmt[]> parenLists,
+        final List<String> lettersList)
+    {
+        final ProofCompression proofCompression = env.logicalSystem
+            .getProofCompression();
+        for (final Theorem theorem : env.theorems) {
+            final List<Hyp> mandHypList = Arrays
+                .asList(theorem.getMandFrame().hypArray);
+            final List<VarHyp> optHypList = new ArrayList<>();
+            for (final Hyp hyp : theorem.getOptFrame().hypArray)
+                if (hyp instanceof VarHyp)
+                    optHypList.add((VarHyp)hyp);
+            final StringBuilder letters = new StringBuilder();
+            final List<Stmt> parenList = proofCompression.compress(
+                theorem.getLabel(), Integer.MAX_VALUE, mandHypList, optHypList,
+                theorem.getProof(), letters);
+            parenLists.add(parenList.toArray(new Stmt[parenList.size()]));
+            lettersList.add(letters.toString().replaceAll("\\s", ""));
+        }
+        return env.theorems.size();
+    }
+
+    private long compress(final Env env, final Compressor compressor,
+        final int width)
+    {
+        for (final Theorem theorem : env.theorems)
+            compress(theorem, compressor, width, new StringBuilder());
+        return env.theorems.size();
+    }
+
+    private static List<Stmt> compress(final Theorem theorem,
+        final Compressor compressor, final int width,
+        final StringBuilder letters)
+    {
+        final List<VarHyp> optHypList = new ArrayList<>();
+        for (final Hyp hyp : theorem.getOptFrame().hypArray)
+            if (hyp instanceof VarHyp)
+                optHypList.add((VarHyp)hyp);
+        return compressor.compress(width,
+            Arrays.asList(theorem.getMandFrame().hypArray), optHypList,
+            theorem.getProof(), letters);
+    }
+
+    /**
+     * Compresses the proof of each theorem with both algorithms, and checks
+     * that the parenthesized statements and the letters are the same.
+     *
+     * @throws IllegalStateException on the first difference.
+     */
+    private void checkCompression(final Env env, final Compressor current,
+        final Compressor previous, final int width)
+    {
+        for (final Theorem theorem : env.theorems) {
+            final StringBuilder letters = new StringBuilder();
+            final StringBuilder previousLetters = new StringBuilder();
+            final List<Stmt> parenList = compress(theorem, current, width,
+                letters);
+            final List<Stmt> previousParenList = compress(theorem, previous,
+                width, previousLetters);
+            if (!parenList.equals(previousParenList)
+                || !letters.toString().equals(previousLetters.toString()))
+                throw new IllegalStateException("The compressed proof of "
+                    + theorem.getLabel() + " at width " + width
+                    + " differs from the previous algorithm: " + parenList
+                    + " " + letters + " instead of " + previousParenList + " "
+                    + previousLetters);
+        }
+    }
+
+    private long decompress(final Env env, final List<Stmt[]> parenLists,
+        final List<String> lettersList) throws LangException
+    {
+        final ProofCompression proofCompression = env.logicalSystem
+            .getProofCompression();
+        long n = 0;
+        for (int i = 0; i < env.theorems.size(); i++) {
+            final Theorem theorem = env.theorems.get(i);
+            final List<String> otherRefList = new ArrayList<>();
+            for (final Stmt stmt : parenLists.get(i))
+                otherRefList.add(stmt.getLabel());
+            final RPNStep[] proof = proofCompression.decompress(
+                theorem.getLabel(), theorem.getSeq(),
+                env.logicalSystem.getStmtTbl(),
+                theorem.getMandFrame().hypArray,
+                theorem.getOptFrame().hypArray, otherRefList,
+                new BlockList(lettersList.get(i)), null, env.messages);
+            n += proof.length > 0 ? 1 : 0;
+        }
+        return n;
+    }
+
+    private long unify(final Env env, final List<String> proofTexts) {
+        long n = 0;
+        for (final String proofText : proofTexts) {
+            final ProofWorksheet proofWorksheet = env.proofAsst.unify(false,
+                true, proofText, null, null, null, -1, false);
+            if (proofWorksheet.getGeneratedProofStmt() != null)
+                n++;
+        }
+        env.messages.clearMessages();
+        return n;
+    }
+
+    private long search(final Env env) {
+        final List<Theorem> theorems = env.theorems;
+        final int step = Math.max(1, theorems.size() / nbrSearches);
+        long n = 0;
+        for (int i = 0; i < theorems.size() && n < nbrSearches; i += step) {
+            final Theorem theorem = theorems.get(i);
+            final SearchOutput searchOutput = env.proofAsstPreferences
+                .getSearchMgr().execGeneralSearch(theorem,
+                    SearchOptionsConstants.FORMAT_VALUES[0],
+                    SearchOptionsConstants.OPER_VALUES_NOT_TREE[0],
+                    searchFragment(theorem.getFormula()));
+            if (searchOutput.getSearchReturnCode() == 0)
+                n++;
+        }
+        env.messages.clearMessages();
+        return n;
+    }
+
+    /**
+     * @return the first innermost parenthesized part of the formula, or the
+     *         whole expression if there is none.
+     */
+    private static String searchFragment(final Formula formula) {
+        final Sym[] expr = formula.getExpr();
+        int start = -1;
+        for (int i = 0; i < expr.length; i++)
+            if (expr[i].getId().equals("("))
+                start = i;
+            else if (expr[i].getId().equals(")") && start >= 0) {
+                final StringBuilder sb = new StringBuilder();
+                for (int j = start; j <= i; j++)
+                    sb.append(j == start ? "" : " ").append(expr[j].getId());
+                return sb.toString();
+            }
+        return formula.exprToString();
+    }
+
+    private void printMessages(final Env env) {
+        if (env.messages.getErrorMessageCnt() > 0)
+            env.messages.printErrorMessages(out);
+        env.messages.clearMessages();
+    }
+
+    /**
+     * Generates a Metamath database in the implicational fragment of
+     * propositional calculus.
+     * <p>
+     * The theorems come in groups of four: an instance of ax-1, two theorems
+     * each deduced from the previous one with ax-1 and ax-mp, and a deduction
+     * from a hypothesis. Their formulas are built randomly, with a fixed seed
+     * so the same database is generated each time.
+     *
+     * @param nbrTheorems the number of theorems generated.
+     * @return the text of the database.
+     */
+    public static String generateSyntheticDatabase(final int nbrTheorems) {
+        final Random random = new Random(nbrTheorems);
+        final StringBuilder sb = new StringBuilder();
+        sb.append("$( Synthetic database of ").append(nbrTheorems)
+            .append(" theorems $)\n\n");
+        sb.append("$c ( ) -> wff |- $.\n");
+        sb.append("$v ph ps ch th $.\n");
+        for (final String v : SYNTHETIC_VARS)
+            sb.append("w").append(v).append(" $f wff ").append(v)
+                .append(" $.\n");
+        sb.append("wi $a wff ( ph -> ps ) $.\n");
+        sb.append("${\n  min $e |- ph $.\n  maj $e |- ( ph -> ps ) $.\n");
+        sb.append("  ax-mp $a |- ps $.\n$}\n");
+        sb.append("ax-1 $a |- ( ph -> ( ps -> ph ) ) $.\n\n");
+
+        // the formula proved by the previous theorem, and its RPN
+        String[] prev = null;
+        for (int i = 0; i < nbrTheorems; i++) {
+            final String label = "th" + i;
+            final String[] a = randomWff(random, 3);
+            final String[] b = randomWff(random, 2);
+            final String[] formula;
+            final StringBuilder proof = new StringBuilder();
+            sb.append("$( Synthetic theorem ").append(i).append(" $)\n");
+            switch (i % 4) {
+                case 0:
+                    // |- ( A -> ( B -> A ) )
+                    formula = imp(a, imp(b, a));
+                    proof.append(a[1]).append(b[1]).append("ax-1 ");
+                    break;
+                case 3:
+                    // from |- A, |- ( B -> A )
+                    formula = imp(b, a);
+                    sb.append("${\n  ").append(label).append(".1 $e |- ")
+                        .append(a[0]).append(" $.\n  ");
+                    proof.append(a[1]).append(formula[1]).append(label)
+                        .append(".1 ").append(a[1]).append(b[1])
+                        .append("ax-1 ax-mp ");
+                    break;
+                default:
+                    // from the previous theorem P, |- ( B -> P )
+                    formula = imp(b, prev);
+                    proof.append(prev[1]).append(formula[1]);
+                    for (final String v : SYNTHETIC_VARS)
+                        if ((" " + prev[0] + " ").contains(" " + v + " "))
+                            proof.append("w").append(v).append(" ");
+                    proof.append("th").append(i - 1).append(" ")
+                        .append(prev[1]).append(b[1])
+                        .append("ax-1 ax-mp ");
+            }
+            sb.append(label).append(" $p |- ").append(formula[0])
+                .append(" $=\n    ").append(proof).append("$.\n");
+            if (i % 4 == 3)
+                sb.append("$}\n");
+            prev = formula;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return a random formula, and its RPN, of at most the given depth.
+     */
+    private static String[] randomWff(final Random random, final int depth) {
+        if (depth == 0 || random.nextInt(4) == 0) {
+            final String v = SYNTHETIC_VARS[random
+                .nextInt(SYNTHETIC_VARS.length)];
+            return new String[]{v, "w" + v + " "};
+        }
+        return imp(randomWff(random, depth - 1),
+            randomWff(random, depth - 1));
+    }
+
+    /**
+     * @return the implication of two formulas, and its RPN.
+     */
+    private static String[] imp(final String[] a, final String[] b) {
+        return new String[]{"( " + a[0] + " -> " + b[0] + " )",
+                a[1] + b[1] + "wi "};
+    }
+}
@@ -62,6 +62,7 @@ public class GMFFBoss extends Boss {
         putCommand(RUNPARM_GMFF_EXPORT_FROM_FOLDER,
             this::doGMFFExportFromFolder);
         putCommand(RUNPARM_GMFF_EXPORT_THEOREM, this::doGMFFExportTheorem);
+        putCommand(RUNPARM_GMFF_EXPORT_THREADS, this::doGMFFExportThreads);
     }
 
     /**
@@ -206,4 +207,11 @@ public class GMFFBoss extends Boss {
         batchFramework.outputBoss.printAndClearMessages();
         return;
     }
+
+    public void doGMFFExportThreads() {
+        getGMFFManager().setNbrThreads(getPosInt(1));
+
+        batchFramework.outputBoss.printAndClearMessages();
+        return;
+    }
 }
@@ -65,6 +65,9 @@ public class LogicalSystemBoss extends Boss {
     protected boolean loadComments;
     protected boolean loadProofs;
 
+    protected boolean lazyProofDecompressionParm;
+    protected int proofCacheSizeParm;
+
     protected LogicalSystem logicalSystem;
 
     protected Systemizer systemizer;
@@ -93,6 +96,8 @@ public class LogicalSystemBoss extends Boss {
             this::editLoadEndpointStmtNbr);
         putCommand(RUNPARM_LOAD_COMMENTS, this::editLoadComments);
         putCommand(RUNPARM_LOAD_PROOFS, this::editLoadProofs);
+        putCommand(RUNPARM_LAZY_PROOF_DECOMPRESSION,
+            this::editLazyProofDecompression);
 
         putCommand(RUNPARM_PROVABLE_LOGIC_STMT_TYPE,
             this::editProvableLogicStmtType);
@@ -132,6 +137,9 @@ public class LogicalSystemBoss extends Boss {
         loadComments = MMIOConstants.LOAD_COMMENTS_DEFAULT;
         loadProofs = MMIOConstants.LOAD_PROOFS_DEFAULT;
 
+        lazyProofDecompressionParm = LangConstants.LAZY_PROOF_DECOMPRESSION_DEFAULT;
+        proofCacheSizeParm = LangConstants.PROOF_CACHE_SIZE_DEFAULT;
+
         provableLogicStmtTypeParm = GrammarConstants.DEFAULT_PROVABLE_LOGIC_STMT_TYP_CODES[0];
 
         logicStmtTypeParm = GrammarConstants.DEFAULT_LOGIC_STMT_TYP_CODES[0];
@@ -217,6 +225,8 @@ public class LogicalSystemBoss extends Boss {
             logicalSystem.setProofVerifier(null);
             logicalSystem.clearTheoremLoaderCommitListenerList();
         }
+        logicalSystem.setLazyProofDecompression(lazyProofDecompressionParm,
+            proofCacheSizeParm);
 
         if (systemizer == null)
             systemizer = new Systemizer();
@@ -332,6 +342,20 @@ public class LogicalSystemBoss extends Boss {
             throw error(ERRMSG_LOGIC_TYP_CD_BOGUS);
     }
 
+    /**
+     * Validate Lazy Proof Decompression Parameters.
+     * <p>
+     * First field must equal yes or no, the optional second field is the
+     * ProofCache size, a non-negative integer.
+     *
+     * @throws IllegalArgumentException if an error occurred
+     */
+    protected void editLazyProofDecompression() {
+        lazyProofDecompressionParm = getYesNo(1);
+        proofCacheSizeParm = runParm.values.length > 1 ? getNonnegInt(2)
+            : LangConstants.PROOF_CACHE_SIZE_DEFAULT;
+    }
+
     /**
      * Validate Book Manager Enabled Parameter.
      * <p>
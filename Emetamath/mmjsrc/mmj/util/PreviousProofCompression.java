@@ -0,0 +1,170 @@
+package mmj.util;
+
+import java.util.*;
+
+import mmj.lang.*;
+import mmj.lang.ParseTree.RPNStep;
+
+/**
+ * The proof compression of {@link ProofCompression#compress} as it was before
+ * its lookups were hash-indexed and its knapsack rewritten, kept unchanged
+ * apart from the initial capacity of a queue.
+ * <p>
+ * The compressed proofs must stay byte-identical: the {@code compressCheck}
+ * benchmark of {@link CoreBenchmark} compares both implementations on every
+ * theorem of a database, and measures their speed.
+ * <p>
+ * This class has local package visibility.
+ */
+/*local*/class PreviousProofCompression {
+
+    /**
+     * Compresses a proof, see {@link ProofCompression#compress}.
+     *
+     * @param width the width of the proof lines.
+     * @param mandHypArray the mandatory hypotheses of the theorem.
+     * @param optHypArray the optional hypotheses of the theorem.
+     * @param rpnProof the proof to compress.
+     * @param letters the letters of the compressed proof are appended to this.
+     * @return the statements of the parenthesized portion of the proof.
+     */
+    public List<Stmt> compress(final int width, final List<Hyp> mandHypArray,
+        final List<VarHyp> optHypArray, final RPNStep[] rpnProof,
+        final StringBuilder letters)
+    {
+        final List<Stmt> parenStmt = new ArrayList<>();
+        int linePos = 2;
+        final List<Stmt> proofOrdered = new ArrayList<>();
+        final List<Integer> proofOrdBackrefs = new ArrayList<>();
+        for (final RPNStep s : rpnProof)
+            if (s != null && s.backRef <= 0 && s.stmt != null
+                && !mandHypArray.contains(s.stmt)
+                && !parenStmt.contains(s.stmt))
+            {
+                final int i = proofOrdered.indexOf(s.stmt);
+                if (i >= 0)
+                    proofOrdBackrefs.set(i, proofOrdBackrefs.get(i) + 1);
+                else {
+                    proofOrdered.add(s.stmt);
+                    proofOrdBackrefs.add(1);
+                }
+            }
+        int hyps = 0;
+        for (int i = 0; i < proofOrdered.size(); i++)
+            if (proofOrdered.get(i) instanceof Hyp) {
+                proofOrdered.add(hyps, proofOrdered.remove(i));
+                proofOrdBackrefs.add(hyps++, proofOrdBackrefs.remove(i));
+            }
+        final int[] values = new int[proofOrdered.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = proofOrdered.get(i).getLabel().length() + 1;
+        // the only change: the previous code failed on proofs referencing
+        // only mandatory hypotheses, with an initial capacity of 0
+        final PriorityQueue<Integer> sortedByBackrefs = new PriorityQueue<>(
+            Math.max(1, proofOrdered.size()), new Comparator<Integer>()
+        {
+                public int compare(final Integer a, final Integer b) {
+                    final int i = proofOrdBackrefs.get(b)
+                        - proofOrdBackrefs.get(a);
+                    return i == 0 ? a - b : i;
+                }
+            });
+        for (int i = 0; i < proofOrdered.size(); i++)
+            sortedByBackrefs.add(i);
+        int i = mandHypArray.size() + parenStmt.size();
+        int cutoff = LangConstants.COMPRESS_LOW_BASE;
+        while (cutoff <= i) {
+            i -= cutoff;
+            cutoff *= LangConstants.COMPRESS_HIGH_BASE;
+        }
+        Integer pos;
+        final List<Integer> lengthBlock = new LinkedList<>();
+        while ((pos = sortedByBackrefs.poll()) != null) {
+            if (i++ == cutoff) {
+                i = 1;
+                cutoff *= LangConstants.COMPRESS_HIGH_BASE;
+                linePos = processBlock(parenStmt, proofOrdered, values,
+                    lengthBlock, width, linePos);
+            }
+            lengthBlock.add(pos);
+        }
+        processBlock(parenStmt, proofOrdered, values, lengthBlock, width,
+            linePos);
+        for (final RPNStep s : rpnProof) {
+            if (s == null) {
+                letters.append((char)LangConstants.COMPRESS_UNKNOWN_CHAR);
+                continue;
+            }
+            int letter = 0;
+            if (s.backRef > 0)
+                letter = mandHypArray.size() + parenStmt.size() + s.backRef;
+            else {
+                int index = mandHypArray.indexOf(s.stmt);
+                if (index != -1)
+                    letter = index + 1;
+                else {
+                    index = parenStmt.indexOf(s.stmt);
+                    if (index == -1)
+                        throw new RuntimeException("shouldn't happen");
+                    letter = mandHypArray.size() + index + 1;
+                }
+            }
+            String code = ""
+                + (char)LangConstants.COMPRESS_LOW_DIGIT_CHARS[(letter - 1)
+                    % LangConstants.COMPRESS_LOW_BASE];
+            letter = (letter - 1) / LangConstants.COMPRESS_LOW_BASE;
+            while (letter > 0) {
+                code = (char)LangConstants.COMPRESS_HIGH_DIGIT_CHARS[(letter
+                    - 1) % LangConstants.COMPRESS_HIGH_BASE] + code;
+                letter = (letter - 1) / LangConstants.COMPRESS_HIGH_BASE;
+            }
+            if (s.backRef < 0)
+                code += (char)LangConstants.COMPRESS_REPEAT_CHAR;
+            letters.append(code);
+        }
+        return parenStmt;
+    }
+
+    private int processBlock(final List<Stmt> parenStmt,
+        final List<Stmt> proofOrdered, final int[] values,
+        final List<Integer> list, final int width, int linePos)
+    {
+        Collections.sort(list); // restart with proof order
+        while (!list.isEmpty()) {
+            boolean noSpace = true;
+            for (final Integer p : knapsackFit(list, values, width - linePos)) {
+                noSpace = false;
+                final Stmt s = proofOrdered.get(p);
+                final int l = s.getLabel().length() + 1;
+                linePos += l;
+                list.remove(p);
+                parenStmt.add(s);
+            }
+            if (noSpace || linePos >= width - 1)
+                linePos = 0;
+        }
+        return linePos;
+    }
+
+    private Deque<Integer> knapsackFit(final List<Integer> items,
+        final int[] values, final int size)
+    {
+        final int[][] worth = new int[items.size() + 1][size + 1];
+        for (int i = 0; i < items.size(); i++) {
+            final int value = values[items.get(i)];
+            for (int s = 0; s <= size; s++)
+                worth[i + 1][s] = s >= value
+                    ? Math.max(worth[i][s], value + worth[i][s - value])
+                    : worth[i][s];
+        }
+        final Deque<Integer> included = new ArrayDeque<>();
+        int s = size;
+        for (int i = items.size() - 1; i >= 0; i--)
+            if (worth[i + 1][s] != worth[i][s]) {
+                included.push(items.get(i));
+                if ((s -= values[items.get(i)]) == 0)
+                    break;
+            }
+        return included;
+    }
+}
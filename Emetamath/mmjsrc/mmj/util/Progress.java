@@ -4,6 +4,17 @@ package mmj.util;
  * An interface designed to monitor the progress of the file loading or proof verifying
  */
 public interface Progress {
+    /**
+     * A Progress ignoring all notifications, for batch use.
+     */
+    public static final Progress NONE = new Progress() {
+        @Override
+        public void addTask(final long work) {}
+
+        @Override
+        public void worked(final long work) {}
+    };
+
     // TODO handle interruptions, e.g. by throwing an exception in "worked"
 
     /**
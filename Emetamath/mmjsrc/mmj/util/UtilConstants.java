@@ -624,6 +624,16 @@ public class UtilConstants {
             + " \"BookManagerEnabled\": default is \"yes\"\n" + " </code>\n"
             + "\n");
 
+    public static final BatchCommand RUNPARM_LAZY_PROOF_DECOMPRESSION = new BatchCommand(
+        "LazyProofDecompression",
+        " LazyProofDecompression.\n" + " <p>\n" + " <code> \n"
+            + " \"LazyProofDecompression\",yes,1000\n" + " </code>\n"
+            + " <p>\n"
+            + " \"yes\" keeps compressed proofs compressed until they are\n"
+            + " needed, default is \"no\". The optional second field is the\n"
+            + " number of decompressed proofs kept in cache (default 0: each\n"
+            + " theorem keeps its proof once decompressed).\n" + "\n");
+
     // ----------------------------------------------------------
     // Commands for mmj.util.BatchMMJ2.java
     // ----------------------------------------------------------
@@ -2157,6 +2167,26 @@ public class UtilConstants {
             + "         GMFFExportTheorem,syl,100,Test20110915a\n" + " </pre>\n"
             + "\n");
 
+    public static final BatchCommand RUNPARM_GMFF_EXPORT_THREADS = new BatchCommand(
+        "GMFFExportThreads",
+        " GMFFExportThreads command.\n" + " \n" + " <pre>\n"
+            + " - Optional. Number of worker threads used by\n"
+            + "             GMFFExportTheorem to export several theorems.\n"
+            + "             The Proof Worksheets are still created one\n"
+            + "             after the other, but they are typeset and\n"
+            + "             written to their export files in parallel.\n"
+            + "             Messages are output in theorem order, as for\n"
+            + "             a single thread.\n" + " \n"
+            + "             Exports to an Append File Name, or to an\n"
+            + "             Output File Name set in the GMFFExportParms,\n"
+            + "             always use a single thread.\n" + " \n"
+            + "  - Default = 1\n" + " \n"
+            + "  - Value1 = number of threads, a positive integer.\n"
+            + " \n" + "      - Examples:\n"
+            + "         *       1         2         3         4\n"
+            + "         *234567890123456789012345678901234567890\n"
+            + "         GMFFExportThreads,4\n" + " </pre>\n" + "\n");
+
     // ----------------------------------------------------------
     // Commands for mmj.util.MacroBoss
     // ----------------------------------------------------------
@@ -0,0 +1,278 @@
+package mmj.verify;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mmj.lang.MObj;
+import mmj.lang.ParseTree;
+import mmj.lang.ParseTree.RPNStep;
+import mmj.lang.Stmt;
+import mmj.mmio.Source;
+
+/**
+ * Binary snapshot of the results of a build: the parse trees of all
+ * statements, saved once all of them were parsed and all proofs verified
+ * without error.
+ * <p>
+ * A snapshot is keyed by a digest of the loaded sources (their unique ids and
+ * contents, see {@link #computeKey}). When the same sources are loaded again,
+ * typically when a project is reopened, the parse trees are read back from the
+ * memory-mapped snapshot instead of parsing all formulas, and the proofs,
+ * which were verified against these same sources, need not be verified again.
+ * <p>
+ * The statements are stored by label, in seq order, and the parse trees as
+ * RPN referencing the statements by their index in that order. The snapshot
+ * is only used if the statements loaded have exactly the same labels in the
+ * same order.
+ */
+public class BuildSnapshot {
+
+    private static final int MAGIC = 0x4D4D4A53; // "MMJS"
+    private static final int FORMAT_VERSION = 1;
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int DIGEST_BUFFER_SIZE = 65536;
+
+    private BuildSnapshot() {}
+
+    /**
+     * Computes the key of a snapshot: a digest of the unique ids and contents
+     * of the given sources, and of the given parameters.
+     *
+     * @param sources the loaded sources, see
+     *            {@code Systemizer.getLoadedSources()}.
+     * @param parms other parameters the build results depend on, such as the
+     *            provable and logic statement type codes.
+     * @return the snapshot key.
+     * @throws IOException if a source cannot be read.
+     */
+    public static byte[] computeKey(final List<Source> sources,
+        final String... parms) throws IOException
+    {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update((byte)FORMAT_VERSION);
+        for (final String parm : parms)
+            update(digest, parm);
+        final byte[] buf = new byte[DIGEST_BUFFER_SIZE];
+        for (final Source source : sources) {
+            update(digest, source.getUniqueId());
+            final ByteBuffer contents = source.getByteContents();
+            if (contents != null) {
+                final ByteBuffer b = contents.duplicate();
+                while (b.hasRemaining()) {
+                    final int n = Math.min(buf.length, b.remaining());
+                    b.get(buf, 0, n);
+                    digest.update(buf, 0, n);
+                }
+                continue;
+            }
+            // the Tokenizer only keeps the low byte of each character
+            try (Reader reader = source.createReader()) {
+                final char[] cbuf = new char[DIGEST_BUFFER_SIZE];
+                int n;
+                while ((n = reader.read(cbuf)) != -1) {
+                    for (int i = 0; i < n; i++)
+                        buf[i] = (byte)cbuf[i];
+                    digest.update(buf, 0, n);
+                }
+            }
+        }
+        return digest.digest();
+    }
+
+    private static void update(final MessageDigest digest, final String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)0);
+    }
+
+    /**
+     * Writes a snapshot of the parse trees of the given statements.
+     * <p>
+     * The snapshot is written to a temporary file which then replaces the
+     * given file, so that an interrupted write never leaves a truncated
+     * snapshot behind.
+     *
+     * @param file the snapshot file.
+     * @param key the snapshot key, see {@link #computeKey}.
+     * @param stmtTbl Statement Table (map), all statements parsed.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public static void write(final File file, final byte[] key,
+        final Map<String, Stmt> stmtTbl) throws IOException
+    {
+        final List<Stmt> stmts = new ArrayList<>(stmtTbl.values());
+        Collections.sort(stmts, MObj.SEQ);
+        final Map<Stmt, Integer> index = new IdentityHashMap<>(
+            stmts.size() * 2);
+        for (int i = 0; i < stmts.size(); i++)
+            index.put(stmts.get(i), i);
+
+        final File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(temp))))
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(key.length);
+            out.write(key);
+            writeVarInt(out, stmts.size());
+            for (final Stmt stmt : stmts) {
+                final byte[] label = stmt.getLabel()
+                    .getBytes(StandardCharsets.US_ASCII);
+                writeVarInt(out, label.length);
+                out.write(label);
+            }
+            for (final Stmt stmt : stmts) {
+                final ParseTree tree = stmt.getExprParseTree();
+                final RPNStep[] rpn = tree == null ? null : tree.convertToRPN();
+                if (rpn == null || !isIndexed(rpn, index)) {
+                    writeVarInt(out, 0);
+                    continue;
+                }
+                writeVarInt(out, rpn.length + 1);
+                for (final RPNStep step : rpn) {
+                    writeVarInt(out,
+                        step.stmt == null ? 0 : index.get(step.stmt) + 1);
+                    writeVarInt(out, step.backRef << 1 ^ step.backRef >> 31);
+                }
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static boolean isIndexed(final RPNStep[] rpn,
+        final Map<Stmt, Integer> index)
+    {
+        for (final RPNStep step : rpn)
+            if (step == null || step.stmt != null && !index.containsKey(step.stmt))
+                return false;
+        return true;
+    }
+
+    private static void writeVarInt(final DataOutputStream out, int i)
+        throws IOException
+    {
+        while ((i & ~0x7F) != 0) {
+            out.writeByte(i & 0x7F | 0x80);
+            i >>>= 7;
+        }
+        out.writeByte(i);
+    }
+
+    /**
+     * Restores the parse trees of the statements from a snapshot, if it
+     * exists and matches the given key and statements.
+     * <p>
+     * The grammar shall be initialized: the statements already having a parse
+     * tree (those parsed during the grammar initialization) are left as they
+     * are. Nothing is restored unless the whole snapshot is valid.
+     *
+     * @param file the snapshot file.
+     * @param key the snapshot key, see {@link #computeKey}.
+     * @param stmtTbl Statement Table (map).
+     * @param grammar the initialized Grammar.
+     * @return true if the parse trees were restored, false if the formulas
+     *         shall be parsed.
+     */
+    public static boolean restore(final File file, final byte[] key,
+        final Map<String, Stmt> stmtTbl, final Grammar grammar)
+    {
+        if (!file.isFile() || !grammar.getGrammarInitialized())
+            return false;
+
+        final List<Stmt> stmts = new ArrayList<>(stmtTbl.values());
+        Collections.sort(stmts, MObj.SEQ);
+        final ParseTree[] trees = new ParseTree[stmts.size()];
+
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+            StandardOpenOption.READ))
+        {
+            final ByteBuffer b = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                channel.size());
+            if (b.getInt() != MAGIC || b.getInt() != FORMAT_VERSION)
+                return false;
+            final byte[] snapshotKey = new byte[b.getInt()];
+            b.get(snapshotKey);
+            if (!Arrays.equals(key, snapshotKey)
+                || readVarInt(b) != stmts.size())
+                return false;
+            for (final Stmt stmt : stmts)
+                if (!readLabel(b, stmt.getLabel()))
+                    return false;
+            for (int i = 0; i < trees.length; i++) {
+                final int length = readVarInt(b) - 1;
+                if (length < 0) {
+                    if (stmts.get(i).getExprParseTree() == null)
+                        return false;
+                    continue;
+                }
+                final RPNStep[] rpn = new RPNStep[length];
+                for (int j = 0; j < length; j++) {
+                    final int ref = readVarInt(b);
+                    final int zz = readVarInt(b);
+                    rpn[j] = new RPNStep(ref == 0 ? null : stmts.get(ref - 1));
+                    rpn[j].backRef = zz >>> 1 ^ -(zz & 1);
+                }
+                if (stmts.get(i).getExprParseTree() == null)
+                    trees[i] = new ParseTree(rpn);
+            }
+        } catch (final IOException | BufferUnderflowException
+            | IndexOutOfBoundsException | NegativeArraySizeException
+            | IllegalArgumentException e)
+        {
+            // missing, truncated or corrupt snapshot: parse again
+            return false;
+        }
+
+        for (int i = 0; i < trees.length; i++)
+            if (trees[i] != null)
+                grammar.restoreExprParseTree(stmts.get(i), trees[i]);
+        return true;
+    }
+
+    /* Metamath labels are made of ASCII characters */
+    private static boolean readLabel(final ByteBuffer b, final String label) {
+        final int n = readVarInt(b);
+        if (n != label.length())
+            return false;
+        for (int i = 0; i < n; i++)
+            if (b.get() != label.charAt(i))
+                return false;
+        return true;
+    }
+
+    private static int readVarInt(final ByteBuffer b) {
+        int i = 0;
+        for (int shift = 0;; shift += 7) {
+            final byte x = b.get();
+            i |= (x & 0x7F) << shift;
+            if (x >= 0)
+                return i;
+        }
+    }
+}
@@ -121,6 +121,12 @@ public class EarleyParser implements GrammaticalParser {
 
     private int retryCnt = -1;
 
+    /**
+     * Where the retry notices go, if not to the grammar's message handler
+     * (see {@link #setMessageHandler(MessageHandler)}).
+     */
+    private MessageHandler messageHandler;
+
     private int pMax;
 
     private int pItemSetMax;
@@ -202,6 +208,37 @@ public class EarleyParser implements GrammaticalParser {
         // defer array building until reInitArrays(0) in parseExpr
     }
 
+    /**
+     * Creates an EarleyParser for use on a worker thread.
+     * <p>
+     * The Earley rules and FIRST sets are stored in the grammar's Cnst objects
+     * and must be loaded only once, so they are loaded here if needed, and the
+     * worker takes over the resulting rule type table instead of loading it
+     * again. Only the work arrays are allocated anew.
+     *
+     * @return a new EarleyParser sharing this parser's rule tables.
+     * @throws VerifyException if an error occurred
+     */
+    @Override
+    public GrammaticalParser createWorker() throws VerifyException {
+        if (retryCnt == -1)
+            reInitArrays(0);
+        final EarleyParser worker = new EarleyParser(grammar, pMax - 1);
+        worker.rulesTypMax = rulesTypMax;
+        worker.rulesTypCnt = rulesTypCnt;
+        worker.ruleTypAndFIRSTTyp = ruleTypAndFIRSTTyp;
+        worker.retryCnt = 0;
+        worker.initArrays(worker.pMax, worker.pItemSetMax,
+            worker.pCompletedItemSetMax, worker.pBringForwardTypMax,
+            worker.pPredictorTypMax);
+        return worker;
+    }
+
+    @Override
+    public void setMessageHandler(final MessageHandler messageHandler) {
+        this.messageHandler = messageHandler;
+    }
+
     /**
      * parseExpr - returns 'n' = the number of ParseTree objects generated for
      * the input formula and stored in parseTreeArray.
@@ -282,8 +319,10 @@ public class EarleyParser implements GrammaticalParser {
                     throw new IllegalStateException(new VerifyException(
                         GrammarConstants.ERRMSG_MAX_RETRIES_EXCEEDED,
                         GrammarConstants.MAX_PARSE_RETRIES));
-                grammar.getMessageHandler().accumException(new VerifyException(e,
-                    GrammarConstants.ERRMSG_RETRY_TO_BE_INITIATED, e));
+                (messageHandler != null ? messageHandler
+                    : grammar.getMessageHandler())
+                        .accumException(new VerifyException(e,
+                            GrammarConstants.ERRMSG_RETRY_TO_BE_INITIATED, e));
                 reInitArrays(retryCnt);
             }
 
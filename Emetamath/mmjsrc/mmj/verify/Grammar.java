@@ -41,6 +41,7 @@ package mmj.verify;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.*;
 
 import mmj.lang.*;
 import mmj.mmio.SourcePosition;
@@ -187,6 +188,13 @@ public class Grammar implements SyntaxVerifier {
 
     private Class<? extends GrammaticalParser> parserPrototype;
 
+    private int nbrThreads = GrammarConstants.PARSE_THREADS_DEFAULT;
+
+    private int parsedMaxSeq = 0;
+
+    private long nbrFormulasParsed = 0;
+    private long nbrParseFailures = 0;
+
     /**
      * Computed maximum?
      */
@@ -576,8 +584,9 @@ public class Grammar implements SyntaxVerifier {
             // return stmt.getExprRPN();
             return stmt.getExprParseTree();
 
-        return grammaticalParseOneFormula(stmt.getFormula(),
-            stmt.getMandVarHypArray(), stmt.getSeq(), stmt.getLabel(), stmt.getPosition());
+        return grammaticalParseOneFormula(grammaticalParser, messageHandler,
+            stmt.getFormula(), stmt.getMandVarHypArray(), stmt.getSeq(),
+            stmt.getLabel(), stmt.getPosition());
 
     }
 
@@ -619,7 +628,8 @@ public class Grammar implements SyntaxVerifier {
             if (!grammarInitialized)
                 return null;
         }
-        return grammaticalParseOneFormula(formula, varHypArray, highestSeq,
+        return grammaticalParseOneFormula(grammaticalParser, messageHandler,
+            formula, varHypArray, highestSeq,
             defaultStmt == null ? null : defaultStmt.getLabel(), null); // TODO provide position
     }
 
@@ -634,6 +644,29 @@ public class Grammar implements SyntaxVerifier {
         final Map<String, Sym> symTblParam,
         final Map<String, Stmt> stmtTblParam,
         final Progress progress)
+    {
+        parseAllFormulas(messageHandler, symTblParam, stmtTblParam, progress,
+            0);
+    }
+
+    /**
+     * Parse the Statement Formulas loaded after a given sequence number and
+     * update stmtTbl with results.
+     * <p>
+     * Used after a partial reload: the statements loaded before the restart
+     * point keep their parse trees, as they only depend on the grammar rules
+     * which were already defined when they were loaded.
+     *
+     * @param messages Messages object for error/info messages.
+     * @param symTblParam Symbol Table (Map).
+     * @param stmtTblParam Statement Table (Map).
+     * @param progress the progress monitor, or null
+     * @param minSeq only statements with a greater seq are parsed
+     */
+    public void parseAllFormulas(final MessageHandler messageHandler,
+        final Map<String, Sym> symTblParam,
+        final Map<String, Stmt> stmtTblParam,
+        final Progress progress, final int minSeq)
     {
         checkVerifySyntaxParams(messageHandler, symTblParam, stmtTblParam);
         if (!grammarInitialized) {
@@ -646,8 +679,13 @@ public class Grammar implements SyntaxVerifier {
                 return;
         }
 
-        final Set<Stmt> stmtTblBySeq = new TreeSet<>(MObj.SEQ);
-        stmtTblBySeq.addAll(stmtTbl.values());
+        final List<Stmt> stmtTblBySeq = new ArrayList<>(stmtTbl.values());
+        if (minSeq > 0)
+            stmtTblBySeq.removeIf(stmt -> stmt.getSeq() <= minSeq);
+        Collections.sort(stmtTblBySeq, MObj.SEQ);
+
+        if (nbrThreads > 1 && parseAllFormulasParallel(stmtTblBySeq, progress))
+            return;
 
         if(progress != null) progress.addTask(stmtTblBySeq.size()/1000+1);
         int counter = 0;
@@ -655,30 +693,208 @@ public class Grammar implements SyntaxVerifier {
         	if(progress != null && counter++ % 1000 == 0) progress.worked(1);
             if (messageHandler.maxErrorMessagesReached())
                 break;
-            final VarHyp[] varHypArray = stmt.getMandVarHypArray();
-            if (stmt instanceof VarHyp
-                || stmt instanceof Axiom && ((Axiom)stmt).getIsSyntaxAxiom())
+            if (!isParsedByParseAll(stmt))
                 // already done during initializeGrammarTables()
                 continue;
-            ParseTree exprParseTree = grammaticalParseOneFormula(
-                stmt.getFormula(), varHypArray, stmt.getSeq(), stmt.getLabel(), stmt.getPosition());
-            if (exprParseTree == null)
-                exprParseTree = buildDefaultExprParseTree(stmt, varHypArray);
-            stmt.setExprParseTree(exprParseTree);
-
-            // Prime these values so they aren't computed later
-            // (and so that the buffers don't get dirtied later).
-            // The "get" routines cache results...so...
-            exprParseTree.getMaxDepth();
-            exprParseTree.getLevelOneTwo();
-            if (stmt instanceof Assrt) {
-                final Assrt assrt = (Assrt)stmt;
-                assrt.getLogHypsMaxDepth();
-                assrt.getLogHypsL1HiLoKey();
+            final VarHyp[] varHypArray = stmt.getMandVarHypArray();
+            final ParseTree exprParseTree = grammaticalParseOneFormula(
+                grammaticalParser, messageHandler, stmt.getFormula(),
+                varHypArray, stmt.getSeq(), stmt.getLabel(),
+                stmt.getPosition());
+            countParse(exprParseTree);
+            storeExprParseTree(stmt, exprParseTree, varHypArray);
+        }
+    }
+
+    /**
+     * Parse all Statement Formulas using several worker threads.
+     * <p>
+     * Each statement's parse only depends on the grammar rules, which are not
+     * modified anymore once the grammar is initialized. The statements are
+     * split into chunks of PARSE_CHUNK_SIZE consecutive statements, parsed by
+     * a pool of threads, each one with its own parser instance (see
+     * {@link GrammaticalParser#createWorker()}).
+     * <p>
+     * The parse trees and messages are kept aside until all chunks are done,
+     * and are then stored and reported in seq order, exactly as the
+     * sequential parse would have done, including stopping as soon as the
+     * maximum number of error messages is reached.
+     *
+     * @param stmtTblBySeq all statements, sorted by seq.
+     * @param progress Progress object, may be null.
+     * @return false if the parser does not support parallel parsing, in which
+     *         case nothing was done.
+     */
+    private boolean parseAllFormulasParallel(final List<Stmt> stmtTblBySeq,
+        final Progress progress)
+    {
+        final BlockingQueue<GrammaticalParser> workers = new ArrayBlockingQueue<>(
+            nbrThreads);
+        try {
+            for (int i = 0; i < nbrThreads; i++) {
+                final GrammaticalParser worker = grammaticalParser
+                    .createWorker();
+                if (worker == null)
+                    return false;
+                workers.add(worker);
+            }
+        } catch (final VerifyException e) {
+            messageHandler.accumException(e);
+            return false;
+        }
+
+        final int nbrStmts = stmtTblBySeq.size();
+        final ParseTree[] parseTrees = new ParseTree[nbrStmts];
+        final DeferredMessages[] messages = new DeferredMessages[nbrStmts];
+        final int nbrChunks = (nbrStmts + GrammarConstants.PARSE_CHUNK_SIZE - 1)
+            / GrammarConstants.PARSE_CHUNK_SIZE;
+
+        if (progress != null)
+            progress.addTask(nbrChunks);
+        final ExecutorService pool = Executors.newFixedThreadPool(nbrThreads);
+        try {
+            final CompletionService<Void> completion = new ExecutorCompletionService<>(
+                pool);
+            for (int chunk = 0; chunk < nbrChunks; chunk++) {
+                final int from = chunk * GrammarConstants.PARSE_CHUNK_SIZE;
+                final int to = Math.min(nbrStmts,
+                    from + GrammarConstants.PARSE_CHUNK_SIZE);
+                completion.submit(() -> {
+                    final GrammaticalParser parser = workers.take();
+                    try {
+                        for (int i = from; i < to; i++) {
+                            if (Thread.currentThread().isInterrupted())
+                                break;
+                            final Stmt stmt = stmtTblBySeq.get(i);
+                            if (!isParsedByParseAll(stmt))
+                                continue;
+                            final DeferredMessages m = new DeferredMessages();
+                            parser.setMessageHandler(m);
+                            parseTrees[i] = grammaticalParseOneFormula(parser,
+                                m, stmt.getFormula(),
+                                stmt.getMandVarHypArray(), stmt.getSeq(),
+                                stmt.getLabel(), stmt.getPosition());
+                            if (!m.isEmpty())
+                                messages[i] = m;
+                        }
+                    } finally {
+                        parser.setMessageHandler(null);
+                        workers.add(parser);
+                    }
+                    return null;
+                });
             }
+
+            for (int chunk = 0; chunk < nbrChunks; chunk++) {
+                completion.take().get();
+                if (progress != null)
+                    progress.worked(1);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException)e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (int i = 0; i < nbrStmts; i++) {
+            if (messageHandler.maxErrorMessagesReached())
+                break;
+            final Stmt stmt = stmtTblBySeq.get(i);
+            if (!isParsedByParseAll(stmt))
+                continue;
+            if (messages[i] != null)
+                messages[i].replay(messageHandler);
+            countParse(parseTrees[i]);
+            storeExprParseTree(stmt, parseTrees[i],
+                stmt.getMandVarHypArray());
         }
+        return true;
+    }
+
+    private void countParse(final ParseTree exprParseTree) {
+        nbrFormulasParsed++;
+        if (exprParseTree == null)
+            nbrParseFailures++;
+    }
+
+    /**
+     * Returns the number of formulas parsed so far by parseAllFormulas().
+     *
+     * @return the number of formulas parsed.
+     */
+    public long getNbrFormulasParsed() {
+        return nbrFormulasParsed;
     }
 
+    /**
+     * Returns the number of formulas for which parseAllFormulas() did not
+     * find any parse tree.
+     *
+     * @return the number of parse failures.
+     */
+    public long getNbrParseFailures() {
+        return nbrParseFailures;
+    }
+
+    /**
+     * VarHyp and Syntax Axiom parse trees are built during
+     * initializeGrammarTables(), all other statements are parsed by
+     * parseAllFormulas().
+     *
+     * @param stmt the statement
+     * @return true if the statement is parsed by parseAllFormulas()
+     */
+    private static boolean isParsedByParseAll(final Stmt stmt) {
+        return !(stmt instanceof VarHyp
+            || stmt instanceof Axiom && ((Axiom)stmt).getIsSyntaxAxiom());
+    }
+
+    /**
+     * Stores a statement's parse tree, or its default parse tree if no parse
+     * was found, and primes the cached values derived from it.
+     *
+     * @param stmt the statement
+     * @param exprParseTree the parse tree found, or null
+     * @param varHypArray the statement's mandatory VarHyps
+     */
+    private void storeExprParseTree(final Stmt stmt, ParseTree exprParseTree,
+        final VarHyp[] varHypArray)
+    {
+        if (exprParseTree == null)
+            exprParseTree = buildDefaultExprParseTree(stmt, varHypArray);
+        stmt.setExprParseTree(exprParseTree);
+
+        // Prime these values so they aren't computed later
+        // (and so that the buffers don't get dirtied later).
+        // The "get" routines cache results...so...
+        exprParseTree.getMaxDepth();
+        exprParseTree.getLevelOneTwo();
+        if (stmt instanceof Assrt) {
+            final Assrt assrt = (Assrt)stmt;
+            assrt.getLogHypsMaxDepth();
+            assrt.getLogHypsL1HiLoKey();
+        }
+    }
+
+    /**
+     * Stores a statement's parse tree obtained from an earlier parse of the
+     * same formula instead of parsing it again, see {@link BuildSnapshot}.
+     *
+     * @param stmt the statement
+     * @param exprParseTree the statement's parse tree
+     */
+    public void restoreExprParseTree(final Stmt stmt,
+        final ParseTree exprParseTree)
+    {
+        storeExprParseTree(stmt, exprParseTree, stmt.getMandVarHypArray());
+    }
+
+
     /**
      * Initializes the grammar.
      * <p>
@@ -780,7 +996,9 @@ public class Grammar implements SyntaxVerifier {
     }
 
 //  private Stmt[] grammaticalParseOneFormula(
-    private ParseTree grammaticalParseOneFormula(final Formula formula,
+    private ParseTree grammaticalParseOneFormula(
+        final GrammaticalParser grammaticalParser,
+        final MessageHandler messageHandler, final Formula formula,
         final VarHyp[] varHypArray, final int highestSeq,
         final String defaultStmtLabel, final SourcePosition position)
     {
@@ -955,6 +1173,32 @@ public class Grammar implements SyntaxVerifier {
         }
     }
 
+    /**
+     * Sets the number of threads used by parseAllFormulas().
+     * <p>
+     * With 1 (the default), statements are parsed one after the other on the
+     * calling thread. Parallel parsing is only used if the parser supports it.
+     *
+     * @param nbrThreads number of worker threads, at least 1.
+     */
+    public void setNbrThreads(final int nbrThreads) {
+        this.nbrThreads = Math.max(1, nbrThreads);
+    }
+
+    /**
+     * Sets the sequence number up to which statements are already parsed.
+     * <p>
+     * Logical statements with a seq up to this value keep their parse tree
+     * when the grammar is initialized again. This is used after a partial
+     * reload, together with the {@code minSeq} variant of
+     * {@code parseAllFormulas()}. Set it back to 0 for a full parse.
+     *
+     * @param parsedMaxSeq the last seq of the statements already parsed.
+     */
+    public void setParsedMaxSeq(final int parsedMaxSeq) {
+        this.parsedMaxSeq = parsedMaxSeq;
+    }
+
     public void setParserPrototype(
         final Class<? extends GrammaticalParser> proto)
     {
@@ -1117,7 +1361,8 @@ public class Grammar implements SyntaxVerifier {
             final Cnst cnst = stmt.getTyp();
             if (stmt instanceof Theorem || stmt instanceof LogHyp) {
 //              stmt.setExprRPN(null);
-                stmt.setExprParseTree(null);
+                if (stmt.getSeq() > parsedMaxSeq)
+                    stmt.setExprParseTree(null);
                 continue;
             }
             if (stmt instanceof VarHyp) {
@@ -1154,7 +1399,8 @@ public class Grammar implements SyntaxVerifier {
                     axiom.setIsSyntaxAxiom(false);
                     axiom.setSyntaxAxiomVarHypReseq(null);
 //                  axiom.setExprRPN(null);
-                    axiom.setExprParseTree(null);
+                    if (axiom.getSeq() > parsedMaxSeq)
+                        axiom.setExprParseTree(null);
                 }
                 continue;
             }
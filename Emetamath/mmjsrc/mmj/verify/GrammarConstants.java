@@ -170,6 +170,19 @@ public class GrammarConstants {
      */
     public static final int MAX_PARSE_RETRIES = 20;
 
+    /**
+     * Default number of threads used by Grammar.parseAllFormulas(): 1 means
+     * that all statements are parsed in sequence on the calling thread.
+     */
+    public static final int PARSE_THREADS_DEFAULT = 1;
+
+    /**
+     * Number of consecutive statements parsed by one task when
+     * Grammar.parseAllFormulas() uses several threads. This is also the
+     * granularity of the progress reporting.
+     */
+    public static final int PARSE_CHUNK_SIZE = 1000;
+
     /**
      * Minimum initial allocation size for Earley Parser Itemset Array.
      * <p>
@@ -50,4 +50,30 @@ public interface GrammaticalParser {
      * @param store The setting storage
      */
     default void addSettings(final SessionStore store) {}
+
+    /**
+     * Creates a parser for the same grammar, sharing the read-only tables of
+     * this parser but with its own work areas, so that it can be used on
+     * another thread than this one.
+     * <p>
+     * The returned parser may not call back into this one, and this one shall
+     * no longer be modified once workers are created.
+     *
+     * @return a new parser for a worker thread, or null if this parser does
+     *         not support concurrent parsing.
+     * @throws VerifyException if the shared tables could not be built
+     */
+    default GrammaticalParser createWorker() throws VerifyException {
+        return null;
+    }
+
+    /**
+     * Sets where the messages of the next parses are sent, instead of the
+     * grammar's message handler. Worker parsers use it so that their messages
+     * are kept with the statement being parsed, and not sent to the grammar's
+     * message handler from another thread.
+     *
+     * @param messageHandler the message handler, or null for the grammar's.
+     */
+    default void setMessageHandler(final MessageHandler messageHandler) {}
 }
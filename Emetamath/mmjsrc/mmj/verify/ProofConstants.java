@@ -133,6 +133,16 @@ public class ProofConstants {
      */
     public static final int PROOF_SUBST_HARD_FAILURE_LEN = 6400;
 
+    /**
+     * Default number of threads for verifyAllProofs: 1 = sequential.
+     */
+    public static final int PROOF_VERIFY_THREADS_DEFAULT = 1;
+    /**
+     * Number of consecutive theorems verified by one parallel verification
+     * task.
+     */
+    public static final int PROOF_VERIFY_CHUNK_SIZE = 256;
+
     /**
      * QED ProofDerivationStepEntry last step number
      */
@@ -247,4 +257,8 @@ public class ProofConstants {
     public static final ErrorCode ERRMSG_PROOF_SQUISH_FAIL = of("E-PR-0024",
         "RPN invalid during proof compression");
 
+    public static final ErrorCode ERRMSG_PROOF_VERIFY_INTERRUPTED = of(
+        "W-PR-0025", "VerifyProof: interrupted, the proofs of %d theorems"
+            + " were not verified.");
+
 }
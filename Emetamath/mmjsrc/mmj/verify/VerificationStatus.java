@@ -0,0 +1,249 @@
+package mmj.verify;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import mmj.lang.Assrt;
+import mmj.lang.DjVars;
+import mmj.lang.Formula;
+import mmj.lang.Hyp;
+import mmj.lang.LogHyp;
+import mmj.lang.LogicalSystem;
+import mmj.lang.MObj;
+import mmj.lang.MessageHandler;
+import mmj.lang.ScopeFrame;
+import mmj.lang.Stmt;
+import mmj.lang.Sym;
+import mmj.lang.Theorem;
+
+/**
+ * Records which proofs were verified without error, so that after a reload
+ * only the theorems affected by an edit are verified again.
+ * <p>
+ * Two digests are kept, by label:
+ * <ul>
+ * <li>for each assertion, the digest of its statement: its formula, its
+ * mandatory hypotheses and its mandatory disjoint variable restrictions, i.e.
+ * everything a proof referencing it depends on;
+ * <li>for each theorem whose proof was verified without error, the digest of
+ * its statement, its optional frame and its proof.
+ * </ul>
+ * A theorem is verified again when its own digest changed, or when the
+ * statement of an assertion its proof references changed. Whether a proof is
+ * valid only depends on the statements of the assertions it directly
+ * references, so a change is propagated to the theorems referencing the
+ * changed statement (found through the {@link mmj.lang.ReferenceIndex}), and
+ * further only if their own statements changed too.
+ * <p>
+ * Labels are used as keys, as the statements are different objects after each
+ * reload. The verification options (for instance the handling of soft
+ * disjoint variable errors) are not part of the digests: {@link #clear()}
+ * must be called when they change.
+ */
+public class VerificationStatus {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Map<String, byte[]> assrtDigests = new HashMap<>();
+    private final Map<String, byte[]> verifiedDigests = new HashMap<>();
+
+    private int nbrVerified;
+    private int nbrSkipped;
+
+    /**
+     * Forgets all verified proofs, so that the next verification verifies
+     * all of them.
+     */
+    public synchronized void clear() {
+        assrtDigests.clear();
+        verifiedDigests.clear();
+    }
+
+    /**
+     * Verifies the proofs of the theorems loaded after a given sequence
+     * number, skipping those which were already verified without error and
+     * are not affected by the changes made since.
+     * <p>
+     * Errors are passed to the MessageHandler as for
+     * {@link VerifyProofs#verifyAllProofs(MessageHandler, Map, int)}.
+     *
+     * @param verifyProofs the VerifyProofs used to verify the proofs
+     * @param messageHandler MessageHandler object for output error messages.
+     * @param logicalSystem the LogicalSystem, loaded.
+     * @param minSeq only theorems with a greater seq are considered
+     */
+    public synchronized void verifyChangedProofs(
+        final VerifyProofs verifyProofs, final MessageHandler messageHandler,
+        final LogicalSystem logicalSystem, final int minSeq)
+    {
+        final Map<String, Stmt> stmtTbl = logicalSystem.getStmtTbl();
+        final MessageDigest digest = newDigest();
+
+        // the statements and theorems whose digests changed, or which are new
+        final Map<String, byte[]> newAssrtDigests = new HashMap<>();
+        final Map<Theorem, byte[]> theoremDigests = new IdentityHashMap<>();
+        final List<Theorem> candidates = new ArrayList<>();
+        final List<Assrt> changedAssrts = new ArrayList<>();
+        for (final Stmt stmt : stmtTbl.values()) {
+            if (stmt.getSeq() <= minSeq || !(stmt instanceof Assrt))
+                continue;
+            final byte[] assrtDigest = digestAssrt(digest, (Assrt)stmt);
+            if (!Arrays.equals(assrtDigest, assrtDigests.get(stmt.getLabel())))
+            {
+                newAssrtDigests.put(stmt.getLabel(), assrtDigest);
+                changedAssrts.add((Assrt)stmt);
+            }
+            if (stmt instanceof Theorem) {
+                final Theorem theorem = (Theorem)stmt;
+                theoremDigests.put(theorem,
+                    digestTheorem(digest, theorem, assrtDigest));
+                candidates.add(theorem);
+            }
+        }
+
+        final List<Theorem> theorems = new ArrayList<>();
+        if (verifiedDigests.isEmpty())
+            theorems.addAll(candidates);
+        else {
+            final Map<Theorem, Boolean> dirty = new IdentityHashMap<>();
+            for (final Theorem theorem : candidates)
+                if (!Arrays.equals(theoremDigests.get(theorem),
+                    verifiedDigests.get(theorem.getLabel())))
+                    dirty.put(theorem, Boolean.TRUE);
+            for (final Assrt assrt : changedAssrts)
+                for (final Theorem theorem : logicalSystem.getReferenceIndex()
+                    .getProofRefs(assrt))
+                    if (theorem.getSeq() > minSeq)
+                        dirty.put(theorem, Boolean.TRUE);
+            theorems.addAll(dirty.keySet());
+        }
+        Collections.sort(theorems, MObj.SEQ);
+
+        final boolean[] verified = verifyProofs.verifyProofs(messageHandler,
+            theorems);
+
+        assrtDigests.putAll(newAssrtDigests);
+        for (int i = 0; i < verified.length; i++) {
+            final Theorem theorem = theorems.get(i);
+            if (verified[i])
+                verifiedDigests.put(theorem.getLabel(),
+                    theoremDigests.get(theorem));
+            else
+                verifiedDigests.remove(theorem.getLabel());
+        }
+        // a statement removed now may come back unchanged later on, while
+        // the statements it references have changed
+        assrtDigests.keySet().retainAll(stmtTbl.keySet());
+        verifiedDigests.keySet().retainAll(stmtTbl.keySet());
+
+        nbrVerified = theorems.size();
+        nbrSkipped = candidates.size() - theorems.size();
+    }
+
+    /**
+     * Records the proofs of all theorems as verified without error, for
+     * instance when the results of a build were restored from a
+     * {@link BuildSnapshot}.
+     *
+     * @param logicalSystem the LogicalSystem, loaded.
+     */
+    public synchronized void setAllVerified(final LogicalSystem logicalSystem)
+    {
+        clear();
+        final MessageDigest digest = newDigest();
+        for (final Stmt stmt : logicalSystem.getStmtTbl().values()) {
+            if (!(stmt instanceof Assrt))
+                continue;
+            final byte[] assrtDigest = digestAssrt(digest, (Assrt)stmt);
+            assrtDigests.put(stmt.getLabel(), assrtDigest);
+            if (stmt instanceof Theorem)
+                verifiedDigests.put(stmt.getLabel(),
+                    digestTheorem(digest, (Theorem)stmt, assrtDigest));
+        }
+        nbrVerified = 0;
+        nbrSkipped = 0;
+    }
+
+    /**
+     * @return the number of proofs verified by the last call to
+     *         {@link #verifyChangedProofs}
+     */
+    public synchronized int getNbrVerified() {
+        return nbrVerified;
+    }
+
+    /**
+     * @return the number of proofs skipped by the last call to
+     *         {@link #verifyChangedProofs}, as verified before and unaffected
+     *         by the changes
+     */
+    public synchronized int getNbrSkipped() {
+        return nbrSkipped;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] digestAssrt(final MessageDigest digest,
+        final Assrt assrt)
+    {
+        update(digest, assrt.getFormula());
+        update(digest, assrt.getMandFrame());
+        return digest.digest();
+    }
+
+    private static byte[] digestTheorem(final MessageDigest digest,
+        final Theorem theorem, final byte[] assrtDigest)
+    {
+        digest.update(assrtDigest);
+        update(digest, theorem.getOptFrame());
+        theorem.digestProof(digest);
+        return digest.digest();
+    }
+
+    private static void update(final MessageDigest digest,
+        final ScopeFrame frame)
+    {
+        if (frame == null)
+            return;
+        if (frame.hypArray != null)
+            for (final Hyp hyp : frame.hypArray) {
+                update(digest, hyp.getLabel());
+                digest.update((byte)(hyp instanceof LogHyp ? 'e' : 'f'));
+                update(digest, hyp.getFormula());
+            }
+        digest.update((byte)'$');
+        if (frame.djVarsArray != null)
+            for (final DjVars djVars : frame.djVarsArray) {
+                update(digest, djVars.getVarLo().getId());
+                update(digest, djVars.getVarHi().getId());
+            }
+        digest.update((byte)'$');
+    }
+
+    private static void update(final MessageDigest digest,
+        final Formula formula)
+    {
+        update(digest, formula.getTyp().getId());
+        for (final Sym sym : formula.getExpr())
+            update(digest, sym.getId());
+        digest.update((byte)'$');
+    }
+
+    private static void update(final MessageDigest digest, final String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)0);
+    }
+}
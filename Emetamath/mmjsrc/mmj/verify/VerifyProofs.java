@@ -63,6 +63,7 @@
 package mmj.verify;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import mmj.lang.*;
 import mmj.lang.ParseTree.RPNStep;
@@ -182,7 +183,12 @@ public class VerifyProofs implements ProofVerifier {
     private int stepNbr;
     private String stepNbrOutputString;
 
-    private Progress verifyProgress;
+    private Progress verifyProgress = Progress.NONE;
+
+    private int nbrThreads = ProofConstants.PROOF_VERIFY_THREADS_DEFAULT;
+
+    private long nbrProofsVerified = 0;
+    private long nbrProofStepsVerified = 0;
     
     // *******************************************
 
@@ -215,23 +221,155 @@ public class VerifyProofs implements ProofVerifier {
     public void verifyAllProofs(final MessageHandler messageHandler,
         final Map<String, Stmt> stmtTbl)
     {
-        verifyProgress.addTask(stmtTbl.size());
-        int lasti = 0, i = 0, step = stmtTbl.size() * STEP / 100;
+        verifyAllProofs(messageHandler, stmtTbl, 0);
+    }
+
+    /**
+     * Verify the proofs of the theorems loaded after a given sequence number.
+     * <p>
+     * Used after a partial reload: a theorem's proof only refers to
+     * statements loaded before it, so the theorems loaded before the restart
+     * point do not need to be verified again.
+     *
+     * @param messageHandler MessageHandler object for output error messages.
+     * @param stmtTbl Statement Table (map).
+     * @param minSeq only theorems with a greater seq are verified
+     */
+    public void verifyAllProofs(final MessageHandler messageHandler,
+        final Map<String, Stmt> stmtTbl, final int minSeq)
+    {
+        final List<Theorem> theorems = new ArrayList<>();
+        for (final Stmt stmt : stmtTbl.values())
+            if (stmt instanceof Theorem && stmt.getSeq() > minSeq)
+                theorems.add((Theorem)stmt);
+        Collections.sort(theorems, MObj.SEQ);
+
+        verifyProofs(messageHandler, theorems);
+    }
 
-        final List<Stmt> list = new ArrayList<>(stmtTbl.values());
-        Collections.sort(list, MObj.SEQ);
-        
-        for (final Stmt stmt : list) {
+    /**
+     * Verify the proofs of a list of theorems.
+     * <p>
+     * Errors are passed to the MessageHandler in the order of the list,
+     * using several worker threads if {@link #setNbrThreads} was given more
+     * than one thread.
+     *
+     * @param messageHandler MessageHandler object for output error messages.
+     * @param theorems the theorems to verify, usually sorted by seq.
+     * @return for each theorem of the list, true if its proof was verified
+     *         without error, false if it has errors or was not verified
+     *         (maximum number of errors reached, or interrupted).
+     */
+    public boolean[] verifyProofs(final MessageHandler messageHandler,
+        final List<Theorem> theorems)
+    {
+        if (nbrThreads > 1)
+            return verifyProofsParallel(messageHandler, theorems);
+
+        final boolean[] verified = new boolean[theorems.size()];
+        verifyProgress.addTask(theorems.size());
+        int lasti = 0;
+        final int step = theorems.size() * STEP / 100;
+
+        for (int i = 0; i < theorems.size(); i++) {
             if (messageHandler.maxErrorMessagesReached())
                 break;
-            if (stmt instanceof Theorem) {
-                final VerifyException errMsg = verifyOneProof((Theorem)stmt);
-                if(i - lasti > step) { verifyProgress.worked(i - lasti); lasti = i; }
-                if (errMsg != null)
-                	messageHandler.accumException(errMsg);
+            final VerifyException errMsg = verifyOneProof(theorems.get(i));
+            if(i - lasti > step) { verifyProgress.worked(i - lasti); lasti = i; }
+            if (errMsg != null)
+                messageHandler.accumException(errMsg);
+            else
+                verified[i] = true;
+        }
+        return verified;
+    }
+
+    /**
+     * Verify the proofs of a list of theorems using several worker threads.
+     * <p>
+     * Theorems are partitioned into chunks of PROOF_VERIFY_CHUNK_SIZE
+     * consecutive theorems. Each worker thread uses its own VerifyProofs
+     * instance, so the work arrays are never shared. The errors of each chunk
+     * are passed to the MessageHandler from the calling thread, chunk after
+     * chunk in the order of the list, so the output and the returned flags
+     * are the same as for the single threaded verification.
+     * <p>
+     * At most two chunks per thread are submitted ahead of the chunk being
+     * reported: once the maximum number of error messages is reached, no
+     * more chunks are submitted and those still running are cancelled. If
+     * the calling thread is interrupted, the theorems of the chunks already
+     * reported keep their results, and the others are reported as not
+     * verified.
+     *
+     * @param messageHandler MessageHandler object for output error messages.
+     * @param theorems the theorems to verify
+     * @return for each theorem, true if its proof was verified without error
+     */
+    private boolean[] verifyProofsParallel(final MessageHandler messageHandler,
+        final List<Theorem> theorems)
+    {
+        final boolean[] verified = new boolean[theorems.size()];
+        verifyProgress.addTask(theorems.size());
+
+        final VerifyException[] errors = new VerifyException[theorems.size()];
+        final ThreadLocal<VerifyProofs> verifiers = ThreadLocal
+            .withInitial(VerifyProofs::new);
+        final ExecutorService pool = Executors.newFixedThreadPool(nbrThreads);
+        // the chunks submitted and not yet reported, in the order of the list
+        final Deque<Future<?>> pending = new ArrayDeque<>();
+        int submitted = 0;
+        int reported = 0;
+        try {
+            while (reported < theorems.size()) {
+                while (submitted < theorems.size()
+                    && pending.size() < 2 * nbrThreads)
+                {
+                    final int from = submitted;
+                    final int to = Math.min(theorems.size(),
+                        from + ProofConstants.PROOF_VERIFY_CHUNK_SIZE);
+                    pending.add(pool.submit(() -> {
+                        final VerifyProofs verifier = verifiers.get();
+                        final long proofs = verifier.nbrProofsVerified;
+                        final long steps = verifier.nbrProofStepsVerified;
+                        for (int i = from; i < to; i++) {
+                            if (Thread.currentThread().isInterrupted())
+                                break;
+                            errors[i] = verifier
+                                .verifyOneProof(theorems.get(i));
+                        }
+                        addCounts(verifier.nbrProofsVerified - proofs,
+                            verifier.nbrProofStepsVerified - steps);
+                    }));
+                    submitted = to;
+                }
+
+                pending.remove().get();
+                final int from = reported;
+                final int to = Math.min(theorems.size(),
+                    from + ProofConstants.PROOF_VERIFY_CHUNK_SIZE);
+                for (; reported < to; reported++) {
+                    if (messageHandler.maxErrorMessagesReached())
+                        return verified;
+                    if (errors[reported] != null)
+                        messageHandler.accumException(errors[reported]);
+                    else
+                        verified[reported] = true;
+                }
+                verifyProgress.worked(to - from);
             }
-            i++;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            messageHandler.accumMessage(
+                ProofConstants.ERRMSG_PROOF_VERIFY_INTERRUPTED,
+                theorems.size() - reported);
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            for (final Future<?> chunk : pending)
+                chunk.cancel(true);
+            pool.shutdownNow();
         }
+        return verified;
     }
 
     /**
@@ -267,6 +405,9 @@ public class VerifyProofs implements ProofVerifier {
             errMsg = e;
         }
 
+        nbrProofsVerified++;
+        if (proof != null)
+            nbrProofStepsVerified += proof.length;
         return errMsg;
 
     }
@@ -1338,8 +1479,53 @@ public class VerifyProofs implements ProofVerifier {
         return new Formula(pStack.peek().getCnt(), pStack.peek().getSym());
     }
 
+	/**
+	 * Sets the progress notified of the verifications.
+	 *
+	 * @param progress the progress, or null for none
+	 */
 	public void setVerifyProgress(Progress progress) {
-		this.verifyProgress = progress;
+		this.verifyProgress = progress != null ? progress : Progress.NONE;
 	}
 
+    /**
+     * Sets the number of threads used by verifyAllProofs().
+     * <p>
+     * With 1 (the default), proofs are verified one after the other on the
+     * calling thread.
+     *
+     * @param nbrThreads number of worker threads, at least 1.
+     */
+    public void setNbrThreads(final int nbrThreads) {
+        this.nbrThreads = Math.max(1, nbrThreads);
+    }
+
+    /**
+     * @return the number of threads used by verifyAllProofs().
+     */
+    public int getNbrThreads() {
+        return nbrThreads;
+    }
+
+    private synchronized void addCounts(final long proofs, final long steps) {
+        nbrProofsVerified += proofs;
+        nbrProofStepsVerified += steps;
+    }
+
+    /**
+     * @return the number of proofs verified so far, including those verified
+     *         by the worker threads of verifyAllProofs().
+     */
+    public synchronized long getNbrProofsVerified() {
+        return nbrProofsVerified;
+    }
+
+    /**
+     * @return the number of proof steps verified so far, including those
+     *         verified by the worker threads of verifyAllProofs().
+     */
+    public synchronized long getNbrProofStepsVerified() {
+        return nbrProofStepsVerified;
+    }
+
 }
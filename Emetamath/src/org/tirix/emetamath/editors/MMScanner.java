@@ -5,6 +5,7 @@ import java.util.Hashtable;
 import java.util.Map;
 
 import mmj.lang.Cnst;
+import mmj.lang.LogicalSystem;
 import mmj.lang.Sym;
 import mmj.lang.Var;
 
@@ -138,7 +139,7 @@ public class MMScanner extends RuleBasedScanner {
 		MMTokenDetector fDetector;
 
 		/** Buffer used for pattern detection. */
-		private StringBuffer fBuffer= new StringBuffer();
+		private StringBuilder fBuffer= new StringBuilder();
 
 		/** The Project Nature which provides us the logical system */
 		MetamathProjectNature nature;
@@ -173,15 +174,19 @@ public class MMScanner extends RuleBasedScanner {
 				} while (c != ICharacterScanner.EOF && fDetector.isWordPart((char) c));
 				if(c != ICharacterScanner.EOF) scanner.unread();
 
-				return getTokenFor(fBuffer.toString());
+				return getTokenFor(fBuffer);
 			}
 			if(c != ICharacterScanner.EOF) scanner.unread();
 			return Token.UNDEFINED;
 		}
 
-		private IToken getTokenFor(String tokenStr) {
+		private IToken getTokenFor(CharSequence tokenStr) {
 			if(nature == null || !nature.isLogicalSystemLoaded()) return Token.UNDEFINED;
-			Sym sym = (Sym)nature.getLogicalSystem().getSymTbl().get(tokenStr);
+			LogicalSystem logicalSystem = nature.getLogicalSystem();
+			// resolve the symbol without creating a String for each word being colored
+			String id = logicalSystem.getTokenInterner().get(tokenStr);
+			if(id == null) return Token.UNDEFINED;
+			Sym sym = logicalSystem.getSymTbl().get(id);
 			if(sym == null) return Token.UNDEFINED;
 			if(sym instanceof Cnst) {
 				if(nature.isType((Cnst)sym)) return typeToken;
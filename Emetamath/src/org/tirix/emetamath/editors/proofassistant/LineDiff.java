@@ -0,0 +1,149 @@
+package org.tirix.emetamath.editors.proofassistant;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+
+/**
+ * Computes the edits turning a text into another one, line by line,
+ * so that only the lines which changed are replaced in the document.
+ *
+ * The common leading and trailing lines are skipped, then the remaining lines are compared
+ * with the O(ND) difference algorithm of E. Myers, where D is the number of lines inserted or deleted.
+ * If the texts differ too much, the remaining lines are replaced at once.
+ *
+ * @author Thierry
+ */
+class LineDiff {
+	/** Maximum number of lines inserted or deleted, above which the differing part is replaced at once */
+	private static final int MAX_DIFFERENCES = 1000;
+
+	private final List<String> oldLines;
+	private final List<String> newLines;
+	private final int[] oldOffsets;
+
+	private LineDiff(String oldText, String newText) {
+		oldLines = splitLines(oldText);
+		newLines = splitLines(newText);
+		oldOffsets = new int[oldLines.size() + 1];
+		for(int i = 0; i < oldLines.size(); i++) oldOffsets[i + 1] = oldOffsets[i] + oldLines.get(i).length();
+	}
+
+	/**
+	 * Returns the edit turning the old text into the new text.
+	 * @return a MultiTextEdit with one ReplaceEdit per group of changed lines, or no child if the texts are equal
+	 */
+	static MultiTextEdit createEdit(String oldText, String newText) {
+		return new LineDiff(oldText, newText).createEdit();
+	}
+
+	private MultiTextEdit createEdit() {
+		MultiTextEdit edit = new MultiTextEdit();
+		for(int[] r : diffRegions())
+			edit.addChild(createReplace(r[0], r[1], r[2], r[3]));
+		return edit;
+	}
+
+	/**
+	 * Returns the regions of changed lines, in order, as arrays {oldFrom, oldTo, newFrom, newTo}
+	 */
+	private List<int[]> diffRegions() {
+		List<int[]> regions = new ArrayList<int[]>();
+		int start = 0, oldEnd = oldLines.size(), newEnd = newLines.size();
+		while(start < oldEnd && start < newEnd && oldLines.get(start).equals(newLines.get(start))) start++;
+		while(oldEnd > start && newEnd > start && oldLines.get(oldEnd - 1).equals(newLines.get(newEnd - 1))) { oldEnd--; newEnd--; }
+		if(start == oldEnd && start == newEnd) return regions;
+
+		int[][] trace = diff(start, oldEnd, start, newEnd);
+		if(trace == null) {
+			regions.add(new int[] { start, oldEnd, start, newEnd });
+			return regions;
+		}
+
+		// walk back the trace from the end, each step being one line inserted or deleted,
+		// and merge the contiguous steps into regions
+		int x = oldEnd - start, y = newEnd - start;
+		for(int d = trace.length - 1; d > 0; d--) {
+			int[] prev = trace[d - 1];
+			int k = x - y;
+			boolean down = k == -d || (k != d && get(prev, d - 1, k - 1) < get(prev, d - 1, k + 1));
+			int prevK = down ? k + 1 : k - 1;
+			int prevX = get(prev, d - 1, prevK);
+			int prevY = prevX - prevK;
+			int midX = down ? prevX : prevX + 1;
+			int midY = midX - k;
+			int[] last = regions.isEmpty() ? null : regions.get(regions.size() - 1);
+			if(last != null && last[0] == start + midX && last[2] == start + midY) {
+				last[0] = start + prevX;
+				last[2] = start + prevY;
+			}
+			else regions.add(new int[] { start + prevX, start + midX, start + prevY, start + midY });
+			x = prevX;
+			y = prevY;
+		}
+		Collections.reverse(regions);
+		return regions;
+	}
+
+	/**
+	 * Myers' forward algorithm on the lines [oldStart, oldEnd) and [newStart, newEnd).
+	 * @return for each number of differences d, the furthest x reached on each diagonal k in -d..d,
+	 * or null if there are more than MAX_DIFFERENCES differences
+	 */
+	private int[][] diff(int oldStart, int oldEnd, int newStart, int newEnd) {
+		int n = oldEnd - oldStart, m = newEnd - newStart;
+		int max = Math.min(n + m, MAX_DIFFERENCES);
+		List<int[]> trace = new ArrayList<int[]>();
+		int[] prev = null;
+		for(int d = 0; d <= max; d++) {
+			int[] v = new int[2 * d + 1];
+			for(int k = -d; k <= d; k += 2) {
+				int x;
+				if(d == 0) x = 0;
+				else if(k == -d || (k != d && get(prev, d - 1, k - 1) < get(prev, d - 1, k + 1))) x = get(prev, d - 1, k + 1);
+				else x = get(prev, d - 1, k - 1) + 1;
+				int y = x - k;
+				while(x < n && y < m && oldLines.get(oldStart + x).equals(newLines.get(newStart + y))) { x++; y++; }
+				v[k + d] = x;
+				if(x >= n && y >= m) {
+					trace.add(v);
+					return trace.toArray(new int[trace.size()][]);
+				}
+			}
+			trace.add(v);
+			prev = v;
+		}
+		return null;
+	}
+
+	private static int get(int[] v, int d, int k) {
+		return v[k + d];
+	}
+
+	private ReplaceEdit createReplace(int oldFrom, int oldTo, int newFrom, int newTo) {
+		StringBuilder text = new StringBuilder();
+		for(int i = newFrom; i < newTo; i++) text.append(newLines.get(i));
+		return new ReplaceEdit(oldOffsets[oldFrom], oldOffsets[oldTo] - oldOffsets[oldFrom], text.toString());
+	}
+
+	/**
+	 * Splits a text into lines, each line keeping its line delimiter
+	 */
+	private static List<String> splitLines(String text) {
+		List<String> lines = new ArrayList<String>();
+		int start = 0;
+		for(int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if(c == '\n' || c == '\r') {
+				if(c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') i++;
+				lines.add(text.substring(start, i + 1));
+				start = i + 1;
+			}
+		}
+		if(start < text.length()) lines.add(text.substring(start));
+		return lines;
+	}
+}
@@ -85,6 +85,7 @@ package org.tirix.emetamath.editors.proofassistant;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRewriteTarget;
 import org.eclipse.jface.text.source.ICharacterPairMatcher;
 import org.eclipse.swt.custom.StyledText;
 import org.eclipse.swt.widgets.Composite;
@@ -100,6 +101,7 @@ import org.tirix.emetamath.editors.MetamathEditor;
 import org.tirix.emetamath.preferences.PreferenceConstants;
 
 import mmj.pa.ProofWorksheet;
+import mmj.pa.UnificationCache;
 
 /**
  *  The <code>ProofAssistantEditor</code> class is the main user
@@ -132,6 +134,9 @@ public class ProofAssistantEditor extends MetamathEditor {
 	
 	protected ICharacterPairMatcher fBracketMatcher;
 	
+	/** The results of the previous unifications of the proof of this editor */
+	private final UnificationCache fUnificationCache = new UnificationCache();
+	
 	protected void initializeEditor() {
 		super.initializeEditor();
 		setSourceViewerConfiguration(new ProofViewerConfiguration(this, new ColorManager()));
@@ -182,7 +187,14 @@ public class ProofAssistantEditor extends MetamathEditor {
 	}
 
 	public void displayProofWorksheet(ProofWorksheet w) {
-		getDocument().set(w);
+		// the changed lines are replaced separately, but undone at once
+		IRewriteTarget target = (IRewriteTarget)getAdapter(IRewriteTarget.class);
+		if(target != null) target.beginCompoundChange();
+		try {
+			getDocument().set(w);
+		} finally {
+			if(target != null) target.endCompoundChange();
+		}
 	}
 
 	@Override
@@ -199,6 +211,13 @@ public class ProofAssistantEditor extends MetamathEditor {
 		throw new RuntimeException("Control shall be a styled text");
 	}
 	
+	/**
+	 * Returns the cache of the previous unifications of the proof of this editor, see {@link UnificationCache}
+	 */
+	public UnificationCache getUnificationCache() {
+		return fUnificationCache;
+	}
+
 	public int getCursorPos() {
 		return getText().getCaretOffset();
 	}
@@ -6,7 +6,10 @@ import mmj.pa.ProofAsstPreferences;
 import mmj.pa.ProofWorksheet;
 import mmj.verify.Grammar;
 
+import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.Document;
+import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.TextEdit;
 import org.tirix.emetamath.nature.MetamathProjectNature;
 import org.tirix.emetamath.nature.MetamathProjectNature.SystemLoadListener;
 
@@ -46,9 +49,18 @@ public class ProofDocument extends Document implements SystemLoadListener {
 		proofWorksheetInitialized = true;
 	}
 
+	/**
+	 * Displays the given worksheet, replacing only the lines of the document which changed,
+	 * so that the partitioning, the annotations and the undo history are only updated for those lines.
+	 */
 	public void set(ProofWorksheet w) {
 		this.proofWorksheet = w;
-		set(w.getOutputProofText());
+		String text = w.getOutputProofText();
+		try {
+			LineDiff.createEdit(get(), text).apply(this, TextEdit.NONE);
+		} catch (MalformedTreeException | BadLocationException e) {
+			set(text);
+		}
 	}
 
 	@Override
@@ -1,24 +1,21 @@
 package org.tirix.emetamath.exportWizards;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.LineNumberReader;
-import java.io.Reader;
-import java.io.StringBufferInputStream;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.core.runtime.Path;
 import org.eclipse.jface.dialogs.IDialogSettings;
+import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.wizard.Wizard;
 import org.eclipse.ui.IExportWizard;
 import org.eclipse.ui.IWorkbench;
+import org.eclipse.ui.actions.WorkspaceModifyOperation;
 import org.eclipse.ui.internal.WorkbenchPlugin;
 import org.tirix.emetamath.nature.MetamathProjectNature;
 
@@ -35,6 +32,7 @@ public class ExportFlatMMWizard extends Wizard implements IExportWizard {
 			section = workbenchSettings.addNewSection("ExportFlatMMWizard.java");//$NON-NLS-1$
 		}
 		setDialogSettings(section);
+		setNeedsProgressMonitor(true);
 	}
 
     /* (non-Javadoc)
@@ -51,21 +49,33 @@ public class ExportFlatMMWizard extends Wizard implements IExportWizard {
 	public boolean performFinish() {
 		if(root == null) return false;
 		MetamathProjectNature nature = MetamathProjectNature.getNature(root);
-		IFile targetFile = mainPage.getTargetFile();
+		final IFile targetFile = mainPage.getTargetFile();
+		if(targetFile == null) return false;
 		boolean checkLineWidth = mainPage.getCheckLineWidth();
 		boolean checkTabs = mainPage.getCheckTabs();
 		System.out.println("Exporting project "+nature+" to "+targetFile);
+		final IFile mainFile = (IFile)nature.getMainFile();
+		WorkspaceModifyOperation op = new WorkspaceModifyOperation() {
+			@Override
+			protected void execute(IProgressMonitor monitor) throws CoreException, InvocationTargetException {
+				monitor.beginTask("Exporting "+mainFile.getName()+" to "+targetFile.getName(), IProgressMonitor.UNKNOWN);
+				try {
+					flattenFile(mainFile, targetFile, monitor);
+				} catch (IOException e) {
+					throw new InvocationTargetException(e);
+				} finally {
+					monitor.done();
+				}
+			}
+		};
 		try {
-			IFile mainFile = (IFile)nature.getMainFile();
-			StringBuffer buffer = new StringBuffer();
-			flattenFile(mainFile, buffer);
-			boolean force = true;
-			boolean keepHistory = true;
-			IProgressMonitor monitor = null;
-			targetFile.setContents(new StringBufferInputStream(buffer.toString()), force, keepHistory, monitor);
-		} catch (Exception e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			getContainer().run(true, true, op);
+		} catch (InterruptedException e) {
+			// canceled
+			return false;
+		} catch (InvocationTargetException e) {
+			Throwable realException = e.getTargetException();
+			MessageDialog.openError(getShell(), "Export Error", realException.getMessage());
 			return false;
 		}
 		return true;
@@ -77,21 +87,21 @@ public class ExportFlatMMWizard extends Wizard implements IExportWizard {
 		if(first instanceof IProject) this.root = (IProject)first;
 	}
 	
-	protected void flattenFile(IFile inputFile, StringBuffer out) throws IOException, CoreException {
-		InputStreamReader reader = new InputStreamReader(inputFile.getContents());
-		LineNumberReader lnr = new LineNumberReader(reader);
-		Pattern pattern = Pattern.compile("\\$\\[ (.*) \\$\\]");
-		String str;
-		while((str = lnr.readLine()) != null) {
-			Matcher matcher = pattern.matcher(str);
-			if(matcher.matches()) {
-				String fileName = matcher.group(1);
-				IFile file = root.getFile(new Path(fileName));
-				flattenFile(file, out);
-			}
-			else {
-				out.append(str+"\n");
-			}
+	/**
+	 * Writes the flat contents of the input file, with the contents of the included files
+	 * in place of the file inclusion lines, to the target file.
+	 * The contents are streamed from the included files to the target file, see {@link FlatMMInputStream}.
+	 * 
+	 * @param inputFile the main Metamath file
+	 * @param targetFile the flat Metamath file to write
+	 * @param monitor the progress monitor, canceling it interrupts the export
+	 */
+	protected void flattenFile(IFile inputFile, IFile targetFile, IProgressMonitor monitor) throws IOException, CoreException {
+		boolean force = true;
+		boolean keepHistory = true;
+		try (InputStream in = new FlatMMInputStream(inputFile, root, monitor)) {
+			if(targetFile.exists()) targetFile.setContents(in, force, keepHistory, null);
+			else targetFile.create(in, force, null);
 		}
 	}
 }
@@ -0,0 +1,226 @@
+package org.tirix.emetamath.exportWizards;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * The flat contents of a Metamath file, read as a stream: each file inclusion
+ * line <code>$[ file $]</code> is replaced by the flat contents of the
+ * included file.
+ * <p>
+ * The included files are opened when their inclusion line is reached and
+ * copied through a buffer, a line at a time, so the flat file is never held in
+ * memory. As with <code>BufferedReader.readLine()</code>, lines may end with a
+ * line feed, a carriage return or both, and each line of the flat file ends
+ * with a line feed.
+ * <p>
+ * The name of each file is reported as a sub-task of the progress monitor,
+ * and reading throws an {@link OperationCanceledException} once the monitor
+ * is canceled.
+ *
+ * @author Thierry
+ */
+public class FlatMMInputStream extends InputStream {
+	private static final int BUFFER_SIZE = 65536;
+	private static final byte[] INCLUDE_START = { '$', '[', ' ' };
+	private static final byte[] INCLUDE_END = { ' ', '$', ']' };
+
+	private final IContainer root;
+	private final IProgressMonitor monitor;
+	private final Deque<Input> inputs = new ArrayDeque<>();
+
+	/**
+	 * One of the files being read: the main file, or a file included by the
+	 * file below it in the stack.
+	 */
+	private static class Input {
+		final IFile file;
+		final String charset;
+		final InputStream in;
+		byte[] buf = new byte[BUFFER_SIZE];
+		int pos, limit;
+		boolean eof;
+		boolean atLineStart = true;
+		boolean afterCR;
+
+		Input(IFile file) throws CoreException {
+			this.file = file;
+			charset = file.getCharset();
+			in = file.getContents();
+		}
+
+		/**
+		 * Reads more bytes after those not consumed yet, moving them to the
+		 * start of the buffer, and growing it if it is full.
+		 * @return false at the end of the file
+		 */
+		boolean fill() throws IOException {
+			if(eof) return false;
+			if(pos > 0) {
+				System.arraycopy(buf, pos, buf, 0, limit - pos);
+				limit -= pos;
+				pos = 0;
+			}
+			if(limit == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+			int n = in.read(buf, limit, buf.length - limit);
+			if(n < 0) {
+				eof = true;
+				return false;
+			}
+			limit += n;
+			return true;
+		}
+
+		/**
+		 * @return the index of the end of the line starting at <code>pos</code>,
+		 * reading more of the file as needed, or <code>limit</code> at the end of the file
+		 */
+		int findLineEnd() throws IOException {
+			int i = pos;
+			while(true) {
+				for(; i < limit; i++)
+					if(buf[i] == '\n' || buf[i] == '\r') return i;
+				int read = i - pos;
+				if(!fill()) return limit;
+				i = pos + read;
+			}
+		}
+	}
+
+	/**
+	 * Creates a flat file stream.
+	 *
+	 * @param mainFile the Metamath file to flatten
+	 * @param root the container against which included file names are resolved
+	 * @param monitor the progress monitor, may be <code>null</code>
+	 * @throws CoreException if the main file cannot be opened
+	 */
+	public FlatMMInputStream(IFile mainFile, IContainer root, IProgressMonitor monitor) throws CoreException {
+		this.root = root;
+		this.monitor = monitor;
+		open(mainFile);
+	}
+
+	private void open(IFile file) throws CoreException {
+		if(monitor != null) monitor.subTask(file.getFullPath().toString());
+		inputs.push(new Input(file));
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] b = new byte[1];
+		return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0) return 0;
+		if(monitor != null && monitor.isCanceled()) throw new OperationCanceledException();
+		int count = 0;
+		while(count < len && !inputs.isEmpty()) {
+			Input input = inputs.peek();
+			if(input.pos == input.limit && !input.fill()) {
+				if(!input.atLineStart) {
+					// last line without a line terminator
+					b[off + count++] = '\n';
+					input.atLineStart = true;
+					continue;
+				}
+				inputs.pop().in.close();
+				if(monitor != null) {
+					monitor.worked(1);
+					if(!inputs.isEmpty()) monitor.subTask(inputs.peek().file.getFullPath().toString());
+				}
+				continue;
+			}
+			if(input.afterCR) {
+				input.afterCR = false;
+				if(input.buf[input.pos] == '\n') {
+					input.pos++;
+					continue;
+				}
+			}
+			if(input.atLineStart && startsInclude(input)) {
+				int end = input.findLineEnd();
+				IFile file = includedFile(input, end);
+				if(file != null) {
+					input.pos = end;
+					skipLineTerminator(input);
+					try {
+						open(file);
+					} catch(CoreException e) {
+						throw new IOException(e.getMessage(), e);
+					}
+					continue;
+				}
+			}
+			// copy the rest of the line, as much of it as there is room for
+			int end = input.pos, max = input.pos + Math.min(len - count, input.limit - input.pos);
+			while(end < max && input.buf[end] != '\n' && input.buf[end] != '\r') end++;
+			System.arraycopy(input.buf, input.pos, b, off + count, end - input.pos);
+			count += end - input.pos;
+			input.atLineStart = false;
+			input.pos = end;
+			if(end < input.limit && count < len) {
+				skipLineTerminator(input);
+				b[off + count++] = '\n';
+			}
+		}
+		return count == 0 && inputs.isEmpty() ? -1 : count;
+	}
+
+	/**
+	 * Consumes the line terminator at <code>pos</code>, if any.
+	 */
+	private static void skipLineTerminator(Input input) {
+		if(input.pos == input.limit) return;
+		input.afterCR = input.buf[input.pos] == '\r';
+		input.pos++;
+		input.atLineStart = true;
+	}
+
+	private static boolean startsInclude(Input input) throws IOException {
+		while(input.limit - input.pos < INCLUDE_START.length)
+			if(!input.fill()) return false;
+		for(int i = 0; i < INCLUDE_START.length; i++)
+			if(input.buf[input.pos + i] != INCLUDE_START[i]) return false;
+		return true;
+	}
+
+	/**
+	 * @return the file included by the line from <code>pos</code> to <code>end</code>,
+	 * or <code>null</code> if it is not a file inclusion line
+	 */
+	private IFile includedFile(Input input, int end) throws UnsupportedEncodingException {
+		int length = end - input.pos - INCLUDE_START.length - INCLUDE_END.length;
+		if(length < 0) return null;
+		for(int i = 0; i < INCLUDE_END.length; i++)
+			if(input.buf[end - INCLUDE_END.length + i] != INCLUDE_END[i]) return null;
+		String fileName = new String(input.buf, input.pos + INCLUDE_START.length, length, input.charset);
+		return root.getFile(new Path(fileName));
+	}
+
+	@Override
+	public void close() throws IOException {
+		IOException exception = null;
+		while(!inputs.isEmpty()) {
+			try {
+				inputs.pop().in.close();
+			} catch(IOException e) {
+				exception = e;
+			}
+		}
+		if(exception != null) throw exception;
+	}
+}
@@ -7,20 +7,28 @@ import org.eclipse.core.commands.ExecutionException;
 import org.eclipse.core.expressions.IEvaluationContext;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.text.Document;
 import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.swt.SWT;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.MessageBox;
 import org.eclipse.ui.part.FileEditorInput;
 import org.tirix.emetamath.MetamathUI;
 import org.tirix.emetamath.editors.proofassistant.ProofAssistantEditor;
+import org.tirix.emetamath.editors.proofassistant.ProofDocument;
+import org.tirix.emetamath.nature.MetamathBuilder.MMProgressMonitor;
 import org.tirix.emetamath.nature.MetamathProjectNature;
 import org.tirix.emetamath.nature.MetamathProjectNature.DocumentSource;
 import org.tirix.emetamath.nature.MetamathProjectNature.MetamathMessageHandler;
 import org.tirix.emetamath.nature.MetamathProjectNature.ResourceSource;
 
-import mmj.mmio.Source;
 import mmj.mmio.SourcePosition;
 import mmj.pa.PreprocessRequest;
 import mmj.pa.ProofAsst;
@@ -47,23 +55,98 @@ public class UnifyHandler extends MetamathEditorActionHandler {
 		return null; // must return null...
 	}
 
+    /**
+     * Unifies the proof of the given editor.
+     * 
+     * The unification runs in a background job, on a copy of the proof text, so that the workbench
+     * is not frozen meanwhile. A new unification of the same editor cancels the one still running,
+     * and the result is only applied to the editor, in the UI thread, if the proof did not change meanwhile.
+     */
     protected void unify(
     		IEvaluationContext context,
-    		ProofAssistantEditor editor,
-    		boolean           renumReq,
-    		boolean 		  noConvertWV,
-            PreprocessRequest preprocessRequest,
-            StepRequest       stepRequest,
-            TLRequest         tlRequest, 
-            boolean 		  printOkMessages) throws ExecutionException {
-
-		MetamathProjectNature nature = getNature(context);
-		ProofAsst proofAsst = nature.getProofAsst();
-		int inputCursorPos = editor.getCursorPos();
-
-		Source sourceId = new DocumentSource(editor.getDocument(), editor, "Proof Text");
+    		final ProofAssistantEditor editor,
+    		final boolean     renumReq,
+    		final boolean 	  noConvertWV,
+            final PreprocessRequest preprocessRequest,
+            final StepRequest stepRequest,
+            final TLRequest   tlRequest, 
+            final boolean 	  printOkMessages) throws ExecutionException {
+
+		final MetamathProjectNature nature = getNature(context);
+		final ProofAsst proofAsst = nature.getProofAsst();
+		if(proofAsst == null) {
+			clearMessages(nature, editor);
+			return; // TODO showMessage to user -  using MessageDialog
+		}
+
+		final int inputCursorPos = editor.getCursorPos();
+		final ProofDocument document = editor.getDocument();
+		final long modificationStamp = document.getModificationStamp();
+		// TODO use the Store interface and do changes directly in the editor's TextStore...
+		final Document proofText = new Document(document.get());
+		final DocumentSource sourceId = new DocumentSource(proofText, editor, "Proof Text");
+		sourceId.deferAnnotations();
+		final Display display = editor.getSite().getShell().getDisplay();
+
+		// stale unifications of this editor are not wanted anymore
+		Job.getJobManager().cancel(editor);
+		Job job = new Job("Unifying proof") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				final ProofWorksheet w;
+				try {
+					proofAsst.proofUnifier.setUnifyProgress(new MMProgressMonitor("Unifying proof", monitor));
+					proofAsst.setUnificationCache(editor.getUnificationCache());
+			        w = proofAsst.unify(renumReq,
+		                	  noConvertWV,
+		                	  sourceId,
+		                	  preprocessRequest,
+		                      stepRequest,
+		                      tlRequest,
+		                      inputCursorPos, 
+		                      printOkMessages);
+				} catch(RuntimeException e) {
+					if(monitor.isCanceled()) return Status.CANCEL_STATUS;
+					throw e;
+				} finally {
+					proofAsst.proofUnifier.setUnifyProgress(null);
+					proofAsst.setUnificationCache(null);
+					monitor.done();
+				}
+				if(monitor.isCanceled()) return Status.CANCEL_STATUS;
+				if(display.isDisposed()) return Status.OK_STATUS;
+
+				display.asyncExec(new Runnable() {
+					@Override
+					public void run() {
+						if(editor.getDocument() != document || document.getModificationStamp() != modificationStamp) {
+							System.out.println("Unification result discarded, the proof was changed meanwhile.");
+							return;
+						}
+						clearMessages(nature, editor);
+						sourceId.flushAnnotations();
+						showResult(nature, editor, w, inputCursorPos, preprocessRequest != null ? proofText.get() : null);
+					}
+				});
+				return Status.OK_STATUS;
+			}
+
+			@Override
+			public boolean belongsTo(Object family) {
+				return family == editor;
+			}
+		};
+		// the proof assistant cannot unify two proofs at the same time
+		job.setRule(new ProofAsstRule(proofAsst));
+		job.setUser(false);
+		job.schedule();
+	}
+
+    /**
+     * Clears the markers and annotations of the given editor - unification will re-create them
+     */
+	private static void clearMessages(MetamathProjectNature nature, ProofAssistantEditor editor) {
 		if(editor.getEditorInput() instanceof FileEditorInput) {
-			// clear markers - unification will re-create them 
 			IFile file = ((FileEditorInput)editor.getEditorInput()).getFile(); // TODO consider WorkStorageEditor case
 			((MetamathMessageHandler)nature.getMessageHandler()).clearMessages(file);
 			
@@ -72,21 +155,13 @@ public class UnifyHandler extends MetamathEditorActionHandler {
 			for(@SuppressWarnings("unchecked")
 			Iterator<Annotation> i = annotationModel.getAnnotationIterator();i.hasNext();) annotationModel.removeAnnotation(i.next());
 		}
-		if(proofAsst == null) return; // TODO showMessage to user -  using MessageDialog
-		
-		// TODO use a Request or a Worker with Progress to perform the search in the background
-		// TODO use the Store interface and do changes directly in the editor's TextStore...
-        ProofWorksheet w =
-            proofAsst.
-                unify(renumReq,
-                	  noConvertWV,
-                	  sourceId,
-                	  preprocessRequest,
-                      stepRequest,
-                      tlRequest,
-                      inputCursorPos, 
-                      printOkMessages);
+	}
 
+	/**
+	 * Applies the result of an unification to the editor. Shall be called from the UI thread.
+	 * @param preprocessedText the proof text after the preprocess request, or null if there was none
+	 */
+	private static void showResult(MetamathProjectNature nature, ProofAssistantEditor editor, ProofWorksheet w, int inputCursorPos, String preprocessedText) {
         if (!w.hasStructuralErrors()) {
 	        if (w.getStepSelectorStore() != null) {
 	        	if(w.getStepSelectorStore().isEmpty()) {
@@ -113,12 +188,36 @@ public class UnifyHandler extends MetamathEditorActionHandler {
         }
         else {
        		System.out.println("Unification completed. Structural errors, moving to "+w.getProofCursor().getCaretCharNbr());
+       		// keep the changes of the preprocess request, which were made on the copy of the proof text
+       		if(preprocessedText != null && !preprocessedText.equals(editor.getDocument().get())) 
+       			editor.getDocument().set(preprocessedText);
         	// TODO showMessage to user
         	// TODO set cursor to w.proofAsstCursor
         	editor.selectAndReveal(inputCursorPos, 0); //w.getProofCursor().getCaretCharNbr(), 0);
         	MetamathUI.showProblemsView();
         }
 	}
+
+	/**
+	 * Scheduling rule preventing two unification jobs from using the same proof assistant at the same time
+	 */
+	private static class ProofAsstRule implements ISchedulingRule {
+		private final ProofAsst proofAsst;
+
+		ProofAsstRule(ProofAsst proofAsst) {
+			this.proofAsst = proofAsst;
+		}
+
+		@Override
+		public boolean contains(ISchedulingRule rule) {
+			return rule == this;
+		}
+
+		@Override
+		public boolean isConflicting(ISchedulingRule rule) {
+			return rule instanceof ProofAsstRule && ((ProofAsstRule)rule).proofAsst == proofAsst;
+		}
+	}
 }
 
 // from ProofAsstGUI
@@ -0,0 +1,65 @@
+package org.tirix.emetamath.nature;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.RGB;
+
+import mmj.gmff.GMFFManager;
+import mmj.lang.BookManager;
+import mmj.lang.Cnst;
+import mmj.lang.LogicalSystem;
+import mmj.lang.SeqAssigner;
+import mmj.lang.WorkVarManager;
+import mmj.mmio.Systemizer;
+import mmj.pa.ProofAsst;
+import mmj.tl.TheoremLoader;
+import mmj.verify.Grammar;
+import mmj.verify.VerifyProofs;
+
+/**
+ * One generation of the Metamath model of a project: the logical system loaded from
+ * the project files, and the grammar, proof verifier and proof assistant built on it.
+ *
+ * A full build constructs a new generation off to the side, while the editors and views
+ * keep reading the generation published by the project nature. Once completely built,
+ * the new generation replaces the previous one in a single step,
+ * see {@link MetamathProjectNature#publishGeneration(BuildGeneration)}.
+ * A build which fails or is cancelled is discarded, and the previous generation stays published.
+ *
+ * @author Thierry
+ */
+class BuildGeneration {
+	final LogicalSystem logicalSystem;
+	final Systemizer systemizer;
+	final BookManager bookManager;
+	final SeqAssigner seqAssigner;
+	final GMFFManager gmffManager;
+
+	Grammar grammar;
+	VerifyProofs verifyProofs;
+	WorkVarManager workVarManager;
+	TheoremLoader theoremLoader;
+	ProofAsst proofAsst;
+
+	boolean allStatementsParsedSuccessfully;
+	boolean allProofsVerifiedSuccessfully;
+
+	// the types of the logical system, set once it is loaded
+	Cnst provableType;
+	List<Cnst> types;
+	Map<Cnst, RGB> typeColors;
+	Map<Cnst, Image> typeIcons;
+	Map<Cnst, String> typeIconURLs;
+	Map<Cnst, String> typeWorkVars;
+
+	BuildGeneration(LogicalSystem logicalSystem, Systemizer systemizer, BookManager bookManager,
+			SeqAssigner seqAssigner, GMFFManager gmffManager) {
+		this.logicalSystem = logicalSystem;
+		this.systemizer = systemizer;
+		this.bookManager = bookManager;
+		this.seqAssigner = seqAssigner;
+		this.gmffManager = gmffManager;
+	}
+}
@@ -0,0 +1,209 @@
+package org.tirix.emetamath.nature;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Timings and counters of the phases of one build, see {@link MetamathBuilder}.
+ *
+ * For each phase, the elapsed time, the bytes allocated by the build thread
+ * (the parse and proof verification worker threads are not included),
+ * and the heap high-water mark are recorded, along with the counters provided by the builder.
+ *
+ * The metrics of the last build of a project are dumped as JSON into the project working location,
+ * see {@link MetamathProjectNature#setBuildMetrics(BuildMetrics)}
+ *
+ * @author Thierry
+ */
+class BuildMetrics {
+	private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+	private static final Method getThreadAllocatedBytes = findGetThreadAllocatedBytes();
+
+	private final String kind;
+	private final long startTime;
+	private final long startNanos;
+	private final List<Phase> phases = new ArrayList<Phase>();
+	private long elapsedNanos = -1;
+
+	/**
+	 * One phase of a build
+	 */
+	class Phase {
+		private final String name;
+		private final long startNanos;
+		private final long startAllocatedBytes;
+		private long elapsedNanos = -1;
+		private long allocatedBytes = -1;
+		private long heapPeakBytes = -1;
+		private final Map<String, Long> counters = new LinkedHashMap<String, Long>();
+
+		private Phase(String name) {
+			this.name = name;
+			resetHeapPeak();
+			this.startAllocatedBytes = getAllocatedBytes();
+			this.startNanos = System.nanoTime();
+		}
+
+		/**
+		 * Ends this phase
+		 * @return this phase, to add counters
+		 */
+		Phase end() {
+			elapsedNanos = System.nanoTime() - startNanos;
+			if(startAllocatedBytes >= 0) allocatedBytes = getAllocatedBytes() - startAllocatedBytes;
+			heapPeakBytes = getHeapPeak();
+			return this;
+		}
+
+		/**
+		 * Records a counter of this phase
+		 * @return this phase
+		 */
+		Phase count(String counter, long value) {
+			counters.put(counter, value);
+			return this;
+		}
+
+		/**
+		 * Records a rate, per second of this phase
+		 * @return this phase
+		 */
+		Phase rate(String counter, long value) {
+			if(elapsedNanos > 0) counters.put(counter, value * 1000000000L / elapsedNanos);
+			return this;
+		}
+
+		JSONObject toJSON() {
+			JSONObject o = new JSONObject();
+			o.put("name", name);
+			o.put("elapsedMillis", elapsedNanos / 1000000);
+			if(allocatedBytes >= 0) o.put("buildThreadAllocatedBytes", allocatedBytes);
+			if(heapPeakBytes >= 0) o.put("heapPeakBytes", heapPeakBytes);
+			for(Map.Entry<String, Long> counter:counters.entrySet())
+				o.put(counter.getKey(), counter.getValue().longValue());
+			return o;
+		}
+
+		@Override
+		public String toString() {
+			return name+": "+(elapsedNanos / 1000000)+" ms "+counters;
+		}
+	}
+
+	/**
+	 * Starts recording a build
+	 * @param kind the kind of build: full, incremental, ...
+	 */
+	BuildMetrics(String kind) {
+		this.kind = kind;
+		this.startTime = System.currentTimeMillis();
+		this.startNanos = System.nanoTime();
+	}
+
+	/**
+	 * Starts a new phase of the build, to be ended with {@link Phase#end()}
+	 */
+	Phase startPhase(String name) {
+		Phase phase = new Phase(name);
+		phases.add(phase);
+		return phase;
+	}
+
+	/**
+	 * Ends the recording of the build
+	 */
+	void end() {
+		elapsedNanos = System.nanoTime() - startNanos;
+	}
+
+	/**
+	 * @return true if nothing was built
+	 */
+	boolean isEmpty() {
+		return phases.isEmpty();
+	}
+
+	JSONObject toJSON() {
+		JSONObject o = new JSONObject();
+		o.put("kind", kind);
+		o.put("startTime", startTime);
+		o.put("elapsedMillis", elapsedNanos / 1000000);
+		o.put("heapMaxBytes", Runtime.getRuntime().maxMemory());
+		JSONArray a = new JSONArray();
+		for(Phase phase:phases) a.put(phase.toJSON());
+		o.put("phases", a);
+		return o;
+	}
+
+	/**
+	 * Writes these metrics as JSON into the given file
+	 */
+	void write(File file) throws IOException {
+		file.getParentFile().mkdirs();
+		try(Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+			writer.write(toJSON().toString(2));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return kind+" build: "+(elapsedNanos / 1000000)+" ms "+phases;
+	}
+
+	/**
+	 * The allocated bytes are only provided by the HotSpot JVM, through <code>com.sun.management.ThreadMXBean</code>,
+	 * which is looked up through the system class loader, as the bundle class loader does not see it.
+	 * @return the getThreadAllocatedBytes method, or null if not available
+	 */
+	private static Method findGetThreadAllocatedBytes() {
+		try {
+			Class<?> c = Class.forName("com.sun.management.ThreadMXBean", false, ClassLoader.getSystemClassLoader());
+			if(!c.isInstance(threadBean)) return null;
+			return c.getMethod("getThreadAllocatedBytes", long.class);
+		} catch(Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the bytes allocated so far by the current thread, or -1 if not available
+	 */
+	private static long getAllocatedBytes() {
+		if(getThreadAllocatedBytes == null) return -1;
+		try {
+			return ((Long)getThreadAllocatedBytes.invoke(threadBean, Thread.currentThread().getId())).longValue();
+		} catch(Exception e) {
+			return -1;
+		}
+	}
+
+	private static void resetHeapPeak() {
+		for(MemoryPoolMXBean pool:ManagementFactory.getMemoryPoolMXBeans())
+			if(pool.getType() == MemoryType.HEAP && pool.isValid()) pool.resetPeakUsage();
+	}
+
+	/**
+	 * @return the sum of the peak usage of the heap memory pools since the last reset
+	 */
+	private static long getHeapPeak() {
+		long peak = 0;
+		for(MemoryPoolMXBean pool:ManagementFactory.getMemoryPoolMXBeans())
+			if(pool.getType() == MemoryType.HEAP && pool.isValid()) peak += pool.getPeakUsage().getUsed();
+		return peak;
+	}
+}
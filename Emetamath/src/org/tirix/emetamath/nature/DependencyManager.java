@@ -51,6 +51,23 @@ public class DependencyManager<F> {
 		}
 	}
 
+	/**
+	 * Returns the files included by the given file starting from the given position,
+	 * directly or through other included files.
+	 * @param file the including file
+	 * @param offset the offset starting which includes are considered
+	 */
+	public List<F> getIncludedFiles(final F file, final long offset) {
+		List<F> files = new ArrayList<F>();
+		for(Dependency<F> d:dependencies) {
+			if(!d.includer.equals(file) || d.offset < offset || files.contains(d.includee)) continue;
+			files.add(d.includee);
+			for(F f:getIncludedFiles(d.includee, 0)) 
+				if(!files.contains(f)) files.add(f);
+		}
+		return files;
+	}
+
 	/**
 	 * Returns the list of files to be built, as well as the offset from which the build shall start
 	 * Note that this is not provided in any specific build order
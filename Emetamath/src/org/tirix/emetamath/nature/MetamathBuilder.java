@@ -10,6 +10,7 @@ import java.util.Map;
 
 import org.eclipse.core.resources.ICommand;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
@@ -19,6 +20,7 @@ import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubMonitor;
+import org.tirix.emetamath.nature.BuildMetrics.Phase;
 import org.tirix.emetamath.nature.MetamathProjectNature.MetamathMessageHandler;
 import org.tirix.emetamath.nature.MetamathProjectNature.ResourceSource;
 
@@ -32,6 +34,7 @@ import mmj.mmio.Source;
 import mmj.util.Progress;
 import mmj.util.UtilConstants;
 import mmj.verify.Grammar;
+import mmj.verify.VerificationStatus;
 import mmj.verify.VerifyException;
 import mmj.verify.VerifyProofs;
 
@@ -138,32 +141,43 @@ public class MetamathBuilder extends IncrementalProjectBuilder {
 			throws CoreException {
 		
 		MetamathProjectNature nature = (MetamathProjectNature)getProject().getNature(MetamathProjectNature.NATURE_ID);
+		nature.cancelSnapshotSave();
 		
+		BuildMetrics metrics = new BuildMetrics(kind == FULL_BUILD ? "full" : "incremental");
 		if (kind == FULL_BUILD) {
-			fullBuild(nature, monitor);
+			fullBuild(nature, metrics, monitor);
 		} else {
 			IResourceDelta delta = getDelta(getProject());
 			if (delta == null) {
-				fullBuild(nature, monitor);
+				fullBuild(nature, metrics, monitor);
 			} else {
-				incrementalBuild(delta, nature, monitor);
+				incrementalBuild(delta, nature, metrics, monitor);
 			}
 		}
+		metrics.end();
+		if(!metrics.isEmpty()) nature.setBuildMetrics(metrics);
 		return null;
 	}
 
+	/**
+	 * Discards the build snapshot, so that the next build parses and verifies everything again.
+	 */
+	@Override
+	protected void clean(IProgressMonitor monitor) throws CoreException {
+		MetamathProjectNature nature = (MetamathProjectNature)getProject().getNature(MetamathProjectNature.NATURE_ID);
+		nature.deleteSnapshot();
+	}
+
 	/**
 	 * Perform a full build
 	 * 
 	 * @param monitor
 	 * @throws CoreException
 	 */
-	protected void fullBuild(MetamathProjectNature nature, final IProgressMonitor monitor) throws CoreException {
+	protected void fullBuild(MetamathProjectNature nature, BuildMetrics metrics, final IProgressMonitor monitor) throws CoreException {
 		// delete all project markers
 		nature.getProject().deleteMarkers(MetamathProjectNature.MARKER_TYPE, false, IResource.DEPTH_INFINITE);
-		// empty logical system, in order not to have duplicate symbols
-		nature.clearLogicalSystem(nature.getMainFile(), 0, nature.getMessageHandler());
-		buildMetamath(nature, nature.getMainFile(), 0, monitor);
+		buildMetamath(nature, nature.getMainFile(), 0, metrics, monitor);
 	}
 
 	/**
@@ -173,7 +187,7 @@ public class MetamathBuilder extends IncrementalProjectBuilder {
 	 * @throws CoreException
 	 */
 	protected void incrementalBuild(IResourceDelta delta, final MetamathProjectNature nature, 
-			final IProgressMonitor monitor) throws CoreException {
+			final BuildMetrics metrics, final IProgressMonitor monitor) throws CoreException {
 
 		// Start with an empty build list
 		nature.dependencies.clearBuildList();
@@ -199,7 +213,7 @@ public class MetamathBuilder extends IncrementalProjectBuilder {
 				// if an XML typesetting file was changed, parse it again.
 				if(delta.getResource().getName().equals("typesetting.xml")) { 
 					System.out.println("Reloading Typesetting because of "+delta+" "+delta.getKind());
-					loadTypesetting(nature, (IFile)delta.getResource(), monitor);
+					loadTypesetting(nature, (IFile)delta.getResource(), metrics, monitor);
 					return false; 
 				}
 				return false;
@@ -207,43 +221,41 @@ public class MetamathBuilder extends IncrementalProjectBuilder {
 		});
 
 		// do a partial build based on information accumulated in nature.dependencies 
-		partialBuild(nature, monitor);
+		partialBuild(nature, metrics, monitor);
 	}
 
 	/**
-	 * Perform a partial build of only the listed resources
+	 * Perform a partial build of the listed resources, from the top level file including them
 	 * @throws CoreException 
 	 */
-	protected void partialBuild(MetamathProjectNature nature, IProgressMonitor monitor) throws CoreException {
-		// delete project markers of files that will be rebuilt
-		//for(IResource r:nature.dependencies.getBuildList().keySet()) r.deleteMarkers(MetamathProjectNature.MARKER_TYPE, false, IResource.DEPTH_INFINITE);
-		// delete all project markers
-		nature.getProject().deleteMarkers(MetamathProjectNature.MARKER_TYPE, false, IResource.DEPTH_INFINITE);
-		
+	protected void partialBuild(MetamathProjectNature nature, BuildMetrics metrics, IProgressMonitor monitor) throws CoreException {
 		IResource target = nature.dependencies.getTopBuildFile();
 		long offset = nature.dependencies.getTopBuildFileOffset();
 		if(target == null) {
 			System.out.println("Partial build: Nothing to be built!");
 			return;
 		}
-		System.out.println("Would do Partial build: start from "+target+" @ "+offset);
-		
-		// TODO here we do a full build anyway...
-		System.out.println("Full build");
-		
-		// empty logical system, in order not to have duplicate symbols
-		nature.clearLogicalSystem(target, offset, nature.getMessageHandler()); // here a new MessageHandler was created...
-		buildMetamath(nature, target, offset, monitor);
+
+		// the changed files are loaded again into a new generation, built off to the side, 
+		// so that the published generation stays readable and consistent until it is replaced
+		nature.getProject().deleteMarkers(MetamathProjectNature.MARKER_TYPE, false, IResource.DEPTH_INFINITE);
+		if(!buildMetamath(nature, target, offset, metrics, monitor)) {
+			// the previous generation stays published, the next build has to build the changes again
+			forgetLastBuiltState();
+		}
 	}
 
-	private void loadTypesetting(MetamathProjectNature nature, IFile typeSettingFile, IProgressMonitor monitor) {
+	private void loadTypesetting(MetamathProjectNature nature, IFile typeSettingFile, BuildMetrics metrics, IProgressMonitor monitor) {
+		Phase phase = metrics.startPhase("typesetting");
 		try {
 			nature.getMathMLTypeSetting().setData(new InputStreamReader(typeSettingFile.getContents(), "UTF-8"));
 		} catch (Exception e) {
 			// use the monitor to report the exception?
 			//e.printStackTrace();
 			System.err.println(e.getMessage());
-		} 
+		} finally {
+			phase.end();
+		}
 	}
 
 		//	public static class MmDeltaVisitor implements IResourceDeltaVisitor {
@@ -296,30 +308,95 @@ public class MetamathBuilder extends IncrementalProjectBuilder {
 //		}
 //	}
 
-	static void buildMetamath(MetamathProjectNature nature, IResource resource, long offset, IProgressMonitor monitor) {
+	/**
+	 * Load, parse and verify a metamath file, in a new generation of the Metamath model.
+	 * 
+	 * The new generation is only published once completely built: if the build fails or is cancelled, 
+	 * it is discarded and the editors keep the previously published generation.
+	 * 
+	 * @return true if the new generation was published
+	 */
+	static boolean buildMetamath(MetamathProjectNature nature, IResource resource, long offset, BuildMetrics metrics, IProgressMonitor monitor) {
 		if (resource instanceof IFile && resource.getName().endsWith(".mm")) {
 			IFile file = (IFile) resource;
 			MetamathMessageHandler messageHandler = nature.messageHandler;
+			BuildGeneration gen = nature.newGeneration(resource, offset, messageHandler);
 			try {
 				SubMonitor progress = SubMonitor.convert(monitor, 100);
 				ResourceSource source = new ResourceSource(file, nature.getProject());
 				// TODO get nature from file.getProject().getNature()?
-				doLoadFile(source, nature, messageHandler, progress.newChild(30));
-				doInitGrammar(nature, messageHandler, progress.newChild(10));
-				doParse(source, nature, messageHandler, progress.newChild(30));
-				doVerifyProof(nature, messageHandler, progress.newChild(30));
+				Phase phase = metrics.startPhase("load");
+				doLoadFile(source, nature, gen, messageHandler, progress.newChild(30));
+				countLoad(phase.end(), gen);
+				phase = metrics.startPhase("grammarInit");
+				doInitGrammar(nature, gen, messageHandler, progress.newChild(10));
+				phase.end();
+				// the files did not change since the last build without errors
+				phase = metrics.startPhase("snapshotRestore");
+				byte[] snapshotKey = computeSnapshotKey(nature, gen);
+				boolean restored = snapshotKey != null && nature.restoreSnapshot(gen, snapshotKey);
+				phase.end().count("restored", restored ? 1 : 0);
+				if(!restored) {
+					doParse(source, nature, gen, messageHandler, 0, metrics, progress.newChild(30));
+					doVerifyProof(nature, gen, messageHandler, 0, metrics, progress.newChild(30));
+					saveSnapshot(nature, gen, snapshotKey);
+				}
+				nature.publishGeneration(gen);
+				return true;
 			} catch (Exception e) {
-				e.printStackTrace();
+				if(!monitor.isCanceled()) e.printStackTrace();
 			} finally {
 				monitor.done();
 			}
 		}
+		return false;
+	}
+
+	/**
+	 * Records the load counters: size of the files loaded, tokens read and statements loaded.
+	 */
+	private static Phase countLoad(Phase phase, BuildGeneration gen) {
+		long sourceBytes = 0;
+		for(Source source:gen.systemizer.getLoadedSources()) {
+			try {
+				sourceBytes += source.getSize();
+			} catch (FileNotFoundException e) {
+				// deleted since it was loaded
+			}
+		}
+		int statements = gen.logicalSystem.getStmtTbl().size();
+		return phase.count("files", gen.systemizer.getLoadedSources().size())
+			.count("sourceBytes", sourceBytes)
+			.count("tokens", gen.systemizer.getNbrTokensRead())
+			.count("statements", statements)
+			.rate("statementsPerSecond", statements);
+	}
+
+	/**
+	 * Computes the build snapshot key of the files just loaded, or returns null if they cannot be read.
+	 */
+	private static byte[] computeSnapshotKey(MetamathProjectNature nature, BuildGeneration gen) {
+		try {
+			return nature.computeSnapshotKey(gen);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
 	}
 
-	private static void doInitGrammar(MetamathProjectNature nature, MetamathMessageHandler messageHandler,
+	/**
+	 * Schedules the save of the build snapshot, if the project was built without errors.
+	 */
+	private static void saveSnapshot(MetamathProjectNature nature, BuildGeneration gen, byte[] snapshotKey) throws CoreException {
+		if(snapshotKey != null && nature.getProject().findMaxProblemSeverity(
+				MetamathProjectNature.MARKER_TYPE, false, IResource.DEPTH_INFINITE) < IMarker.SEVERITY_ERROR)
+			nature.scheduleSnapshotSave(gen, snapshotKey);
+	}
+
+	private static void doInitGrammar(MetamathProjectNature nature, BuildGeneration gen, MetamathMessageHandler messageHandler,
 				IProgressMonitor monitor) {
 		monitor.beginTask("Initializing Metamath Grammar", 100);
-		nature.initializeGrammar(messageHandler);
+		nature.initializeGrammar(gen, messageHandler);
 		monitor.worked(100);
 		monitor.done();
 		}
@@ -342,29 +419,27 @@ public class MetamathBuilder extends IncrementalProjectBuilder {
 	 *
 	 *  @param runParm RunParmFile line.
 	 * @param nature TODO
+	 * @param gen the new generation, into which the file is loaded
 	 */
-	public static void doLoadFile(ResourceSource source, MetamathProjectNature nature, MessageHandler messageHandler, IProgressMonitor monitor)
+	static void doLoadFile(ResourceSource source, MetamathProjectNature nature, BuildGeneration gen, MessageHandler messageHandler, IProgressMonitor monitor)
 	                    throws IllegalArgumentException,
 	                           MMIOException,
 	                           FileNotFoundException,
 	                           IOException {
 	
-		// selectively clear the logical system for this file
-		nature.clearLogicalSystem(source.resource, 0, messageHandler);
-
 	    MMProgressMonitor loadProgress = new MMProgressMonitor("Loading Metamath Project", monitor);
 	    
-	    nature.systemizer.init(
+	    gen.systemizer.init(
 	    		nature.messageHandler,
-	    		nature.logicalSystem,
+	    		gen.logicalSystem,
 	    		nature.loadEndpointStmtNbrParm, 
 	    		nature.loadEndpointStmtLabelParm, 
 	    		nature.loadComments, 
 	    		nature.loadProofs);
-	    nature.systemizer.setLoadProgress(loadProgress);
+	    gen.systemizer.setLoadProgress(loadProgress);
 	    
 	    try {
-			nature.systemizer.load(source);
+			gen.systemizer.load(source);
 		} catch (MMIOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -372,33 +447,36 @@ public class MetamathBuilder extends IncrementalProjectBuilder {
 			monitor.done();
 		}
 	
-	    nature.setLogicalSystemLoaded();
+	    nature.initializeTypes(gen);
 	}
 
     /**
-     *  Executes the Parse command, prints any messages,
-     *  etc.
-     *
-     *  @param runParm RunParmFile line.
+     *  Executes the Parse command for the statements loaded
+     *  after the given sequence number.
      */
-    public static void doParse(Source source, MetamathProjectNature nature, MessageHandler messageHandler, IProgressMonitor monitor)
+    static void doParse(Source source, MetamathProjectNature nature, BuildGeneration gen, MessageHandler messageHandler, int minSeq, 
+    		BuildMetrics metrics, IProgressMonitor monitor)
                         throws IllegalArgumentException,
                                IOException,
                                VerifyException {
 
-        LogicalSystem logicalSystem = nature.getLogicalSystem();
+        LogicalSystem logicalSystem = gen.logicalSystem;
 
 	    MMProgressMonitor parseProgress = new MMProgressMonitor("Parsing Metamath Project", monitor);
         
-        Grammar grammar = nature.getGrammar();
+        Grammar grammar = nature.getGrammar(gen);
+        long formulasParsed = grammar.getNbrFormulasParsed();
+        long parseFailures = grammar.getNbrParseFailures();
+        Phase phase = metrics.startPhase("parse");
         boolean parseAll = true;
         if (parseAll) {
             grammar.parseAllFormulas(
                 messageHandler,
                 logicalSystem.getSymTbl(),
                 logicalSystem.getStmtTbl(),
-                parseProgress);
-            nature.allStatementsParsedSuccessfully = true;
+                parseProgress,
+                minSeq);
+            gen.allStatementsParsedSuccessfully = true;
         }
         else {
             Stmt stmt = null;
@@ -415,6 +493,10 @@ public class MetamathBuilder extends IncrementalProjectBuilder {
                 messageHandler.accumMessage(UtilConstants.ERRMSG_PARSE_RPN, stmt, sb);
             }
         }
+        formulasParsed = grammar.getNbrFormulasParsed() - formulasParsed;
+        phase.end().count("formulas", formulasParsed)
+        	.count("parseFailures", grammar.getNbrParseFailures() - parseFailures)
+        	.rate("formulasPerSecond", formulasParsed);
 
         logicalSystem.setSyntaxVerifier(grammar);
     }
@@ -423,13 +505,36 @@ public class MetamathBuilder extends IncrementalProjectBuilder {
      * Executes the VerifyProof command, prints any messages, etc.
      */
     public static void doVerifyProof(MetamathProjectNature nature, MessageHandler messageHandler, IProgressMonitor monitor) {
-        final LogicalSystem logicalSystem = nature.getLogicalSystem();
-        final VerifyProofs verifyProofs = nature.getVerifyProofs();
+        BuildGeneration gen = nature.getGeneration();
+        if(gen == null) return;
+        // all proofs are verified again
+        nature.getVerificationStatus().clear();
+        doVerifyProof(nature, gen, messageHandler, 0, new BuildMetrics("verify"), monitor);
+    }
+
+    /**
+     * Executes the VerifyProof command for the theorems loaded after the given sequence number.
+     * The proofs already verified without errors, and not affected by the changes since, are skipped,
+     * see {@link VerificationStatus}.
+     */
+    static void doVerifyProof(MetamathProjectNature nature, BuildGeneration gen, MessageHandler messageHandler, int minSeq, 
+    		BuildMetrics metrics, IProgressMonitor monitor) {
+        final LogicalSystem logicalSystem = gen.logicalSystem;
+        final VerifyProofs verifyProofs = nature.getVerifyProofs(gen);
 
 	    MMProgressMonitor verifyProgress = new MMProgressMonitor("Verifying Metamath Proofs", monitor);
 
+        long proofsVerified = verifyProofs.getNbrProofsVerified();
+        long proofStepsVerified = verifyProofs.getNbrProofStepsVerified();
+        Phase phase = metrics.startPhase("verify");
         verifyProofs.setVerifyProgress(verifyProgress);
-        verifyProofs.verifyAllProofs(messageHandler, logicalSystem.getStmtTbl());
+        VerificationStatus verificationStatus = nature.getVerificationStatus();
+        verificationStatus.verifyChangedProofs(verifyProofs, messageHandler, logicalSystem, minSeq);
+        proofsVerified = verifyProofs.getNbrProofsVerified() - proofsVerified;
+        phase.end().count("proofs", proofsVerified)
+        	.count("proofsSkipped", verificationStatus.getNbrSkipped())
+        	.count("proofSteps", verifyProofs.getNbrProofStepsVerified() - proofStepsVerified)
+        	.rate("proofsPerSecond", proofsVerified);
 
         logicalSystem.setProofVerifier(verifyProofs);
     }
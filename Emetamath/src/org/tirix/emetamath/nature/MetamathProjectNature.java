@@ -1,6 +1,7 @@
 package org.tirix.emetamath.nature;
 
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -74,9 +75,11 @@ import mmj.pa.ProofAsstPreferences;
 import mmj.tl.TheoremLoader;
 import mmj.tl.TlPreferences;
 import mmj.util.UtilConstants;
+import mmj.verify.BuildSnapshot;
 import mmj.verify.Grammar;
 import mmj.verify.GrammarConstants;
 import mmj.verify.GrammaticalParser;
+import mmj.verify.VerificationStatus;
 import mmj.verify.VerifyException;
 import mmj.verify.VerifyProofs;
 
@@ -122,6 +125,14 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
 	public static final String COLORS_DEFAULT_VALUE = "0,0,255$255,0,0$255,0,255";
 	public static final String ICONS_DEFAULT_VALUE = "mmWff.gif$mmSet.gif$mmClass.gif";
 	public static final String WORKVARS_DEFAULT_VALUE = "&W$&S$&C";
+
+	/** Number of decompressed proofs kept in memory, see {@link mmj.lang.ProofCache} */
+	private static final int PROOF_CACHE_SIZE = 1000;
+	/** Name of the build snapshot file, in the project's working location, see {@link BuildSnapshot} */
+	private static final String SNAPSHOT_FILE_NAME = "build.snapshot";
+	private static final String METRICS_FILE_NAME = "build-metrics.json";
+	/** Delay before the build snapshot is saved, so that consecutive builds only save it once */
+	private static final long SNAPSHOT_SAVE_DELAY = 5000;
 	public static final String DEFINITION_PREFIX_DEFAULT_VALUE = "df-";
 	public static final Boolean AUTO_TRANSFORMATIONS_ENABLED_DEFAULT_VALUE = true;
 	private IProject project;
@@ -171,15 +182,11 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
     protected String         provableLogicStmtTypeParm;
     protected String         logicStmtTypeParm;
 
-    protected GMFFManager    gmffManager;
-
     protected boolean        bookManagerEnabledParm;
-    protected BookManager    bookManager;
 
     // TODO move this into (project) preferences
     protected int            seqAssignerIntervalSizeParm;
     protected int            seqAssignerIntervalTblInitialSizeParm;
-    protected SeqAssigner    seqAssigner;
 
     protected int            symTblInitialSizeParm;
     protected int            stmtTblInitialSizeParm;
@@ -193,22 +200,21 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
     
     protected Class<? extends GrammaticalParser> parserPrototype;
     
-    protected LogicalSystem  logicalSystem;
-
-    protected Systemizer     systemizer;
-
-	protected Grammar		 grammar;
+    /**
+     * The published generation of the Metamath model, read by the editors and views, 
+     * or null before the first build. See {@link BuildGeneration}
+     */
+    private volatile BuildGeneration generation;
 
-	protected boolean        logicalSystemLoaded;
+	protected volatile boolean logicalSystemLoaded;
 	private Deque<SystemLoadListener> listeners;
 
-	protected WorkVarManager workVarManager;
-	protected VerifyProofs	 verifyProofs;
-	protected boolean		 allProofsVerifiedSuccessfully;
-	protected boolean		 allStatementsParsedSuccessfully;
-	protected ProofAsst      proofAsst;
+	private Job snapshotSaveJob;
+
+	private BuildMetrics buildMetrics;
 
-	private TheoremLoader theoremLoader;
+	/** The proofs verified without errors, kept across generations so that a build only verifies the proofs affected by the changes */
+	private final VerificationStatus verificationStatus = new VerificationStatus();
 
     public MetamathProjectNature() {
     	listeners = new ArrayDeque<SystemLoadListener>();
@@ -296,9 +302,7 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
         stmtTblInitialSizeParm    = 0;
         loadEndpointStmtNbrParm   = 0;
         loadEndpointStmtLabelParm = null;
-        logicalSystem             = null;
-        gmffManager               = null;
-        systemizer                = null;
+        generation                = null;
 
         loadComments              =
             MMIOConstants.LOAD_COMMENTS_DEFAULT;
@@ -321,7 +325,6 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
         
         bookManagerEnabledParm    =
             LangConstants.BOOK_MANAGER_ENABLED_DEFAULT;
-        bookManager               = null;
 
         seqAssignerIntervalSizeParm
                                   =
@@ -333,90 +336,95 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
             LangConstants.
                 SEQ_ASSIGNER_INTERVAL_TBL_INITIAL_SIZE_DEFAULT;
 
-        seqAssigner               = null;
-
     }
 
     /**
-     * Clear the logical system.
+     * Creates a new, empty generation of the Metamath model, to be built off to the side.
      * 
      * This is called when the environment was just opened, or when the MM files have been changed, 
-     * before re-parsing and verifying it.
+     * before re-parsing and verifying them. The published generation stays readable 
+     * until the new one is published, see {@link #publishGeneration(BuildGeneration)}.
      * 
      * @param resource
      * @param offset
      * @param messageHandler
+     * @return the new generation
      */
-    public void clearLogicalSystem(IResource resource, long offset, MessageHandler messageHandler) {
+    BuildGeneration newGeneration(IResource resource, long offset, MessageHandler messageHandler) {
     	dependencies.clearDependenciesFrom(null, offset);
     	
-    	logicalSystemLoaded   = false;
-	    
-	    if (logicalSystem == null) {
-	        if (bookManager == null) {
-	            bookManager       =
-	                new BookManager(bookManagerEnabledParm,
-	                                provableLogicStmtTypeParm);
-	        }
-	
-            if (gmffManager == null)
-                gmffManager = new GMFFManager(null, messageHandler);
-
-	        if (seqAssigner == null) {
-	            seqAssigner       =
-	                new SeqAssigner(
-	                    seqAssignerIntervalSizeParm,
-	                    seqAssignerIntervalTblInitialSizeParm);
-	        }
-	
-	        int i = symTblInitialSizeParm;
-	        if (i <= 0) {
-	            i = LangConstants.SYM_TBL_INITIAL_SIZE_DEFAULT;
-	        }
-	        int j = symTblInitialSizeParm;
-	        if (j <= 0) {
-	            j = LangConstants.STMT_TBL_INITIAL_SIZE_DEFAULT;
-	        }
-	
-	        logicalSystem     =
-	            new LogicalSystem(
-	                    provableLogicStmtTypeParm,
-	                    logicStmtTypeParm,
-	                    gmffManager,
-	                    bookManager,
-	                    seqAssigner,
-	                    i,
-	                    j,
-	                    null,  //use null to override default
-	                    null); //use null to override default
-	    }
-	    else {
-	        // precautionary, added for 08/01/2008 release
-	    	logicalSystem.setSyntaxVerifier(null);
-	        logicalSystem.setProofVerifier(null);
-	        logicalSystem.clearTheoremLoaderCommitListenerList();
-
-	    	logicalSystem.clear();
-	        bookManager.clear();
-	        seqAssigner.clear();
-	    }
-	
-	    if (systemizer == null) {
-	        systemizer = new Systemizer();
-	        systemizer.setDependencyListener(this);
-	    }
-	    else {
-	    	systemizer.clearFilesAlreadyLoaded(); // TODO remove only the specified file
-	    }
-	    
-	    if(workVarManager != null) {
-	    	workVarManager.clear();
-	    }
-	    
-	    // TODO - initialize the existing ProofAsst instance instead of setting it to null
-	    proofAsst = null;
+        BookManager bookManager   =
+            new BookManager(bookManagerEnabledParm,
+                            provableLogicStmtTypeParm);
+
+        GMFFManager gmffManager   = new GMFFManager(null, messageHandler);
+        gmffManager.setNbrThreads(
+            Runtime.getRuntime().availableProcessors());
+
+        SeqAssigner seqAssigner   =
+            new SeqAssigner(
+                seqAssignerIntervalSizeParm,
+                seqAssignerIntervalTblInitialSizeParm);
+
+        int i = symTblInitialSizeParm;
+        if (i <= 0) {
+            i = LangConstants.SYM_TBL_INITIAL_SIZE_DEFAULT;
+        }
+        int j = symTblInitialSizeParm;
+        if (j <= 0) {
+            j = LangConstants.STMT_TBL_INITIAL_SIZE_DEFAULT;
+        }
+
+        LogicalSystem logicalSystem =
+            new LogicalSystem(
+                    provableLogicStmtTypeParm,
+                    logicStmtTypeParm,
+                    gmffManager,
+                    bookManager,
+                    seqAssigner,
+                    i,
+                    j,
+                    null,  //use null to override default
+                    null); //use null to override default
+        // keep proofs compressed until needed, and only the most
+        // recently used ones decompressed
+        logicalSystem.setLazyProofDecompression(true, PROOF_CACHE_SIZE);
+
+        Systemizer systemizer     = new Systemizer();
+        systemizer.setDependencyListener(this);
+
+        return new BuildGeneration(logicalSystem, systemizer, bookManager, seqAssigner, gmffManager);
     }
-    
+
+    /**
+     * Publishes a completely built generation of the Metamath model, 
+     * replacing the previous one in a single step, and notifies the listeners.
+     * 
+     * @param gen the new generation, its types initialized, see {@link #initializeTypes(BuildGeneration)}
+     */
+    void publishGeneration(BuildGeneration gen) {
+    	synchronized(this) {
+	    	provableType = gen.provableType;
+	    	types = gen.types;
+	    	typeColors = gen.typeColors;
+	    	typeIcons = gen.typeIcons;
+	    	typeIconURLs = gen.typeIconURLs;
+	    	typeWorkVars = gen.typeWorkVars;
+	    	notations = new Hashtable<Sym, Stmt>();
+	    	generation = gen;
+	    	logicalSystemLoaded = true;
+    	}
+		for(SystemLoadListener l:listeners) 
+			l.systemLoaded();
+    }
+
+    /**
+     * @return the published generation of the Metamath model, or null before the first build
+     */
+    BuildGeneration getGeneration() {
+        return generation;
+    }
+
     /**
      *  Get reference to LogicalSystem.
      *
@@ -429,6 +437,8 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
      *  @return LogicalSystem object reference.
      */
     public LogicalSystem getLogicalSystem() {
+        BuildGeneration gen = generation;
+        if (gen == null) return null;
         if (!logicalSystemLoaded) {
 //            throw new IllegalArgumentException(
 //                UtilConstants.ERRMSG_MM_FILE_NOT_LOADED_1
@@ -437,7 +447,7 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
 //                + UtilConstants.RUNPARM_LOAD_FILE
 //                + UtilConstants.ERRMSG_MM_FILE_NOT_LOADED_3);
         }
-        return logicalSystem;
+        return gen.logicalSystem;
     }
 
 
@@ -448,12 +458,12 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
     /**
      *  An initializeGrammar subroutine.
      */
-    protected void initializeGrammar(MessageHandler messageHandler) {
-        Grammar grammar           = getGrammar();
+    void initializeGrammar(BuildGeneration gen, MessageHandler messageHandler) {
+        Grammar grammar           = getGrammar(gen);
         grammar.initializeGrammar(
                     messageHandler,
-                    logicalSystem.getSymTbl(),
-                    logicalSystem.getStmtTbl());
+                    gen.logicalSystem.getSymTbl(),
+                    gen.logicalSystem.getStmtTbl());
     }
 
     /**
@@ -474,11 +484,19 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
      *  @return Grammar object, ready to go.
      */
     public Grammar getGrammar() {
-    	if(logicalSystem == null) throw new RuntimeException("Cannot get grammar if logical system is not yet loaded");
-    		
-        if (grammar != null) {
-            return grammar;
+    	BuildGeneration gen = generation;
+    	if(gen == null) throw new RuntimeException("Cannot get grammar if logical system is not yet loaded");
+    	return getGrammar(gen);
+    }
+
+    /**
+     *  Fetch the Grammar object of the given generation, building it if necessary.
+     */
+    synchronized Grammar getGrammar(BuildGeneration gen) {
+        if (gen.grammar != null) {
+            return gen.grammar;
         }
+        LogicalSystem logicalSystem = gen.logicalSystem;
 
         String[] pTyp             = new String[1];
         pTyp[0]                   =
@@ -496,20 +514,21 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
         parserPrototype = GrammarConstants.DEFAULT_PARSER_PROTOTYPE;
         
         try {
-			grammar                   = new Grammar(pTyp,
+			gen.grammar               = new Grammar(pTyp,
 			                                        lTyp,
 			                                        gComplete,
 			                                        sComplete,
 			                                        parserPrototype);
+			gen.grammar.setNbrThreads(Runtime.getRuntime().availableProcessors());
 		} catch (VerifyException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
-        return grammar;
+        return gen.grammar;
     }
 
     public void clearGrammar() {
-    	grammar.clear();
+    	getGrammar().clear();
     }
 
 
@@ -519,16 +538,138 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
      *  @return VerifyProofs object
      */
     public VerifyProofs getVerifyProofs() {
-        if (verifyProofs == null) {
-            verifyProofs          = new VerifyProofs();
-            allProofsVerifiedSuccessfully
+        BuildGeneration gen = generation;
+        return gen == null ? null : getVerifyProofs(gen);
+    }
+
+    /**
+     *  Return the initialized VerifyProofs object of the given generation
+     */
+    synchronized VerifyProofs getVerifyProofs(BuildGeneration gen) {
+        if (gen.verifyProofs == null) {
+            gen.verifyProofs      = new VerifyProofs();
+            gen.verifyProofs.setNbrThreads(
+                Runtime.getRuntime().availableProcessors());
+            gen.allProofsVerifiedSuccessfully
                                   = false;
 //            allStatementsParsedSuccessfully
 //                                  = false;
         }
-        return verifyProofs;
+        return gen.verifyProofs;
+    }
+
+
+    /**
+     * Returns the file in which the build snapshot of this project is saved.
+     */
+    public File getSnapshotFile() {
+    	return getProject().getWorkingLocation(Activator.PLUGIN_ID).append(SNAPSHOT_FILE_NAME).toFile();
+    }
+
+    /**
+     * Returns the file into which the metrics of the last build of this project are dumped.
+     */
+    public File getBuildMetricsFile() {
+    	return getProject().getWorkingLocation(Activator.PLUGIN_ID).append(METRICS_FILE_NAME).toFile();
+    }
+
+    /**
+     * Records the metrics of the last build, and dumps them as JSON, see {@link #getBuildMetricsFile()}
+     */
+    void setBuildMetrics(BuildMetrics metrics) {
+    	buildMetrics = metrics;
+    	try {
+			metrics.write(getBuildMetricsFile());
+		} catch (IOException e) {
+			Activator.log("Could not write the build metrics of "+getProject().getName(), e);
+		}
+    }
+
+    /**
+     * @return the metrics of the last build, or null if the project was not built yet
+     */
+    BuildMetrics getBuildMetrics() {
+    	return buildMetrics;
+    }
+
+    /**
+     * Computes the build snapshot key for the files currently loaded, see {@link BuildSnapshot#computeKey}
+     */
+    byte[] computeSnapshotKey(BuildGeneration gen) throws IOException {
+    	return BuildSnapshot.computeKey(gen.systemizer.getLoadedSources(), provableLogicStmtTypeParm, logicStmtTypeParm);
+    }
+
+    /**
+     * Restores the parse trees from the build snapshot, if it was saved for the same files. 
+     * The proofs were then verified without errors when the snapshot was saved, and need not be verified again.
+     * 
+     * The grammar shall be initialized.
+     * 
+     * @param gen the generation being built
+     * @param key the build snapshot key of the files loaded
+     * @return true if the snapshot was restored, false if the formulas shall be parsed and the proofs verified.
+     */
+    boolean restoreSnapshot(BuildGeneration gen, byte[] key) {
+    	if(!BuildSnapshot.restore(getSnapshotFile(), key, gen.logicalSystem.getStmtTbl(), getGrammar(gen))) return false;
+    	gen.logicalSystem.setSyntaxVerifier(gen.grammar);
+    	gen.logicalSystem.setProofVerifier(getVerifyProofs(gen));
+    	gen.allStatementsParsedSuccessfully = true;
+    	gen.allProofsVerifiedSuccessfully = true;
+    	verificationStatus.setAllVerified(gen.logicalSystem);
+    	return true;
+    }
+
+    /**
+     * Schedules the save of the build snapshot, once the project has been built without errors.
+     * 
+     * The snapshot is saved by a background job, which cannot run concurrently with a build. 
+     * A save still pending is cancelled by the next build.
+     * 
+     * @param gen the generation built
+     * @param key the build snapshot key of the files loaded
+     */
+    synchronized void scheduleSnapshotSave(final BuildGeneration gen, final byte[] key) {
+    	cancelSnapshotSave();
+    	snapshotSaveJob = new Job("Saving Metamath build snapshot") {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				try {
+					BuildSnapshot.write(getSnapshotFile(), key, gen.logicalSystem.getStmtTbl());
+				} catch (IOException e) {
+					return new Status(IStatus.WARNING, Activator.PLUGIN_ID, "Could not save the Metamath build snapshot", e);
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		snapshotSaveJob.setRule(getProject());
+		snapshotSaveJob.setSystem(true);
+		snapshotSaveJob.setPriority(Job.DECORATE);
+		snapshotSaveJob.schedule(SNAPSHOT_SAVE_DELAY);
     }
 
+    /**
+     * Cancels the pending save of the build snapshot, if any.
+     */
+    public synchronized void cancelSnapshotSave() {
+    	if(snapshotSaveJob != null) snapshotSaveJob.cancel();
+    	snapshotSaveJob = null;
+    }
+
+    /**
+     * Deletes the build snapshot and forgets the proofs verified, so that the next full build parses and verifies everything again.
+     */
+    public void deleteSnapshot() {
+    	cancelSnapshotSave();
+    	getSnapshotFile().delete();
+    	verificationStatus.clear();
+    }
+
+    /**
+     * Returns the record of the proofs verified without errors, see {@link VerificationStatus}
+     */
+    VerificationStatus getVerificationStatus() {
+    	return verificationStatus;
+    }
 
     /**
      *  Fetch a WorkVarManager object.
@@ -540,20 +681,25 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
      *  @return WorkVarManager object, ready to go, or null.
      */
     public WorkVarManager getWorkVarManager() {
+        BuildGeneration gen = generation;
+        return gen == null ? null : getWorkVarManager(gen);
+    }
 
-        if (workVarManager != null) {
-            return workVarManager;
+    synchronized WorkVarManager getWorkVarManager(BuildGeneration gen) {
+
+        if (gen.workVarManager != null) {
+            return gen.workVarManager;
         }
 
-        if (grammar.getGrammarInitialized()) {
-            workVarManager        = new WorkVarManager(grammar);
+        if (gen.grammar.getGrammarInitialized()) {
+            gen.workVarManager    = new WorkVarManager(gen.grammar);
         }
         else {
             messageHandler.accumMessage(
                 UtilConstants.ERRMSG_WV_MGR_REQUIRES_GRAMMAR_INIT);
         }
 
-        return workVarManager;
+        return gen.workVarManager;
     }
 
 
@@ -564,18 +710,23 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
      *  @return TheoremLoader object, ready to go, or null;.
      */
     public TheoremLoader getTheoremLoader() {
+        BuildGeneration gen = generation;
+        return gen == null ? null : getTheoremLoader(gen);
+    }
 
-        if (theoremLoader != null) {
-            return theoremLoader;
+    synchronized TheoremLoader getTheoremLoader(BuildGeneration gen) {
+
+        if (gen.theoremLoader != null) {
+            return gen.theoremLoader;
         }
 
         TlPreferences tlPreferences
-                                  = preferences.getTlPreferences(logicalSystem);
+                                  = preferences.getTlPreferences(gen.logicalSystem);
 
-        theoremLoader             =
+        gen.theoremLoader         =
             new TheoremLoader(tlPreferences);
 
-        return theoremLoader;
+        return gen.theoremLoader;
     }
 
     /**
@@ -585,80 +736,85 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
      *  @return ProofAsst object, ready to go, or null;.
      */
     public ProofAsst getProofAsst() {
+        BuildGeneration gen = generation;
+        if (gen == null) return null;
 
-        if (proofAsst != null) {
-            return proofAsst;
-        }
-
-        getLogicalSystem();
-        getVerifyProofs();
-        getGrammar();
-
-        try {
-	        if (grammar.getGrammarInitialized() &&
-	        	allStatementsParsedSuccessfully) {
-	
-	            ProofAsstPreferences proofAsstPreferences
-	                                  = preferences.getProofAsstPreferences();
-	
-	            WorkVarManager workVarManager = getWorkVarManager();
-	
-	            if (!workVarManager.areWorkVarsDeclared()) {
-						workVarManager.
-						    declareWorkVars(grammar,
-						                    logicalSystem);
-	            }
-	
-	            proofAsstPreferences.
-	                setWorkVarManager(
-	                    workVarManager);
-	            proofAsstPreferences.deriveAutocomplete.set(true); // TODO : include in a preference page
+        synchronized(gen) {
+	        if (gen.proofAsst != null) {
+	            return gen.proofAsst;
+	        }
 	
-	            TheoremLoader theoremLoader = getTheoremLoader();
-	            MacroManager macroManager = null;
-	            
-	            proofAsst             =
-	                new ProofAsst(proofAsstPreferences,
-	                              logicalSystem,
-	                              grammar,
-	                              verifyProofs,
-	                              theoremLoader,
-	                              macroManager);
-	            
-	            if (!proofAsst.getInitializedOK()) {
-	                proofAsst.initializeLookupTables(messageHandler);
-	            }
+	        LogicalSystem logicalSystem = gen.logicalSystem;
+	        VerifyProofs verifyProofs = getVerifyProofs(gen);
+	        Grammar grammar = getGrammar(gen);
 	
-	            // TODO : include in a preference page
-	            boolean autoTransformationsEnabled = true;
-	            boolean autoTransformationsDebugOutput = false;
-	            boolean autoTransformationsSupportPrefix = true;
-	            proofAsst.initAutotransformations(
-	            	autoTransformationsEnabled, autoTransformationsDebugOutput,
-	            	autoTransformationsSupportPrefix);
-
-	            logicalSystem.
-	                accumTheoremLoaderCommitListener(
-	                    proofAsst);
+	        try {
+		        if (grammar.getGrammarInitialized() &&
+		        	gen.allStatementsParsedSuccessfully) {
+		
+		            ProofAsstPreferences proofAsstPreferences
+		                                  = preferences.getProofAsstPreferences();
+		
+		            WorkVarManager workVarManager = getWorkVarManager(gen);
+		
+		            if (!workVarManager.areWorkVarsDeclared()) {
+							workVarManager.
+							    declareWorkVars(grammar,
+							                    logicalSystem);
+		            }
+		
+		            proofAsstPreferences.
+		                setWorkVarManager(
+		                    workVarManager);
+		            proofAsstPreferences.deriveAutocomplete.set(true); // TODO : include in a preference page
+		
+		            TheoremLoader theoremLoader = getTheoremLoader(gen);
+		            MacroManager macroManager = null;
+		            
+		            ProofAsst proofAsst   =
+		                new ProofAsst(proofAsstPreferences,
+		                              logicalSystem,
+		                              grammar,
+		                              verifyProofs,
+		                              theoremLoader,
+		                              macroManager);
+		            
+		            if (!proofAsst.getInitializedOK()) {
+		                proofAsst.initializeLookupTables(messageHandler);
+		            }
+		
+		            // TODO : include in a preference page
+		            boolean autoTransformationsEnabled = true;
+		            boolean autoTransformationsDebugOutput = false;
+		            boolean autoTransformationsSupportPrefix = true;
+		            proofAsst.initAutotransformations(
+		            	autoTransformationsEnabled, autoTransformationsDebugOutput,
+		            	autoTransformationsSupportPrefix);
 	
-	        }
-	        else {
-	            proofAsst             = null;
-	            messageHandler.accumMessage(
-	                UtilConstants.ERRMSG_PA_REQUIRES_GRAMMAR_INIT);
-	        }
+		            logicalSystem.
+		                accumTheoremLoaderCommitListener(
+		                    proofAsst);
+		            gen.proofAsst         = proofAsst;
+		        }
+		        else {
+		            gen.proofAsst         = null;
+		            messageHandler.accumMessage(
+		                UtilConstants.ERRMSG_PA_REQUIRES_GRAMMAR_INIT);
+		        }
+		
+		        return gen.proofAsst;
 	
-	        return proofAsst;
-
-        } catch (VerifyException e) {
-			messageHandler.accumErrorMessage(e.getMessage());
-			return null;
-		}
+	        } catch (VerifyException e) {
+				messageHandler.accumErrorMessage(e.getMessage());
+				return null;
+			}
+        }
     }
 
 
     public BookManager getBookManager() {
-		return bookManager;
+        BuildGeneration gen = generation;
+		return gen == null ? null : gen.bookManager;
 	}
 
 	public TypeSetting getMathMLTypeSetting() {
@@ -670,20 +826,18 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
 		if(logicalSystemLoaded) l.systemLoaded();
 	}
 	
-	public void setLogicalSystemLoaded() {
-		initializeTypes();
-		logicalSystemLoaded = true;
-		for(SystemLoadListener l:listeners) 
-			l.systemLoaded();
-	}
-
 	public boolean getLoadProofs() {
 		return loadProofs;
 	}
 
-	private void initializeTypes() {
-		notations = new Hashtable<Sym, Stmt>();
-		types = new ArrayList<Cnst>();
+	/**
+	 * Initializes the types of a newly loaded generation, its grammar, 
+	 * and the work variables of each type.
+	 * 
+	 * @param gen the generation being built
+	 */
+	void initializeTypes(BuildGeneration gen) {
+		LogicalSystem logicalSystem = gen.logicalSystem;
 		
 		String provableTypeProperty = null;
 		String typesProperty = null;
@@ -705,38 +859,39 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
 		if(workvarsProperty == null) workvarsProperty = WORKVARS_DEFAULT_VALUE;
 
 		// get the 'provable' type
-		provableType = (Cnst)logicalSystem.getSymTbl().get(provableTypeProperty);
+		gen.provableType = (Cnst)logicalSystem.getSymTbl().get(provableTypeProperty);
 
 		// get the other types
-		types = parseTypesString(typesProperty);
+		gen.types = parseTypesString(typesProperty, logicalSystem);
 		
 		// get the coloring attributes for the other types
-		typeColors = parseTypeColorsString(colorsProperty, types);
+		gen.typeColors = parseTypeColorsString(colorsProperty, gen.types);
 		
 		// get the icons for the other types
-		typeIcons = parseIconsString(iconsProperty, types);
+		gen.typeIconURLs = new Hashtable<Cnst, String>();
+		gen.typeIcons = parseIconsString(iconsProperty, gen.types, gen.typeIconURLs);
 		
 		// get the workvars prefix for the other types
-		typeWorkVars = parseWorkVars(workvarsProperty, types);
+		gen.typeWorkVars = parseWorkVars(workvarsProperty, gen.types);
 		
 //		wffType = (Cnst)logicalSystem.getSymTbl().get("wff");
 //		setType = (Cnst)logicalSystem.getSymTbl().get("set");
 //		classType = (Cnst)logicalSystem.getSymTbl().get("class");
 		
-		grammar = getGrammar();
-		initializeGrammar(messageHandler);
+		Grammar grammar = getGrammar(gen);
+		initializeGrammar(gen, messageHandler);
 		
 		// Configure the Working Variables manager
-		for(Cnst type:typeWorkVars.keySet())
+		for(Cnst type:gen.typeWorkVars.keySet())
 			try {
 				if(!type.getId().equals(logicStmtTypeParm))
-					getWorkVarManager().defineWorkVarType(grammar, type.getId(), typeWorkVars.get(type), 200);
+					getWorkVarManager(gen).defineWorkVarType(grammar, type.getId(), gen.typeWorkVars.get(type), 200);
 			} catch (VerifyException e) {
 				messageHandler.accumException(e);
 			}
 	}
 	
-	private List<Cnst> parseTypesString(String input) {
+	private List<Cnst> parseTypesString(String input, LogicalSystem logicalSystem) {
 		List<Cnst> types = new ArrayList<Cnst>();
 		for(String typeName:input.split("\\$")) {
 			Cnst type = (Cnst)logicalSystem.getSymTbl().get(typeName);
@@ -758,7 +913,7 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
 		return typeColors;
 	}
 	
-	private Map<Cnst, Image> parseIconsString(String iconsProperty, List<Cnst> types) {
+	private Map<Cnst, Image> parseIconsString(String iconsProperty, List<Cnst> types, Map<Cnst, String> typeIconURLs) {
 		Hashtable<Cnst, Image> typeIcons = new Hashtable<Cnst, Image>();
 		String[] icons = iconsProperty.split("\\$");
 		for(int i=0;i<icons.length && i<types.size();i++) {
@@ -892,7 +1047,7 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
 	public Stmt getNotation(Sym sym) {
 		Stmt notation = notations.get(sym);
 		if(notation == null) {
-			Collection<Stmt> statements = logicalSystem.getStmtTbl().values();
+			Collection<Stmt> statements = generation.logicalSystem.getStmtTbl().values();
 			for(Stmt stmt:statements) {
 				Sym[] expr = stmt.getFormula().getExpr();
 				if(expr.length == 1 && expr[0].equals(sym) && !stmt.getTyp().equals(provableType)) {
@@ -911,7 +1066,7 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
 	 * @return notation statement for the symbol sym.
 	 */
 	public Axiom getDefinition(Sym sym) {
-		Collection<Stmt> statements = logicalSystem.getStmtTbl().values();
+		Collection<Stmt> statements = generation.logicalSystem.getStmtTbl().values();
 		for(Stmt stmt:statements) {
 			if(stmt instanceof Axiom && stmt.getLabel().startsWith(DEFINITION_PREFIX_DEFAULT_VALUE)) {
 				Sym[] expr = stmt.getFormula().getExpr();
@@ -1090,7 +1245,9 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
 	}
 
 	public MObj getMObj(String objectName) {
-		if(logicalSystem == null) return null;
+		BuildGeneration gen = generation;
+		if(gen == null) return null;
+		LogicalSystem logicalSystem = gen.logicalSystem;
 		
 		Sym sym = (Sym)logicalSystem.getSymTbl().get(objectName);
 		if(sym != null) return sym;
@@ -1102,9 +1259,10 @@ public class MetamathProjectNature implements IProjectNature, DependencyListener
 	}
 	
 	public Stmt getStmt(String objectName) {
-		if(logicalSystem == null) return null;
+		BuildGeneration gen = generation;
+		if(gen == null) return null;
 		
-		Stmt stmt = (Stmt)logicalSystem.getStmtTbl().get(objectName);
+		Stmt stmt = (Stmt)gen.logicalSystem.getStmtTbl().get(objectName);
 		if(stmt != null) return stmt;
 
 		return null;
@@ -1215,6 +1373,8 @@ System.out.println("New Source:"+resource);
 		public final TextEditor editor;
 		public final IDocument document;
 		public final String name;
+		/** Annotations added while deferred, see {@link #deferAnnotations()}, or null if annotations are added immediately */
+		private List<PendingAnnotation> pendingAnnotations;
 		
 		public DocumentSource(IDocument document, TextEditor editor, String name) {
 			this.document = document;
@@ -1222,6 +1382,40 @@ System.out.println("New Source:"+resource);
 			this.name = name;
 		}
 
+		private static class PendingAnnotation {
+			final SourcePosition position;
+			final String message;
+			final int severity;
+
+			PendingAnnotation(SourcePosition position, String message, int severity) {
+				this.position = position;
+				this.message = message;
+				this.severity = severity;
+			}
+		}
+
+		/**
+		 * Defers the annotations added to this source until {@link #flushAnnotations()} is called,
+		 * so that messages can be collected outside of the UI thread, and dropped if they are not wanted anymore.
+		 */
+		public synchronized void deferAnnotations() {
+			if(pendingAnnotations == null) pendingAnnotations = new ArrayList<PendingAnnotation>();
+		}
+
+		/**
+		 * Adds the annotations deferred since {@link #deferAnnotations()}, and adds the next ones immediately.
+		 */
+		public void flushAnnotations() {
+			List<PendingAnnotation> pending;
+			synchronized(this) {
+				pending = pendingAnnotations;
+				pendingAnnotations = null;
+			}
+			if(pending == null) return;
+			for(PendingAnnotation annotation:pending)
+				addAnnotation(annotation.position, annotation.message, annotation.severity);
+		}
+
 		@Override
 		public Reader createReader() throws FileNotFoundException {
 			return new Reader() {
@@ -1293,6 +1487,12 @@ System.out.println("New Source:"+resource);
 		 * @param severity one of IMarker.SEVERITY_INFO, IMarker.SEVERITY_WARNING, IMarker.SEVERITY_ERROR. Defines the image and color displayed (info / warning / error)
 		 */
 		public void addAnnotation(SourcePosition position, String message, int severity) {
+			synchronized(this) {
+				if(pendingAnnotations != null) {
+					pendingAnnotations.add(new PendingAnnotation(position, message, severity));
+					return;
+				}
+			}
 			if(!editor.isDirty()) {
 				// if editor has been saved, revert to the marker...
 				IFile resource = ((FileEditorInput)editor.getEditorInput()).getFile();
@@ -3,11 +3,12 @@
  */
 package org.tirix.emetamath.search;
 
-import java.util.ArrayList;
-import java.util.Map;
+import java.util.Collection;
+import java.util.Set;
 
 import mmj.lang.MObj;
 import mmj.lang.ParseTree.RPNStep;
+import mmj.lang.ReferenceIndex;
 import mmj.lang.Stmt;
 import mmj.lang.Sym;
 import mmj.lang.Theorem;
@@ -23,7 +24,7 @@ import org.tirix.emetamath.Activator;
 import org.tirix.emetamath.nature.MetamathProjectNature;
 
 public class MetamathSearchIncompleteQuery extends MetamathSearchQuery {
-	ArrayList<Stmt> incompleteTheorems;
+	Set<Stmt> incompleteTheorems;
 	
 	public MetamathSearchIncompleteQuery(MetamathProjectNature nature) {
 		super(nature, MetamathSearchMode.IN_MM_PROOFS);
@@ -40,24 +41,24 @@ public class MetamathSearchIncompleteQuery extends MetamathSearchQuery {
 		return null;
 	}
 	
+	/**
+	 * The incomplete theorems are the theorems with unknown steps, and all 
+	 * the theorems depending on them.
+	 */
 	@Override
-	public boolean checkProofStep(Stmt stmt, RPNStep step) {
-		if(step == null || incompleteTheorems.contains(step.stmt)) {
-			incompleteTheorems.add(stmt);
-			return true;
-		}
-		return false;
+	protected Collection<? extends Stmt> getCandidates(ReferenceIndex index) {
+		incompleteTheorems = index.getDependents(index.getIncompleteTheorems());
+		return incompleteTheorems;
 	}
 
 	@Override
-	public boolean checkStmtSym(Stmt stmt, Sym sym) {
-		return false; // unused, always in proof mode
+	public boolean checkProofStep(Stmt stmt, RPNStep step) {
+		return Theorem.isUnknownStep(step) || step.stmt != null && incompleteTheorems.contains(step.stmt);
 	}
 
 	@Override
-	public IStatus run(IProgressMonitor monitor) throws OperationCanceledException {
-		incompleteTheorems = new ArrayList<Stmt>();
-		return super.run(monitor);
+	public boolean checkStmtSym(Stmt stmt, Sym sym) {
+		return false; // unused, always in proof mode
 	}
 }
 
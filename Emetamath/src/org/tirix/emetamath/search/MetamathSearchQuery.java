@@ -3,10 +3,11 @@
  */
 package org.tirix.emetamath.search;
 
-import java.util.Map;
+import java.util.Collection;
 
 import mmj.lang.MObj;
 import mmj.lang.ParseTree.RPNStep;
+import mmj.lang.ReferenceIndex;
 import mmj.lang.Stmt;
 import mmj.lang.Sym;
 import mmj.lang.Theorem;
@@ -68,6 +69,16 @@ public abstract class MetamathSearchQuery implements ISearchQuery {
 	public abstract String getSearchingLabel();
 	public abstract boolean checkProofStep(Stmt stmt, RPNStep step);
 	public abstract boolean checkStmtSym(Stmt stmt, Sym sym);
+
+	/**
+	 * Returns the statements which may match this query, looked up in the 
+	 * reverse-dependency index of the logical system.
+	 * Only these statements are checked by {@link #run(IProgressMonitor)}.
+	 * 
+	 * @param index the reference index of the logical system
+	 * @return the candidate statements
+	 */
+	protected abstract Collection<? extends Stmt> getCandidates(ReferenceIndex index);
 	
 	@Override
 	public IStatus run(IProgressMonitor monitor)
@@ -78,13 +89,13 @@ public abstract class MetamathSearchQuery implements ISearchQuery {
 		int count = 0;
 		int max = Integer.MAX_VALUE; // TODO store this as a Metamath preference !
 		
-		Map<String, Stmt> stmtTbl = nature.getLogicalSystem().getStmtTbl();
-		monitor.beginTask(getSearchingLabel(), stmtTbl.size());
+		Collection<? extends Stmt> candidates = getCandidates(nature.getLogicalSystem().getReferenceIndex());
+		monitor.beginTask(getSearchingLabel(), candidates.size());
 		
 		switch(mode) {
 		case IN_MM_STATEMENTS:
 			symLoop:
-			for(Stmt stmt:stmtTbl.values()) {
+			for(Stmt stmt:candidates) {
 				for(Sym sym:stmt.getFormula().getExpr()) {
 					if(checkStmtSym(stmt, sym)) {
 						result.addMatch(new MetamathMatch(stmt));
@@ -98,7 +109,7 @@ public abstract class MetamathSearchQuery implements ISearchQuery {
 
 		case IN_MM_PROOFS:
 			stmtLoop:
-			for(Stmt stmt:stmtTbl.values()) {
+			for(Stmt stmt:candidates) {
 				if(stmt instanceof Theorem) {
 					for(RPNStep proofStep:((Theorem)stmt).getProof()) {
 						if(checkProofStep(stmt, proofStep)) {
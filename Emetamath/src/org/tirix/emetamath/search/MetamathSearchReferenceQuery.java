@@ -1,9 +1,12 @@
 package org.tirix.emetamath.search;
 
+import java.util.Collection;
+
 import org.tirix.emetamath.nature.MetamathProjectNature;
 
 import mmj.lang.MObj;
 import mmj.lang.ParseTree.RPNStep;
+import mmj.lang.ReferenceIndex;
 import mmj.lang.Stmt;
 import mmj.lang.Sym;
 
@@ -26,6 +29,11 @@ public class MetamathSearchReferenceQuery extends MetamathSearchQuery {
 		return "Searching for '"+obj+"'";
 	}
 	
+	@Override
+	protected Collection<? extends Stmt> getCandidates(ReferenceIndex index) {
+		return obj instanceof Sym ? index.getSymRefs((Sym)obj) : index.getProofRefs((Stmt)obj);
+	}
+
 	@Override
 	public boolean checkProofStep(Stmt stmt, RPNStep step) {
 		return step != null && obj.equals(step.stmt);